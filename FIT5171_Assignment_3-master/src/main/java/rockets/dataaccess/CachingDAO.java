@@ -0,0 +1,228 @@
+package rockets.dataaccess;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A DAO that caches the entities loaded by id, so that pages showing one entity, e.g.
+ * a user or a rocket, do not hit the store on every request. The cache is bounded by
+ * weight, an entity weighing one plus the number of entities in its relationships, and
+ * evicts with W-TinyLFU. Entries can also expire a fixed time after they are loaded.
+ * <p>
+ * Saving or deleting an entity through this DAO invalidates it and every entity it is
+ * related to, as their relationships may have changed. So do the changes the delegate
+ * publishes, which include the writes made through its other wrappers; writes made to
+ * the store by anything else, or to a delegate that publishes nothing, are only seen
+ * once the entries expire. Cached entities are shared by every caller, so they must not
+ * be changed without being saved.
+ */
+public class CachingDAO extends ForwardingDAO {
+    private final Cache<Key, Entity> cache;
+    private final EntityListener invalidator = new EntityListener() {
+        @Override
+        public void onEvent(EntityEvent event) {
+            cache.invalidate(new Key(event.getEntityClass(), event.getId()));
+            Entity entity = (null != event.getAfter()) ? event.getAfter() : event.getBefore();
+            if (null != entity) {
+                invalidate(Collections.singletonList(entity));
+            }
+        }
+
+        @Override
+        public void onEventsLost(long count) {
+            cache.invalidateAll();
+        }
+    };
+
+    /**
+     * @param delegate      the DAO to load from on a miss.
+     * @param maximumWeight the largest total weight of the cached entities.
+     */
+    public CachingDAO(DAO delegate, long maximumWeight) {
+        this(delegate, maximumWeight, null);
+    }
+
+    /**
+     * @param delegate      the DAO to load from on a miss.
+     * @param maximumWeight the largest total weight of the cached entities.
+     * @param timeToLive    how long an entry stays cached after it is loaded, or null to keep it until evicted.
+     */
+    public CachingDAO(DAO delegate, long maximumWeight, Duration timeToLive) {
+        this(delegate, maximumWeight, timeToLive, ForkJoinPool.commonPool());
+    }
+
+    // evictions and expirations are processed on the executor
+    CachingDAO(DAO delegate, long maximumWeight, Duration timeToLive, Executor executor) {
+        super(delegate);
+        if (maximumWeight < 1)
+            throw new IllegalArgumentException("maximum weight must be positive");
+        Caffeine<Key, Entity> builder = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, Entity entity) -> weightOf(entity))
+                .executor(executor)
+                .recordStats();
+        if (null != timeToLive) {
+            if (timeToLive.isNegative() || timeToLive.isZero())
+                throw new IllegalArgumentException("time to live must be positive");
+            builder.expireAfterWrite(timeToLive.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        this.cache = builder.build();
+        try {
+            delegate.addListener(invalidator);
+        } catch (UnsupportedOperationException e) {
+            // the entries are left to expire
+        }
+    }
+
+    static int weightOf(Entity entity) {
+        return 1 + related(entity).size();
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        Entity entity = cache.get(new Key(clazz, id), key -> super.load(clazz, id));
+        return clazz.cast(entity);
+    }
+
+    /**
+     * Only loads of whole entities, as made by {@link #load(Class, Long)}, are cached.
+     */
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, FetchPlan plan) {
+        return FetchPlan.ENTITY.equals(plan) ? load(clazz, id) : super.load(clazz, id, plan);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        T saved = super.createOrUpdate(entity);
+        invalidate(Collections.singletonList(saved));
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        Collection<T> saved = super.createOrUpdateAll(entities);
+        invalidate(saved);
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        // the store may clear the id of a deleted entity
+        List<Key> keys = keysOf(Collections.singletonList(entity));
+        super.delete(entity);
+        cache.invalidateAll(keys);
+    }
+
+    private void invalidate(Collection<? extends Entity> entities) {
+        cache.invalidateAll(keysOf(entities));
+    }
+
+    // the keys of the entities and of every entity related to them, directly or not
+    private static List<Key> keysOf(Collection<? extends Entity> entities) {
+        Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Entity> pending = new ArrayDeque<>(entities);
+        List<Key> keys = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Entity entity = pending.pop();
+            if (null == entity || !seen.add(entity)) {
+                continue;
+            }
+            if (null != entity.getId()) {
+                keys.add(new Key(entity.getClass(), entity.getId()));
+            }
+            pending.addAll(related(entity));
+        }
+        return keys;
+    }
+
+    private static List<Entity> related(Entity entity) {
+        List<Entity> related = new ArrayList<>();
+        if (entity instanceof LaunchServiceProvider) {
+            addAll(related, ((LaunchServiceProvider) entity).getRockets());
+        } else if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            related.add(rocket.getManufacturer());
+            addAll(related, rocket.getLaunches());
+        } else if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            related.add(launch.getLaunchVehicle());
+            related.add(launch.getLaunchServiceProvider());
+            addAll(related, launch.getPayload());
+        }
+        related.removeIf(Objects::isNull);
+        return related;
+    }
+
+    private static void addAll(List<Entity> related, Collection<? extends Entity> entities) {
+        if (null != entities) {
+            related.addAll(entities);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate().removeListener(invalidator);
+        super.close();
+    }
+
+    /**
+     * Discards every cached entity, e.g. after the store was changed by another writer.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the hit, miss and eviction counts of the cache.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    private static final class Key {
+        private final Class<?> clazz;
+        private final Long id;
+
+        private Key(Class<?> clazz, Long id) {
+            this.clazz = clazz;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return clazz.equals(key.clazz) && Objects.equals(id, key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clazz, id);
+        }
+    }
+}
@@ -1,20 +1,151 @@
 package rockets.dataaccess;
 
 import rockets.model.Entity;
+import rockets.model.Launch;
 import rockets.model.User;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface DAO {
     <T extends Entity> T load(Class<T> clazz, Long id);
 
+    /**
+     * Loads an entity and as much of the graph around it as the plan asks for.
+     * Implementations that do not fetch lazily ignore the plan.
+     *
+     * @param clazz the entity class.
+     * @param id    the id of the entity.
+     * @param plan  the related entities to fetch with it.
+     * @return the entity, or null if there is none with that id.
+     */
+    default <T extends Entity> T load(Class<T> clazz, Long id, FetchPlan plan) {
+        return load(clazz, id);
+    }
+
     <T extends Entity> T createOrUpdate(T entity);
 
+    /**
+     * Creates or updates all the given entities, as {@link #createOrUpdate(Entity)} does
+     * for each of them. Implementations backed by a store save them in bulk.
+     *
+     * @param entities the entities to save.
+     * @return the saved entities.
+     */
+    default <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            saved.add(createOrUpdate(entity));
+        }
+        return saved;
+    }
+
     <T extends Entity> Collection<T> loadAll(Class<T> clazz);
 
+    /**
+     * Loads all entities of a class and as much of the graph around them as the plan
+     * asks for. Implementations that do not fetch lazily ignore the plan.
+     *
+     * @param clazz the entity class.
+     * @param plan  the related entities to fetch with them.
+     * @return the entities.
+     */
+    default <T extends Entity> Collection<T> loadAll(Class<T> clazz, FetchPlan plan) {
+        return loadAll(clazz);
+    }
+
+    /**
+     * Fetches only the given properties of all entities of a class, e.g. the names of
+     * the rockets for a listing page, ordered by id.
+     *
+     * @param clazz      the entity class.
+     * @param projection the properties to fetch.
+     * @return one row per entity, as mapped by the projection.
+     */
+    default <T extends Entity, R> List<R> project(Class<T> clazz, Projection<R> projection) {
+        projection.checkProperties(clazz);
+        List<T> entities = new ArrayList<>(loadAll(clazz));
+        entities.sort(Comparator.comparing(Entity::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<R> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            rows.add(projection.fromEntity(entity));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns all entities of a class as a lazily fetched stream. Implementations
+     * backed by a store fetch the entities page by page, so the stream must be
+     * closed, e.g. in a try-with-resources block, to release the resources it holds.
+     *
+     * @param clazz the entity class.
+     * @return the stream of entities.
+     */
+    default <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return loadAll(clazz).stream();
+    }
+
+    /**
+     * Loads one page of the entities of a class, in the order the request asks for.
+     *
+     * @param clazz   the entity class.
+     * @param request the page to load.
+     * @return the page, with the request of the next page if there is one.
+     */
+    default <T extends Entity> Page<T> loadPage(Class<T> clazz, PageRequest request) {
+        return Page.slice(loadAll(clazz), request);
+    }
+
+    /**
+     * Fetches only the given properties of one page of the entities of a class, e.g. one
+     * screen of a listing page.
+     *
+     * @param clazz      the entity class.
+     * @param projection the properties to fetch.
+     * @param request    the page to fetch.
+     * @return the page of rows, as mapped by the projection.
+     */
+    default <T extends Entity, R> Page<R> projectPage(Class<T> clazz, Projection<R> projection, PageRequest request) {
+        projection.checkProperties(clazz);
+        return loadPage(clazz, request).map(projection::fromEntity);
+    }
+
     <T extends Entity> void delete(T entity);
 
+    /**
+     * Registers a listener for the entities this DAO creates, updates and deletes. The
+     * events of a write are published once it is committed, in order, and delivered on a
+     * thread of the DAO's, see {@link EntityEventDispatcher}.
+     *
+     * @param listener the listener.
+     * @throws UnsupportedOperationException if this DAO does not publish its changes.
+     */
+    default void addListener(EntityListener listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not publish its changes");
+    }
+
+    default void removeListener(EntityListener listener) {
+    }
+
     User getUserByEmail(String email);
 
+    /**
+     * Loads the launches of one year, e.g. those an import of the year may update.
+     * Implementations backed by a store only read those launches.
+     *
+     * @param year the year of the launch dates.
+     * @return the launches dated in the year.
+     */
+    default Collection<Launch> getLaunchesInYear(int year) {
+        try (Stream<Launch> launches = stream(Launch.class)) {
+            return launches.filter(launch -> null != launch.getLaunchDate() && year == launch.getLaunchDate().getYear())
+                    .collect(Collectors.toList());
+        }
+    }
+
     void close();
 }
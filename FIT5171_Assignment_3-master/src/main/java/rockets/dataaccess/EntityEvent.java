@@ -0,0 +1,85 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+
+/**
+ * A change a DAO made to an entity, published once the change is committed, see
+ * {@link DAO#addListener(EntityListener)}.
+ * <p>
+ * The entity before a change is only given for deletions, where the DAO holds it anyway.
+ * The entity after a change is the instance that was saved, which its owner may have
+ * changed again by the time a listener gets it; listeners that keep values copy them.
+ */
+public final class EntityEvent {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Class<? extends Entity> entityClass;
+    private final Long id;
+    private final Entity before;
+    private final Entity after;
+
+    private EntityEvent(Type type, Entity entity, Entity before, Entity after) {
+        if (null == entity)
+            throw new NullPointerException("entity cannot be null");
+        this.type = type;
+        this.entityClass = entity.getClass();
+        this.id = entity.getId();
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * @param entity the saved entity, which has not been stored before.
+     */
+    public static EntityEvent created(Entity entity) {
+        return new EntityEvent(Type.CREATED, entity, null, entity);
+    }
+
+    /**
+     * @param entity the saved entity, which replaced a stored one.
+     */
+    public static EntityEvent updated(Entity entity) {
+        return new EntityEvent(Type.UPDATED, entity, null, entity);
+    }
+
+    /**
+     * @param entity the deleted entity, which must still have its id.
+     */
+    public static EntityEvent deleted(Entity entity) {
+        return new EntityEvent(Type.DELETED, entity, entity, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Class<? extends Entity> getEntityClass() {
+        return entityClass;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the entity before the change, or null if it was created or is not known.
+     */
+    public Entity getBefore() {
+        return before;
+    }
+
+    /**
+     * @return the entity after the change, or null if it was deleted.
+     */
+    public Entity getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        return type.name().toLowerCase() + " " + entityClass.getSimpleName() + "#" + id;
+    }
+}
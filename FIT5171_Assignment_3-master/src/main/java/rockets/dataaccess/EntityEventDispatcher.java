@@ -0,0 +1,171 @@
+package rockets.dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the events published by a DAO to its listeners on a thread of its own, in
+ * the order they were published. Publishing never blocks the writer: the events wait in
+ * a buffer of <code>capacity</code> events, and when it is full, new events are dropped
+ * and the listeners told so with {@link EntityListener#onEventsLost(long)}.
+ * <p>
+ * A listener that throws is logged and does not stop the others.
+ */
+public class EntityEventDispatcher implements AutoCloseable {
+    private static Logger logger = LoggerFactory.getLogger(EntityEventDispatcher.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    // events, and the counts of events dropped after them
+    private final BlockingQueue<Object> events;
+    private final List<EntityListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong totalLost = new AtomicLong();
+    // guarded by this: events dropped and not yet queued as a count
+    private long dropped;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the largest number of events waiting to be delivered.
+     */
+    public EntityEventDispatcher(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.events = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "entity-event-dispatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void addListener(EntityListener listener) {
+        if (null == listener)
+            throw new NullPointerException("listener cannot be null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(EntityListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Queues the events of a committed write, in order, without waiting.
+     *
+     * @param published the events.
+     */
+    public synchronized void publish(List<EntityEvent> published) {
+        if (closed || listeners.isEmpty()) {
+            return;
+        }
+        for (EntityEvent event : published) {
+            // once an event is dropped, the count goes in before any later event
+            if (!queueLost() || !events.offer(event)) {
+                dropped++;
+                totalLost.incrementAndGet();
+            }
+        }
+    }
+
+    // queues the count of the events dropped, if any; false if there is no room for it
+    private boolean queueLost() {
+        if (0 == dropped) {
+            return true;
+        }
+        if (!events.offer(dropped)) {
+            return false;
+        }
+        dropped = 0;
+        return true;
+    }
+
+    /**
+     * Tells the listeners that changes were made that cannot be published, e.g. by a bulk
+     * write that failed after committing part of its batches.
+     *
+     * @param count the number of changes.
+     */
+    public synchronized void lost(long count) {
+        if (!closed && !listeners.isEmpty() && count > 0) {
+            dropped += count;
+            totalLost.addAndGet(count);
+            queueLost();
+        }
+    }
+
+    /**
+     * @return the number of events dropped since the dispatcher started.
+     */
+    public long getLostCount() {
+        return totalLost.get();
+    }
+
+    public int getPendingCount() {
+        return events.size();
+    }
+
+    private void run() {
+        while (true) {
+            Object next;
+            try {
+                next = events.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (null == next) {
+                synchronized (this) {
+                    // the buffer drained, so the count of the events dropped since fits now
+                    queueLost();
+                }
+                if (closed && events.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            if (next instanceof Long) {
+                logger.warn("dropped " + next + " entity events");
+            }
+            for (EntityListener listener : listeners) {
+                deliver(listener, next);
+            }
+        }
+    }
+
+    private static void deliver(EntityListener listener, Object next) {
+        try {
+            if (next instanceof EntityEvent) {
+                listener.onEvent((EntityEvent) next);
+            } else {
+                listener.onEventsLost((Long) next);
+            }
+        } catch (RuntimeException e) {
+            logger.error("entity listener failed on " + next + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Delivers the events already published, then stops.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queueLost();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
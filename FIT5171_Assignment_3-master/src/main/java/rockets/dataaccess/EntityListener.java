@@ -0,0 +1,21 @@
+package rockets.dataaccess;
+
+/**
+ * Receives the changes a DAO commits, e.g. to keep a cache, a search index or
+ * materialized statistics current without rescanning the store. Listeners are called
+ * one event at a time, on the dispatcher's thread, so they should not block.
+ */
+@FunctionalInterface
+public interface EntityListener {
+    void onEvent(EntityEvent event);
+
+    /**
+     * Called, before the next event, when events were dropped because the dispatcher's
+     * buffer was full. A listener that needs every change rebuilds its state from the
+     * store here.
+     *
+     * @param count the number of events dropped.
+     */
+    default void onEventsLost(long count) {
+    }
+}
@@ -0,0 +1,61 @@
+package rockets.dataaccess;
+
+/**
+ * How much of the graph around an entity a DAO call fetches: its own properties
+ * only (depth 0), also its directly related entities (depth 1), and so on.
+ */
+public final class FetchPlan {
+    /**
+     * The entity's own properties, with no related entity.
+     */
+    public static final FetchPlan SHALLOW = new FetchPlan(0);
+
+    /**
+     * The entity and its directly related entities, e.g. a rocket and its manufacturer.
+     */
+    public static final FetchPlan ENTITY = new FetchPlan(1);
+
+    private final int depth;
+
+    private FetchPlan(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * @param depth the number of relationships to follow from the entity.
+     * @return the plan fetching the entity down to that depth.
+     */
+    public static FetchPlan depth(int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("depth cannot be negative");
+        switch (depth) {
+            case 0:
+                return SHALLOW;
+            case 1:
+                return ENTITY;
+            default:
+                return new FetchPlan(depth);
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return depth == ((FetchPlan) o).depth;
+    }
+
+    @Override
+    public int hashCode() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPlan{depth=" + depth + '}';
+    }
+}
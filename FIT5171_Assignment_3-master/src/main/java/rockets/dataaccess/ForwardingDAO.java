@@ -0,0 +1,107 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A DAO that forwards every call to another DAO. Decorators extend it and
+ * override only the calls they need to intercept.
+ */
+public abstract class ForwardingDAO implements DAO {
+    private final DAO delegate;
+
+    protected ForwardingDAO(DAO delegate) {
+        if (null == delegate)
+            throw new NullPointerException("delegate cannot be null");
+        this.delegate = delegate;
+    }
+
+    protected DAO delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return delegate.load(clazz, id);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, FetchPlan plan) {
+        return delegate.load(clazz, id, plan);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        return delegate.createOrUpdate(entity);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        return delegate.createOrUpdateAll(entities);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return delegate.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, FetchPlan plan) {
+        return delegate.loadAll(clazz, plan);
+    }
+
+    @Override
+    public <T extends Entity, R> List<R> project(Class<T> clazz, Projection<R> projection) {
+        return delegate.project(clazz, projection);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return delegate.stream(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Page<T> loadPage(Class<T> clazz, PageRequest request) {
+        return delegate.loadPage(clazz, request);
+    }
+
+    @Override
+    public <T extends Entity, R> Page<R> projectPage(Class<T> clazz, Projection<R> projection, PageRequest request) {
+        return delegate.projectPage(clazz, projection, request);
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        delegate.delete(entity);
+    }
+
+    @Override
+    public void addListener(EntityListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(EntityListener listener) {
+        delegate.removeListener(listener);
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return delegate.getUserByEmail(email);
+    }
+
+    @Override
+    public Collection<Launch> getLaunchesInYear(int year) {
+        return delegate.getLaunchesInYear(year);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
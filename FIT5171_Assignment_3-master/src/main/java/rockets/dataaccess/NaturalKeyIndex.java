@@ -0,0 +1,237 @@
+package rockets.dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Maps the natural key of each stored entity to its id, so that finding the node
+ * an entity is saved to is a hash lookup instead of a query. The natural keys are
+ * <ul>
+ * <li>a launch service provider's name, year founded and country,</li>
+ * <li>a rocket's name and country,</li>
+ * <li>a user's email,</li>
+ * <li>a launch's date, site, outcome and the id of its rocket.</li>
+ * </ul>
+ * Key values are held the way they are stored, e.g. dates as ISO strings, so that
+ * keys read from the store and keys of entities in memory compare equal.
+ * <p>
+ * The index is warmed up from the store and maintained on save and delete by the DAO
+ * that owns it. It assumes that DAO is the only writer; after the store was changed
+ * otherwise, {@link #warmUp(Function)} has to be called again. DAOs that hold their
+ * entities in memory only maintain it.
+ */
+public class NaturalKeyIndex {
+    private static Logger logger = LoggerFactory.getLogger(NaturalKeyIndex.class);
+
+    /**
+     * The entity classes that have a natural key.
+     */
+    public static final List<Class<? extends Entity>> KEYED_CLASSES = Collections.unmodifiableList(
+            Arrays.asList(LaunchServiceProvider.class, Rocket.class, User.class, Launch.class));
+
+    private volatile Map<Class<?>, Keys> keys = new ConcurrentHashMap<>();
+    // the index a warm-up is building, which the saves and deletes meanwhile also go to
+    private volatile Map<Class<?>, Keys> warming;
+
+    // the keys of one entity class, both ways so that a changed key replaces the old one
+    private static class Keys {
+        private final Map<List<Object>, Long> idsByKey = new ConcurrentHashMap<>();
+        private final Map<Long, List<Object>> keysById = new ConcurrentHashMap<>();
+        // the ids deleted during a warm-up, which the rows read from the store may still hold
+        private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Returns the natural key of an entity, or null if the entity has none or cannot
+     * be stored yet, e.g. a launch whose rocket has not been saved.
+     *
+     * @param entity the entity.
+     * @return the natural key.
+     */
+    public static List<Object> keyOf(Entity entity) {
+        if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            return Arrays.asList(lsp.getName(), (long) lsp.getYearFounded(), lsp.getCountry());
+        } else if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            return Arrays.asList(rocket.getName(), rocket.getCountry());
+        } else if (entity instanceof User) {
+            return Collections.singletonList(((User) entity).getEmail());
+        } else if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            Rocket vehicle = launch.getLaunchVehicle();
+            if (null != vehicle && null == vehicle.getId()) {
+                return null;
+            }
+            return Arrays.asList(
+                    null == launch.getLaunchDate() ? null : launch.getLaunchDate().toString(),
+                    launch.getLaunchSite(),
+                    null == launch.getLaunchOutcome() ? null : launch.getLaunchOutcome().name(),
+                    null == vehicle ? null : vehicle.getId());
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the index with the natural keys of all entities in the store. The new
+     * index is built aside while lookups keep using the current one, and replaces it
+     * once complete. Saves and deletes made meanwhile go to both, and win over the rows
+     * read from the store.
+     *
+     * @param rows the stored entities of each of the {@link #KEYED_CLASSES}, as rows of
+     *             their id in column "id" and the values of their natural key, stored
+     *             form and all, in columns "k0", "k1", ...
+     */
+    public synchronized void warmUp(Function<Class<? extends Entity>, Iterable<Map<String, Object>>> rows) {
+        long start = System.currentTimeMillis();
+        Map<Class<?>, Keys> rebuilt = new ConcurrentHashMap<>();
+        warming = rebuilt;
+        try {
+            int size = 0;
+            for (Class<? extends Entity> clazz : KEYED_CLASSES) {
+                Keys classKeys = keys(rebuilt, clazz);
+                for (Map<String, Object> row : rows.apply(clazz)) {
+                    Long id = ((Number) row.get("id")).longValue();
+                    synchronized (classKeys) {
+                        if (!classKeys.keysById.containsKey(id) && !classKeys.deletedIds.contains(id)) {
+                            put(classKeys, id, key(row));
+                        }
+                    }
+                    size++;
+                }
+            }
+            for (Keys classKeys : rebuilt.values()) {
+                classKeys.deletedIds.clear();
+            }
+            keys = rebuilt;
+            logger.info("indexed " + size + " natural keys in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            warming = null;
+        }
+    }
+
+    /**
+     * @param entity the entity.
+     * @return the id of the stored entity with the same natural key, or null if there is none.
+     */
+    public Long lookup(Entity entity) {
+        List<Object> key = keyOf(entity);
+        return (null == key) ? null : lookup(entity.getClass(), key);
+    }
+
+    /**
+     * @param clazz the entity class.
+     * @param key   the natural key, as {@link #keyOf(Entity)} returns it.
+     * @return the id of the stored entity of that class with that natural key, or null if there is none.
+     */
+    public Long lookup(Class<? extends Entity> clazz, List<Object> key) {
+        Keys classKeys = keys.get(clazz);
+        return (null == classKeys) ? null : classKeys.idsByKey.get(key);
+    }
+
+    /**
+     * Records the natural key of a saved entity, replacing its previous key, along
+     * with the keys of the rockets and providers it refers to, which were saved with it.
+     *
+     * @param entity the saved entity.
+     */
+    public void saved(Entity entity) {
+        if (null == entity) {
+            return;
+        }
+        List<Object> key = keyOf(entity);
+        if (null != key && null != entity.getId()) {
+            // the index being built first, as the warm-up replaces the current one once done
+            Map<Class<?>, Keys> rebuilt = warming;
+            if (null != rebuilt) {
+                Keys classKeys = keys(rebuilt, entity.getClass());
+                synchronized (classKeys) {
+                    put(classKeys, entity.getId(), key);
+                }
+            }
+            Keys classKeys = keys(keys, entity.getClass());
+            synchronized (classKeys) {
+                put(classKeys, entity.getId(), key);
+            }
+        }
+        if (entity instanceof Rocket) {
+            saved(((Rocket) entity).getManufacturer());
+        } else if (entity instanceof Launch) {
+            saved(((Launch) entity).getLaunchVehicle());
+            saved(((Launch) entity).getLaunchServiceProvider());
+        }
+    }
+
+    /**
+     * Forgets the natural key of a deleted entity.
+     *
+     * @param entity the deleted entity.
+     */
+    public void deleted(Entity entity) {
+        if (null != entity.getId()) {
+            Map<Class<?>, Keys> rebuilt = warming;
+            if (null != rebuilt) {
+                Keys classKeys = keys(rebuilt, entity.getClass());
+                synchronized (classKeys) {
+                    remove(classKeys, entity.getId());
+                    classKeys.deletedIds.add(entity.getId());
+                }
+            }
+            Keys classKeys = keys(keys, entity.getClass());
+            synchronized (classKeys) {
+                remove(classKeys, entity.getId());
+            }
+        }
+    }
+
+    public void clear() {
+        keys = new ConcurrentHashMap<>();
+    }
+
+    public int size() {
+        return keys.values().stream().mapToInt(classKeys -> classKeys.keysById.size()).sum();
+    }
+
+    private static Keys keys(Map<Class<?>, Keys> keys, Class<?> clazz) {
+        return keys.computeIfAbsent(clazz, c -> new Keys());
+    }
+
+    private static void put(Keys classKeys, Long id, List<Object> key) {
+        List<Object> previous = classKeys.keysById.put(id, key);
+        if (null != previous && !previous.equals(key)) {
+            classKeys.idsByKey.remove(previous, id);
+        }
+        classKeys.idsByKey.put(key, id);
+    }
+
+    private static void remove(Keys classKeys, Long id) {
+        List<Object> key = classKeys.keysById.remove(id);
+        if (null != key) {
+            classKeys.idsByKey.remove(key, id);
+        }
+    }
+
+    // numbers come back from the store as longs, whatever type they were saved from
+    private static List<Object> key(Map<String, Object> row) {
+        List<Object> key = new ArrayList<>();
+        for (int i = 0; row.containsKey("k" + i); i++) {
+            Object value = row.get("k" + i);
+            key.add((value instanceof Number) ? ((Number) value).longValue() : value);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,125 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of entities, or of projected rows, and the request of the page after it.
+ *
+ * @param <T> the type of the page content.
+ */
+public final class Page<T> {
+    private final List<T> content;
+    private final PageRequest next;
+
+    /**
+     * @param content the content of the page.
+     * @param next    the request of the next page, or null if this is the last page.
+     */
+    public Page(List<T> content, PageRequest next) {
+        if (null == content)
+            throw new NullPointerException("content cannot be null");
+        this.content = Collections.unmodifiableList(content);
+        this.next = next;
+    }
+
+    /**
+     * Cuts a page out of entities already in memory, for DAOs that do not page in a store.
+     * Sort values are compared as the entities hold them, with nulls last in ascending order.
+     *
+     * @param entities all the entities.
+     * @param request  the page to cut.
+     * @return the page.
+     */
+    public static <T extends Entity> Page<T> slice(Collection<T> entities, PageRequest request) {
+        Function<T, Object> sortValue = sortValue(request.getSort());
+        Comparator<T> order = Comparator.comparing(sortValue, Comparator.nullsLast(Page::compareValues))
+                .thenComparing(Entity::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+        if (request.isDescending()) {
+            order = order.reversed();
+        }
+
+        List<T> sorted = new ArrayList<>(entities);
+        sorted.sort(order);
+        int from = 0;
+        if (request.hasCursor()) {
+            while (from < sorted.size() && !isAfter(sorted.get(from), request, sortValue)) {
+                from++;
+            }
+        } else if (!request.isKeyset()) {
+            from = (int) Math.min(request.getOffset(), sorted.size());
+        }
+        int to = Math.min(from + request.getSize(), sorted.size());
+
+        List<T> content = new ArrayList<>(sorted.subList(from, to));
+        if (to == sorted.size()) {
+            return new Page<>(content, null);
+        }
+        T last = content.get(content.size() - 1);
+        return new Page<>(content, request.next(sortValue.apply(last), last.getId()));
+    }
+
+    private static <T extends Entity> boolean isAfter(T entity, PageRequest request, Function<T, Object> sortValue) {
+        Object value = sortValue.apply(entity);
+        int byValue = Comparator.nullsLast(Page::compareValues).compare(value, request.getAfterValue());
+        if (request.isDescending()) {
+            byValue = -byValue;
+        }
+        if (byValue != 0) {
+            return byValue > 0;
+        }
+        int byId = Comparator.<Long>nullsLast(Comparator.naturalOrder()).compare(entity.getId(), request.getAfterId());
+        return request.isDescending() ? byId < 0 : byId > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static <T extends Entity> Function<T, Object> sortValue(String sort) {
+        if (null == sort) {
+            return Entity::getId;
+        }
+        Projection<Object> projection = Projection.of(sort).as(row -> row.get(sort));
+        return projection::fromEntity;
+    }
+
+    /**
+     * @param mapper the function applied to each element of the page.
+     * @return a page of the mapped elements, with the same next page.
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(content.size());
+        for (T element : content) {
+            mapped.add(mapper.apply(element));
+        }
+        return new Page<>(mapped, next);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean hasNext() {
+        return null != next;
+    }
+
+    /**
+     * @return the request of the next page, or null if this is the last page.
+     */
+    public PageRequest getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{size=" + content.size() + ", next=" + next + '}';
+    }
+}
@@ -0,0 +1,169 @@
+package rockets.dataaccess;
+
+import java.util.Objects;
+
+/**
+ * Which page of entities a DAO call returns, in the order of a sort property, or of
+ * the id if none is given. Ties on the sort property are broken by the id.
+ * <p>
+ * A page is found either by its number, which the store pays for by skipping all the
+ * entities before it, or by a cursor: the sort value and id of the last entity of the
+ * page before, which the store can seek to directly. Cursor paging costs the same on
+ * every page, and {@link Page#getNext()} hands out the cursor of the next page.
+ */
+public final class PageRequest {
+    private final int size;
+    private final int page;
+    private final String sort;
+    private final boolean descending;
+    private final boolean keyset;
+    private final Object afterValue;
+    private final Long afterId;
+
+    private PageRequest(int size, int page, String sort, boolean descending, boolean keyset, Object afterValue, Long afterId) {
+        this.size = size;
+        this.page = page;
+        this.sort = sort;
+        this.descending = descending;
+        this.keyset = keyset;
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+    }
+
+    /**
+     * @param page the number of the page, from 0.
+     * @param size the number of entities in a page.
+     * @return the request of that page by number.
+     */
+    public static PageRequest page(int page, int size) {
+        if (page < 0)
+            throw new IllegalArgumentException("page cannot be negative");
+        checkSize(size);
+        return new PageRequest(size, page, null, false, false, null, null);
+    }
+
+    /**
+     * @param size the number of entities in a page.
+     * @return the request of the first page, to be followed by cursor.
+     */
+    public static PageRequest first(int size) {
+        checkSize(size);
+        return new PageRequest(size, 0, null, false, true, null, null);
+    }
+
+    private static void checkSize(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("page size must be positive");
+    }
+
+    /**
+     * @param property the bean property to sort by.
+     * @return the same request, sorted by <code>property</code>.
+     */
+    public PageRequest sortedBy(String property) {
+        if (null == property || property.trim().isEmpty())
+            throw new IllegalArgumentException("sort property cannot be empty");
+        return new PageRequest(size, page, property, descending, keyset, afterValue, afterId);
+    }
+
+    /**
+     * @return the same request, in descending order.
+     */
+    public PageRequest descending() {
+        return new PageRequest(size, page, sort, true, keyset, afterValue, afterId);
+    }
+
+    /**
+     * @param value the sort value of the last entity of the page before, as the store holds it.
+     * @param id    the id of that entity.
+     * @return the request of the page that follows that entity.
+     */
+    public PageRequest after(Object value, Long id) {
+        if (null == id)
+            throw new NullPointerException("id cannot be null");
+        return new PageRequest(size, 0, sort, descending, true, value, id);
+    }
+
+    /**
+     * @param lastValue the sort value of the last entity of this page.
+     * @param lastId    the id of that entity.
+     * @return the request of the page after this one, by the same kind of paging.
+     */
+    public PageRequest next(Object lastValue, Long lastId) {
+        if (keyset) {
+            return after(lastValue, lastId);
+        }
+        return new PageRequest(size, page + 1, sort, descending, false, null, null);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @return the number of entities before this page, for a page requested by number.
+     */
+    public long getOffset() {
+        return (long) page * size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * @return whether this request follows a cursor, rather than asking for the first page.
+     */
+    public boolean hasCursor() {
+        return null != afterId;
+    }
+
+    public Object getAfterValue() {
+        return afterValue;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PageRequest that = (PageRequest) o;
+        return size == that.size &&
+                page == that.page &&
+                descending == that.descending &&
+                keyset == that.keyset &&
+                Objects.equals(sort, that.sort) &&
+                Objects.equals(afterValue, that.afterValue) &&
+                Objects.equals(afterId, that.afterId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, page, sort, descending, keyset, afterValue, afterId);
+    }
+
+    @Override
+    public String toString() {
+        return "PageRequest{" +
+                "size=" + size +
+                (keyset ? ", after=" + afterValue + "/" + afterId : ", page=" + page) +
+                ", sort=" + sort +
+                (descending ? " desc" : "") +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The properties of an entity a caller reads, e.g. only the name of a rocket for a
+ * listing page. A DAO fetches those properties and the id, and nothing else, as one
+ * row per entity: a map from property name to value, with the id under "id". The
+ * row can be mapped to a lightweight DTO with {@link #as(Function)}.
+ * <p>
+ * Values are as the DAO holds them, so a store may return them in their stored form,
+ * e.g. a date as an ISO string.
+ *
+ * @param <R> the type each row is mapped to.
+ */
+public final class Projection<R> {
+    public static final String ID = "id";
+
+    /**
+     * The name and id of an entity.
+     */
+    public static final Projection<Map<String, Object>> NAME_AND_ID = of("name");
+
+    private final List<String> properties;
+    private final Function<Map<String, Object>, R> mapper;
+
+    private Projection(List<String> properties, Function<Map<String, Object>, R> mapper) {
+        this.properties = properties;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param properties the names of the bean properties to fetch, besides the id.
+     * @return the projection of rows holding those properties.
+     */
+    public static Projection<Map<String, Object>> of(String... properties) {
+        for (String property : properties) {
+            if (null == property || property.trim().isEmpty())
+                throw new IllegalArgumentException("property name cannot be empty");
+        }
+        return new Projection<>(Collections.unmodifiableList(Arrays.asList(properties.clone())), Function.identity());
+    }
+
+    /**
+     * @param mapper the function building a DTO from a row.
+     * @return a projection of the same properties that maps each row with <code>mapper</code>.
+     */
+    public <S> Projection<S> as(Function<Map<String, Object>, S> mapper) {
+        if (null == mapper)
+            throw new NullPointerException("mapper cannot be null");
+        return new Projection<>(properties, mapper);
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @param row the id and the property values of an entity.
+     * @return the row as mapped by this projection.
+     */
+    public R fromRow(Map<String, Object> row) {
+        return mapper.apply(row);
+    }
+
+    /**
+     * Projects an entity that has already been loaded.
+     *
+     * @param entity the entity.
+     * @return the row of the entity as mapped by this projection.
+     */
+    public R fromEntity(Entity entity) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(ID, entity.getId());
+        for (String property : properties) {
+            try {
+                row.put(property, getter(entity.getClass(), property).invoke(entity));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("cannot read property " + property, e);
+            }
+        }
+        return fromRow(row);
+    }
+
+    /**
+     * Checks that every property of this projection can be read from an entity class.
+     *
+     * @param clazz the entity class.
+     * @throws IllegalArgumentException if a property is not a readable property of the class.
+     */
+    public void checkProperties(Class<? extends Entity> clazz) {
+        for (String property : properties) {
+            getter(clazz, property);
+        }
+    }
+
+    private static Method getter(Class<?> clazz, String property) {
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
+                if (descriptor.getName().equals(property) && null != descriptor.getReadMethod()) {
+                    return descriptor.getReadMethod();
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("cannot introspect " + clazz.getSimpleName(), e);
+        }
+        throw new IllegalArgumentException("unknown property: " + property);
+    }
+
+    @Override
+    public String toString() {
+        return "Projection{properties=" + properties + '}';
+    }
+}
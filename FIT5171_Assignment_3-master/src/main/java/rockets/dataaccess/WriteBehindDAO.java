@@ -0,0 +1,468 @@
+package rockets.dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A DAO that buffers writes and commits them on a background thread, so that callers
+ * do not wait for the store. Writes of the same entity are coalesced, stored entities
+ * by class and id and new ones by instance, the last buffered copy being written; the
+ * buffer is written in batches of <code>batchSize</code>, as soon as a batch is full or
+ * <code>flushInterval</code> after the oldest buffered write. When the buffer holds
+ * <code>capacity</code> entities, writers block until the flusher catches up.
+ * <p>
+ * An entity is saved as it is when it is flushed, and a new entity gets its id only
+ * then. Loads by id and by email see the buffered writes; other reads flush first.
+ * {@link #close()} flushes everything before closing the delegate. A batch that fails
+ * is logged, and reported by the next {@link #flush()}, or by {@link #close()}. Should
+ * the flusher thread itself die, the DAO fails every call that would wait for it.
+ */
+public class WriteBehindDAO extends ForwardingDAO {
+    private static Logger logger = LoggerFactory.getLogger(WriteBehindDAO.class);
+
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition wakeUp = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+
+    // guarded by lock
+    private final Map<Identity, Write> pending = new LinkedHashMap<>();
+    private List<Write> inFlight = Collections.emptyList();
+    // the number of writes buffered, taken by the flusher and written so far; a flush
+    // waits for the writes buffered before it only
+    private long buffered;
+    private long taken;
+    private long written;
+    private long oldestNanos;
+    private int flushRequests;
+    private boolean closed;
+    private RuntimeException failure;
+    private Throwable flusherFailure;
+
+    private final Thread flusher;
+
+    /**
+     * @param delegate      the DAO to write to.
+     * @param capacity      the largest number of buffered entities.
+     * @param batchSize     the number of entities written in one batch.
+     * @param flushInterval the longest time a write stays buffered.
+     */
+    public WriteBehindDAO(DAO delegate, int capacity, int batchSize, Duration flushInterval) {
+        super(delegate);
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batch size must be positive");
+        if (null == flushInterval)
+            throw new NullPointerException("flush interval cannot be null");
+        if (flushInterval.isNegative() || flushInterval.isZero())
+            throw new IllegalArgumentException("flush interval must be positive");
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flusher = new Thread(this::runFlusher, "write-behind-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Buffers the entity, blocking while the buffer is full.
+     *
+     * @return the entity, which has an id only if it had one already.
+     */
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        if (null == entity)
+            throw new NullPointerException("entity cannot be null");
+        enqueue(new Write(entity, false));
+        return entity;
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        for (T entity : entities) {
+            createOrUpdate(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * Buffers the deletion, which replaces a buffered save of the same entity.
+     */
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        if (null == entity)
+            throw new NullPointerException("entity cannot be null");
+        enqueue(new Write(entity, true));
+    }
+
+    private void enqueue(Write write) {
+        Identity identity = new Identity(write.entity);
+        lock.lock();
+        try {
+            checkOpen();
+            while (pending.size() >= capacity && !pending.containsKey(identity)) {
+                notFull.awaitUninterruptibly();
+                checkOpen();
+            }
+            if (pending.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            Write previous = pending.get(identity);
+            if (null == previous) {
+                pending.put(identity, write);
+                buffered++;
+            } else if (write.delete || previous.delete) {
+                // replaces the buffered write; a delete of a never stored entity just cancels its save
+                pending.remove(identity);
+                if (!write.delete || null != write.entity.getId()) {
+                    pending.put(identity, write);
+                    buffered++;
+                }
+            } else {
+                // a save of a buffered save keeps its place, and writes the copy saved last
+                pending.put(identity, write);
+            }
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("write-behind dao is closed");
+        checkFlusher();
+    }
+
+    private void checkFlusher() {
+        if (null != flusherFailure)
+            throw new IllegalStateException("write-behind flusher died", flusherFailure);
+    }
+
+    /**
+     * Writes everything buffered so far, and waits until it is written. Writes buffered
+     * meanwhile are not waited for.
+     *
+     * @throws IllegalStateException if a batch failed since the last flush, or the flusher died.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            // with nothing buffered, the writes taken last may still be in flight
+            long target = pending.isEmpty() ? taken : buffered;
+            flushRequests++;
+            try {
+                wakeUp.signal();
+                while (written < target && null == flusherFailure) {
+                    idle.awaitUninterruptibly();
+                }
+            } finally {
+                flushRequests--;
+            }
+            checkFlusher();
+            if (null != failure) {
+                RuntimeException e = failure;
+                failure = null;
+                throw new IllegalStateException("write-behind batch failed", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            flushUntilClosed();
+        } catch (Throwable t) {
+            if (t instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("write-behind flusher died: " + t, t);
+            lock.lock();
+            try {
+                flusherFailure = t;
+                idle.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void flushUntilClosed() throws InterruptedException {
+        while (true) {
+            List<Write> writes;
+            lock.lock();
+            try {
+                while (!shouldFlush()) {
+                    if (pending.isEmpty()) {
+                        wakeUp.awaitUninterruptibly();
+                    } else {
+                        wakeUp.awaitNanos(oldestNanos + flushIntervalNanos - System.nanoTime());
+                    }
+                }
+                if (pending.isEmpty()) {
+                    // closed, and nothing is left
+                    idle.signalAll();
+                    return;
+                }
+                writes = new ArrayList<>(pending.values());
+                pending.clear();
+                inFlight = writes;
+                taken = buffered;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            RuntimeException batchFailure = write(writes);
+
+            lock.lock();
+            try {
+                inFlight = Collections.emptyList();
+                written = taken;
+                if (null != batchFailure) {
+                    failure = batchFailure;
+                }
+                idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean shouldFlush() {
+        if (closed || (flushRequests > 0 && !pending.isEmpty())) {
+            return true;
+        }
+        return pending.size() >= batchSize
+                || (!pending.isEmpty() && System.nanoTime() - oldestNanos >= flushIntervalNanos);
+    }
+
+    // writes the saves in batches and the deletes one by one, in buffer order
+    private RuntimeException write(List<Write> writes) {
+        RuntimeException firstFailure = null;
+        List<Entity> batch = new ArrayList<>();
+        for (int i = 0; i <= writes.size(); i++) {
+            Write write = (i < writes.size()) ? writes.get(i) : null;
+            if (null != write && !write.delete) {
+                batch.add(write.entity);
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+            }
+            try {
+                if (!batch.isEmpty()) {
+                    long start = System.nanoTime();
+                    super.createOrUpdateAll(batch);
+                    logger.debug("wrote " + batch.size() + " entities in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                }
+                if (null != write && write.delete) {
+                    super.delete(write.entity);
+                }
+            } catch (RuntimeException e) {
+                logger.error("write-behind batch failed: " + e.getMessage(), e);
+                if (null == firstFailure) {
+                    firstFailure = e;
+                }
+            }
+            batch = new ArrayList<>();
+        }
+        return firstFailure;
+    }
+
+    // the buffered write of an entity of the class matching the condition, newest first
+    private Write buffered(Class<?> clazz, Predicate<Entity> condition) {
+        lock.lock();
+        try {
+            List<Write> writes = new ArrayList<>(inFlight);
+            writes.addAll(pending.values());
+            Collections.reverse(writes);
+            for (Write write : writes) {
+                if (clazz.isInstance(write.entity) && condition.test(write.entity)) {
+                    return write;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        Write write = buffered(clazz, entity -> Objects.equals(id, entity.getId()));
+        if (null == write) {
+            return super.load(clazz, id);
+        }
+        return write.delete ? null : clazz.cast(write.entity);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, FetchPlan plan) {
+        Write write = buffered(clazz, entity -> Objects.equals(id, entity.getId()));
+        if (null == write) {
+            return super.load(clazz, id, plan);
+        }
+        return write.delete ? null : clazz.cast(write.entity);
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        Write write = buffered(User.class, user -> Objects.equals(email, ((User) user).getEmail()));
+        if (null == write) {
+            return super.getUserByEmail(email);
+        }
+        return write.delete ? null : (User) write.entity;
+    }
+
+    @Override
+    public Collection<Launch> getLaunchesInYear(int year) {
+        flush();
+        return super.getLaunchesInYear(year);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        flush();
+        return super.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, FetchPlan plan) {
+        flush();
+        return super.loadAll(clazz, plan);
+    }
+
+    @Override
+    public <T extends Entity, R> List<R> project(Class<T> clazz, Projection<R> projection) {
+        flush();
+        return super.project(clazz, projection);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        flush();
+        return super.stream(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Page<T> loadPage(Class<T> clazz, PageRequest request) {
+        flush();
+        return super.loadPage(clazz, request);
+    }
+
+    @Override
+    public <T extends Entity, R> Page<R> projectPage(Class<T> clazz, Projection<R> projection, PageRequest request) {
+        flush();
+        return super.projectPage(clazz, projection, request);
+    }
+
+    /**
+     * Stops taking writes, writes everything buffered, then closes the delegate.
+     *
+     * @throws IllegalStateException if a batch failed since the last flush, or the flusher
+     *                               died, after the delegate was closed.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            wakeUp.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        RuntimeException failed;
+        Throwable died;
+        lock.lock();
+        try {
+            failed = failure;
+            failure = null;
+            died = flusherFailure;
+        } finally {
+            lock.unlock();
+        }
+        super.close();
+        if (null != died)
+            throw new IllegalStateException("write-behind flusher died", died);
+        if (null != failed)
+            throw new IllegalStateException("write-behind batch failed", failed);
+    }
+
+    private static final class Write {
+        private final Entity entity;
+        private final boolean delete;
+
+        private Write(Entity entity, boolean delete) {
+            this.entity = entity;
+            this.delete = delete;
+        }
+    }
+
+    // stored entities are coalesced by class and id, unsaved ones by instance, as they have no id to compare
+    private static final class Identity {
+        private final Class<?> clazz;
+        private final Long id;
+        private final Entity unsaved;
+
+        private Identity(Entity entity) {
+            this.clazz = entity.getClass();
+            this.id = entity.getId();
+            this.unsaved = (null == id) ? entity : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Identity))
+                return false;
+            Identity identity = (Identity) o;
+            return clazz.equals(identity.clazz) && Objects.equals(id, identity.id) && unsaved == identity.unsaved;
+        }
+
+        @Override
+        public int hashCode() {
+            return (null == id) ? System.identityHashCode(unsaved) : Objects.hash(clazz, id);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package rockets.dataaccess.memory;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityEvent;
+import rockets.dataaccess.EntityEventDispatcher;
+import rockets.dataaccess.EntityListener;
+import rockets.dataaccess.NaturalKeyIndex;
+import rockets.dataaccess.Page;
+import rockets.dataaccess.PageRequest;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A DAO that holds its entities in memory, for nodes that mostly read, e.g. to run the
+ * analytics on, and for tests. Entities are kept by class in maps sorted by id, so loads
+ * by id and pages in id order never copy or sort the whole class.
+ * <p>
+ * Saving follows {@link rockets.dataaccess.neo4j.Neo4jDAO}: the saved entity and its
+ * cascade, a provider's rockets and a rocket's launches, take the ids of the entities
+ * stored with the same natural keys, see {@link NaturalKeyIndex}, and every entity
+ * reachable from it is stored, new ones getting ids from one sequence. Saves are
+ * serialized; reads take no lock and see every save that completed before them. Each
+ * save publishes its changes to the listeners once it is stored.
+ * <p>
+ * The entities are held as saved, not copied, so they are shared by every caller and
+ * must not be changed without being saved.
+ */
+public class InMemoryDAO implements DAO {
+    private static final int EVENT_CAPACITY = 10000;
+
+    private final Map<Class<?>, ConcurrentNavigableMap<Long, Entity>> entities = new ConcurrentHashMap<>();
+    private final NaturalKeyIndex index = new NaturalKeyIndex();
+    private final AtomicLong ids = new AtomicLong();
+    private final Object writeLock = new Object();
+    private final EntityEventDispatcher events = new EntityEventDispatcher(EVENT_CAPACITY);
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        if (null == id)
+            throw new NullPointerException("id cannot be null");
+        return clazz.cast(entities(clazz).get(id));
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        if (null == entity)
+            throw new NullPointerException("entity cannot be null");
+        save(Collections.singletonList(entity));
+        return entity;
+    }
+
+    /**
+     * Saves the entities under one lock, walking the graph they share only once.
+     */
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        if (null == entities)
+            throw new NullPointerException("entities cannot be null");
+        for (T entity : entities) {
+            if (null == entity)
+                throw new NullPointerException("entity cannot be null");
+        }
+        save(entities);
+        return entities;
+    }
+
+    // each root is stored before the next is resolved, so that a batch saving the same
+    // entity twice stores it once; the graph is walked once for the whole batch
+    private void save(Collection<? extends Entity> roots) {
+        synchronized (writeLock) {
+            Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<EntityEvent> changes = new ArrayList<>();
+            for (Entity root : roots) {
+                resolveIds(root);
+                List<Entity> graph = reachable(root, seen);
+                for (Entity reached : graph) {
+                    if (null == reached.getId()) {
+                        reached.setId(ids.incrementAndGet());
+                    } else {
+                        // an entity may come with an id of its own, e.g. restored from a snapshot,
+                        // which must not be handed out again
+                        ids.accumulateAndGet(reached.getId(), Math::max);
+                    }
+                }
+                Set<Long> stored = new HashSet<>();
+                for (Entity reached : graph) {
+                    if (!stored.add(reached.getId())) {
+                        // a stale copy of an entity reached earlier, e.g. through a relationship
+                        continue;
+                    }
+                    Entity previous = entities(reached.getClass()).put(reached.getId(), reached);
+                    if (null == previous) {
+                        changes.add(EntityEvent.created(reached));
+                    } else {
+                        changes.add(EntityEvent.updated(reached));
+                        if (previous != reached) {
+                            // the key of the replaced entity may differ from the new one
+                            index.deleted(previous);
+                        }
+                    }
+                    index.saved(reached);
+                }
+            }
+            // published under the lock, so that the events of concurrent saves keep their order
+            events.publish(changes);
+        }
+    }
+
+    // the entity and its cascade take the ids of the stored entities with the same natural
+    // keys; a rocket is resolved before its launches, which are keyed by its id
+    private void resolveIds(Entity entity) {
+        Long existingId = index.lookup(entity);
+        if (null != existingId) {
+            entity.setId(existingId);
+        }
+        if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            if (null != rocket.getLaunches()) {
+                rocket.getLaunches().forEach(this::resolveIds);
+            }
+        } else if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            if (null != lsp.getRockets()) {
+                lsp.getRockets().forEach(this::resolveIds);
+            }
+        }
+    }
+
+    // the entities reachable from the root that are not seen yet, which are marked seen
+    private static List<Entity> reachable(Entity root, Set<Entity> seen) {
+        Deque<Entity> pending = new ArrayDeque<>(Collections.singletonList(root));
+        List<Entity> reachable = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Entity entity = pending.poll();
+            if (!seen.add(entity)) {
+                continue;
+            }
+            reachable.add(entity);
+            if (entity instanceof LaunchServiceProvider) {
+                addAll(pending, ((LaunchServiceProvider) entity).getRockets());
+            } else if (entity instanceof Rocket) {
+                Rocket rocket = (Rocket) entity;
+                add(pending, rocket.getManufacturer());
+                addAll(pending, rocket.getLaunches());
+            } else if (entity instanceof Launch) {
+                Launch launch = (Launch) entity;
+                add(pending, launch.getLaunchVehicle());
+                add(pending, launch.getLaunchServiceProvider());
+                addAll(pending, launch.getPayload());
+            }
+        }
+        return reachable;
+    }
+
+    private static void add(Deque<Entity> pending, Entity entity) {
+        if (null != entity) {
+            pending.add(entity);
+        }
+    }
+
+    private static void addAll(Deque<Entity> pending, Collection<? extends Entity> entities) {
+        if (null != entities) {
+            entities.forEach(entity -> add(pending, entity));
+        }
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        List<T> all = new ArrayList<>();
+        for (Entity entity : entities(clazz).values()) {
+            all.add(clazz.cast(entity));
+        }
+        return all;
+    }
+
+    /**
+     * Streams the entities in id order, without copying them; the stream sees the saves
+     * made while it runs only in part.
+     */
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return entities(clazz).values().stream().map(clazz::cast);
+    }
+
+    /**
+     * Pages in id order are read straight off the map, seeking to the cursor; pages in the
+     * order of a property are cut out of all the entities of the class, see {@link Page#slice}.
+     */
+    @Override
+    public <T extends Entity> Page<T> loadPage(Class<T> clazz, PageRequest request) {
+        if (null != request.getSort()) {
+            return Page.slice(loadAll(clazz), request);
+        }
+        NavigableMap<Long, Entity> ordered = entities(clazz);
+        if (request.isDescending()) {
+            ordered = ordered.descendingMap();
+        }
+        if (request.hasCursor()) {
+            ordered = ordered.tailMap(request.getAfterId(), false);
+        }
+        Iterator<Entity> iterator = ordered.values().iterator();
+        if (!request.isKeyset()) {
+            for (long skipped = 0; skipped < request.getOffset() && iterator.hasNext(); skipped++) {
+                iterator.next();
+            }
+        }
+        List<T> content = new ArrayList<>(request.getSize());
+        while (content.size() < request.getSize() && iterator.hasNext()) {
+            content.add(clazz.cast(iterator.next()));
+        }
+        if (!iterator.hasNext()) {
+            return new Page<>(content, null);
+        }
+        Long lastId = content.get(content.size() - 1).getId();
+        return new Page<>(content, request.next(lastId, lastId));
+    }
+
+    /**
+     * Removes the entity, and drops it from the relationships of the stored provider or
+     * rocket it belongs to, as deleting its node would.
+     */
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        if (null == entity)
+            throw new NullPointerException("entity cannot be null");
+        if (null == entity.getId()) {
+            return;
+        }
+        synchronized (writeLock) {
+            Entity stored = entities(entity.getClass()).remove(entity.getId());
+            if (null == stored) {
+                return;
+            }
+            index.deleted(stored);
+            if (stored instanceof Rocket) {
+                LaunchServiceProvider manufacturer = ((Rocket) stored).getManufacturer();
+                if (null != manufacturer && null != manufacturer.getRockets()) {
+                    manufacturer.getRockets().remove(stored);
+                }
+            } else if (stored instanceof Launch) {
+                Rocket vehicle = ((Launch) stored).getLaunchVehicle();
+                if (null != vehicle && null != vehicle.getLaunches()) {
+                    vehicle.getLaunches().remove(stored);
+                }
+            }
+            events.publish(Collections.singletonList(EntityEvent.deleted(stored)));
+        }
+    }
+
+    @Override
+    public void addListener(EntityListener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(EntityListener listener) {
+        events.removeListener(listener);
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        Long id = index.lookup(User.class, Collections.singletonList(email));
+        return (null == id) ? null : load(User.class, id);
+    }
+
+    /**
+     * @return the number of entities held, of every class.
+     */
+    public int size() {
+        return entities.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Delivers the events already published and drops every entity.
+     */
+    @Override
+    public void close() {
+        events.close();
+        synchronized (writeLock) {
+            entities.clear();
+            index.clear();
+        }
+    }
+
+    private ConcurrentNavigableMap<Long, Entity> entities(Class<?> clazz) {
+        return entities.computeIfAbsent(clazz, c -> new ConcurrentSkipListMap<>());
+    }
+}
@@ -0,0 +1,211 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.Lists;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.EntityEvent;
+import rockets.dataaccess.NaturalKeyIndex;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saves a collection of entities in a few transactions instead of one per entity.
+ * <ol>
+ * <li>The entities are expanded along the cascade of {@link Neo4jDAO#createOrUpdate(Entity)}:
+ * providers to their rockets, rockets to their launches, plus the rockets and providers
+ * the entities refer to.</li>
+ * <li>Existing entities take the ids of their nodes from the {@link NaturalKeyIndex}.
+ * New entities sharing a natural key are saved as one node.</li>
+ * <li>The nodes are written class by class, then the relationships, in batches of
+ * <code>batchSize</code> entities with one transaction per batch.</li>
+ * </ol>
+ * The natural keys of each batch are indexed once it commits, so a failing batch leaves
+ * the nodes of those before it indexed, while the states of all the entities are
+ * forgotten, as some were written and others not. Within a transaction the caller began,
+ * which may still roll back, nothing is indexed, no state is remembered and no change
+ * is reported.
+ */
+class BatchUpsert {
+    private static Logger logger = LoggerFactory.getLogger(BatchUpsert.class);
+
+    // the order keys are resolved and nodes written in; launches are keyed by the id of their rocket
+    private static final List<Class<? extends Entity>> KEYED_CLASSES = Arrays.asList(
+            LaunchServiceProvider.class, Rocket.class, User.class, Launch.class);
+
+    private final Session session;
+    private final NaturalKeyIndex index;
+    private final DirtyTracker tracker;
+    private final int batchSize;
+
+    // entities in the order they were reached, by class
+    private final Map<Class<?>, List<Entity>> graph = new LinkedHashMap<>();
+    private final Set<Entity> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+    // new entities sharing a natural key with an earlier new entity, mapped to that entity
+    private final Map<Entity, Entity> duplicates = new IdentityHashMap<>();
+    // new entities numbered, so that keys can refer to them before they have ids
+    private final Map<Entity, Integer> newEntities = new IdentityHashMap<>();
+    // whether the run writes in a transaction the caller began
+    private boolean enclosed;
+
+    BatchUpsert(Session session, NaturalKeyIndex index, DirtyTracker tracker, int batchSize) {
+        this.session = session;
+        this.index = index;
+        this.tracker = tracker;
+        this.batchSize = batchSize;
+    }
+
+    <T extends Entity> Collection<T> run(Collection<T> entities) {
+        long start = System.currentTimeMillis();
+        // a transaction the caller began may still roll back, so its writes are not remembered as stored
+        enclosed = null != session.getTransaction();
+        for (T entity : entities) {
+            expand(entity);
+        }
+        for (Class<? extends Entity> clazz : KEYED_CLASSES) {
+            resolve(graph.getOrDefault(clazz, Collections.emptyList()));
+        }
+
+        List<Entity> nodes = new ArrayList<>();
+        for (Class<? extends Entity> clazz : KEYED_CLASSES) {
+            for (Entity entity : graph.getOrDefault(clazz, Collections.emptyList())) {
+                if (!duplicates.containsKey(entity)) {
+                    nodes.add(entity);
+                }
+            }
+        }
+        List<Entity> all = new ArrayList<>();
+        graph.values().forEach(all::addAll);
+        try {
+            save("nodes", nodes, 0);
+            for (Map.Entry<Entity, Entity> duplicate : duplicates.entrySet()) {
+                duplicate.getKey().setId(duplicate.getValue().getId());
+            }
+            save("relationships", all, 1);
+        } catch (RuntimeException | Error e) {
+            all.forEach(tracker::forget);
+            throw e;
+        }
+        all.forEach(enclosed ? tracker::forget : tracker::saved);
+
+        logger.info("saved " + all.size() + " entities in " + (System.currentTimeMillis() - start) + " ms");
+        return entities;
+    }
+
+    /**
+     * @return the number of entities the run reached.
+     */
+    int size() {
+        return reached.size();
+    }
+
+    /**
+     * @return the changes the run made, one per node written, or none if they were made
+     * in a transaction the caller began, as nobody is told when that one commits.
+     */
+    List<EntityEvent> events() {
+        List<EntityEvent> events = new ArrayList<>();
+        if (enclosed) {
+            return events;
+        }
+        for (List<Entity> entities : graph.values()) {
+            for (Entity entity : entities) {
+                if (!duplicates.containsKey(entity)) {
+                    events.add(newEntities.containsKey(entity) ? EntityEvent.created(entity) : EntityEvent.updated(entity));
+                }
+            }
+        }
+        return events;
+    }
+
+    private void expand(Entity entity) {
+        if (null == entity || !reached.add(entity)) {
+            return;
+        }
+        graph.computeIfAbsent(entity.getClass(), clazz -> new ArrayList<>()).add(entity);
+        if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            if (null != lsp.getRockets()) {
+                lsp.getRockets().forEach(this::expand);
+            }
+        } else if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            expand(rocket.getManufacturer());
+            if (null != rocket.getLaunches()) {
+                rocket.getLaunches().forEach(this::expand);
+            }
+        } else if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            expand(launch.getLaunchVehicle());
+            expand(launch.getLaunchServiceProvider());
+        }
+    }
+
+    private void resolve(List<Entity> entities) {
+        Map<List<Object>, Entity> firstNew = new HashMap<>();
+        for (Entity entity : entities) {
+            Long id = index.lookup(entity);
+            if (null != id) {
+                entity.setId(id);
+            } else if (null == entity.getId()) {
+                Entity first = firstNew.putIfAbsent(batchKey(entity), entity);
+                if (null != first) {
+                    duplicates.put(entity, first);
+                } else {
+                    newEntities.put(entity, newEntities.size());
+                }
+            }
+        }
+    }
+
+    // the natural key within this batch; launches of new rockets are told apart by the rocket's number
+    private List<Object> batchKey(Entity entity) {
+        List<Object> key = NaturalKeyIndex.keyOf(entity);
+        if (null == key && entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            Rocket vehicle = launch.getLaunchVehicle();
+            key = Arrays.asList(launch.getLaunchDate(), launch.getLaunchSite(), launch.getLaunchOutcome(),
+                    newEntities.get(duplicates.getOrDefault(vehicle, vehicle)));
+        }
+        return key;
+    }
+
+    private void save(String stage, List<Entity> entities, int depth) {
+        List<List<Entity>> batches = Lists.partition(entities, batchSize);
+        for (int i = 0; i < batches.size(); i++) {
+            long start = System.currentTimeMillis();
+            Transaction tx = enclosed ? null : session.beginTransaction();
+            try {
+                session.save(batches.get(i), depth);
+                if (!enclosed) {
+                    tx.commit();
+                }
+            } finally {
+                if (!enclosed) {
+                    tx.close();
+                }
+            }
+            if (!enclosed) {
+                // the nodes are stored whether or not a later batch fails
+                batches.get(i).forEach(index::saved);
+            }
+            logger.info("saved " + stage + " batch " + (i + 1) + " of " + batches.size() + ": "
+                    + batches.get(i).size() + " entities in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
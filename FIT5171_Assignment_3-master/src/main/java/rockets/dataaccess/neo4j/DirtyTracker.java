@@ -0,0 +1,221 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.annotation.Transient;
+import rockets.model.Entity;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the persistent state of the entities last loaded or saved by {@link Neo4jDAO},
+ * so that a cascaded save only writes the entities that changed since. The state of an entity is the values of its properties and the ids of the
+ * entities it is related to, collections compared as sets. An entity without an id, or
+ * related to one, is dirty.
+ * <p>
+ * A DAO keeps one tracker across its calls and units of work, so it holds a state per
+ * entity the DAO loaded or saved, as its natural key index holds a key. States are kept by
+ * class and id rather than by instance, so that an unchanged copy, e.g. one built by the
+ * caller or loaded by another call, is clean too. An entity written in a transaction that
+ * may still roll back, or in a bulk save that failed, is forgotten, so it stays dirty.
+ * A load only remembers entities that are not tracked yet, as OGM hands back the instance
+ * already in the session, changes and all. Like the {@link rockets.dataaccess.NaturalKeyIndex}, this assumes
+ * the DAO is the only writer.
+ */
+class DirtyTracker {
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private final Map<List<Object>, List<Object>> states = new ConcurrentHashMap<>();
+
+    boolean isDirty(Entity entity) {
+        if (null == entity.getId()) {
+            return true;
+        }
+        return !stateOf(entity).equals(states.get(keyOf(entity)));
+    }
+
+    /**
+     * Remembers the state of a saved entity.
+     */
+    void saved(Entity entity) {
+        if (null != entity.getId()) {
+            states.put(keyOf(entity), stateOf(entity));
+        }
+    }
+
+    /**
+     * Remembers the state of the loaded entities, and of the entities up to
+     * <code>depth</code> relationships away, which were loaded with them.
+     *
+     * @param roots the loaded entities.
+     * @param depth the fetch depth they were loaded with, or -1 for the whole graph.
+     */
+    void loaded(Collection<? extends Entity> roots, int depth) {
+        Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entity> level = new ArrayList<>(roots);
+        for (int distance = 0; !level.isEmpty() && (depth < 0 || distance <= depth); distance++) {
+            List<Entity> next = new ArrayList<>();
+            for (Entity entity : level) {
+                if (null == entity || !seen.add(entity)) {
+                    continue;
+                }
+                if (null != entity.getId()) {
+                    states.putIfAbsent(keyOf(entity), stateOf(entity));
+                }
+                next.addAll(related(entity));
+            }
+            level = next;
+        }
+    }
+
+    void deleted(Entity entity) {
+        forget(entity);
+    }
+
+    /**
+     * Forgets the state of an entity whose stored state is not known, so that it is dirty
+     * until loaded or saved again.
+     */
+    void forget(Entity entity) {
+        if (null != entity.getId()) {
+            states.remove(keyOf(entity));
+        }
+    }
+
+    /**
+     * Forgets every state, e.g. after the store was changed by another writer.
+     */
+    void clear() {
+        states.clear();
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    /**
+     * Returns the entities a cascaded save of the roots may write: the roots and their
+     * cascade, a provider's rockets and a rocket's launches, then the entities those are
+     * directly related to, which a save of depth 1 writes with them. Each is returned
+     * once, the roots first.
+     *
+     * @param roots the entities to save.
+     * @return the entities the save may write.
+     */
+    static List<Entity> cascade(Collection<? extends Entity> roots) {
+        Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Entity> pending = new ArrayDeque<>(roots);
+        List<Entity> cascade = new ArrayList<>();
+        List<Entity> neighbours = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Entity entity = pending.poll();
+            if (null != entity && seen.add(entity)) {
+                cascade.add(entity);
+                pending.addAll(children(entity));
+                neighbours.addAll(related(entity));
+            }
+        }
+        for (Entity neighbour : neighbours) {
+            if (seen.add(neighbour)) {
+                cascade.add(neighbour);
+            }
+        }
+        return cascade;
+    }
+
+    private static Collection<? extends Entity> children(Entity entity) {
+        Collection<? extends Entity> children = null;
+        if (entity instanceof LaunchServiceProvider) {
+            children = ((LaunchServiceProvider) entity).getRockets();
+        } else if (entity instanceof Rocket) {
+            children = ((Rocket) entity).getLaunches();
+        }
+        return (null == children) ? Collections.emptyList() : children;
+    }
+
+    private static List<Object> keyOf(Entity entity) {
+        return Arrays.asList(entity.getClass(), entity.getId());
+    }
+
+    static List<Object> stateOf(Entity entity) {
+        List<Field> fields = fields(entity.getClass());
+        List<Object> state = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            Object value = read(field, entity);
+            if (value instanceof Collection) {
+                Set<Object> values = new HashSet<>();
+                for (Object element : (Collection<?>) value) {
+                    values.add(valueOf(element));
+                }
+                state.add(values);
+            } else {
+                state.add(valueOf(value));
+            }
+        }
+        return state;
+    }
+
+    // an entity stands for its id; one without an id equals nothing, so whatever refers to it is dirty
+    private static Object valueOf(Object value) {
+        if (value instanceof Entity) {
+            Long id = ((Entity) value).getId();
+            return (null == id) ? new Object() : id;
+        }
+        return value;
+    }
+
+    private static List<Entity> related(Entity entity) {
+        List<Entity> related = new ArrayList<>();
+        for (Field field : fields(entity.getClass())) {
+            Object value = read(field, entity);
+            Collection<?> values = (value instanceof Collection) ? (Collection<?>) value : Collections.singleton(value);
+            for (Object element : values) {
+                if (element instanceof Entity) {
+                    related.add((Entity) element);
+                }
+            }
+        }
+        return related;
+    }
+
+    private static Object read(Field field, Entity entity) {
+        try {
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("cannot read " + field, e);
+        }
+    }
+
+    // the persistent fields of a class, i.e. all but the id and the static and transient ones
+    private static List<Field> fields(Class<?> clazz) {
+        return FIELDS.computeIfAbsent(clazz, c -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> k = c; !Object.class.equals(k); k = k.getSuperclass()) {
+                for (Field field : k.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                            || field.isAnnotationPresent(Transient.class)
+                            || (Entity.class.equals(k) && "id".equals(field.getName()))) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return fields;
+        });
+    }
+}
@@ -1,39 +1,111 @@
 package rockets.dataaccess.neo4j;
 
-import com.google.common.collect.Sets;
+import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.config.Configuration;
 import org.neo4j.ogm.cypher.Filter;
-import org.neo4j.ogm.cypher.Filters;
 import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import org.neo4j.ogm.transaction.Transaction;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityEvent;
+import rockets.dataaccess.EntityEventDispatcher;
+import rockets.dataaccess.EntityListener;
+import rockets.dataaccess.FetchPlan;
+import rockets.dataaccess.NaturalKeyIndex;
+import rockets.dataaccess.Page;
+import rockets.dataaccess.PageRequest;
+import rockets.dataaccess.Projection;
 import rockets.model.Entity;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
 import rockets.model.Rocket;
 import rockets.model.User;
 
 import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.neo4j.ogm.cypher.ComparisonOperator.EQUALS;
 
 public class Neo4jDAO implements DAO {
-    private static final int DEPTH_ENTITY = 1;
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String LAUNCH_COMPLETION = "MATCH (l:Launch)-[:LAUNCH_VEHICLE]->(r:Rocket)<-[m:MANUFACTURES]-(p:LaunchServiceProvider) " +
+            "WHERE id(l) IN $ids RETURN r, m, p";
+
+    // dates are stored as ISO strings, which sort as the dates do
+    private static final String LAUNCHES_BETWEEN = "MATCH (l:Launch) WHERE l.launchDate >= $from AND l.launchDate < $to " +
+            "RETURN id(l) AS id ORDER BY id";
+
+    private static final Map<Class<? extends Entity>, String> WARM_UP_QUERIES = new HashMap<>();
+
+    // the key values are returned as columns k0, k1, ..., as OGM cannot map lists holding nulls
+    static {
+        WARM_UP_QUERIES.put(LaunchServiceProvider.class,
+                "MATCH (n:LaunchServiceProvider) RETURN id(n) AS id, n.name AS k0, n.yearFounded AS k1, n.country AS k2");
+        WARM_UP_QUERIES.put(Rocket.class,
+                "MATCH (n:Rocket) RETURN id(n) AS id, n.name AS k0, n.country AS k1");
+        WARM_UP_QUERIES.put(User.class,
+                "MATCH (n:User) RETURN id(n) AS id, n.email AS k0");
+        WARM_UP_QUERIES.put(Launch.class,
+                "MATCH (n:Launch) OPTIONAL MATCH (n)-[:LAUNCH_VEHICLE]->(r:Rocket) " +
+                "RETURN id(n) AS id, n.launchDate AS k0, n.launchSite AS k1, n.launchOutcome AS k2, id(r) AS k3");
+    }
+
+    private static final int DEFAULT_POOL_SIZE = 16;
+    private static final long POOL_TIMEOUT_MILLIS = 30000;
+    private static final long INDEX_TIMEOUT_MILLIS = 60000;
+    private static final int EVENT_CAPACITY = 10000;
 
-    private Session session;
     private SessionFactory sessionFactory;
+    private final SessionPool pool;
+    private final ThreadLocal<UnitOfWork> unitOfWork = new ThreadLocal<>();
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final NaturalKeyIndex index = new NaturalKeyIndex();
+    private final DirtyTracker tracker = new DirtyTracker();
+    private final EntityEventDispatcher events = new EntityEventDispatcher(EVENT_CAPACITY);
 
     public Neo4jDAO(SessionFactory sessionFactory) {
+        this(sessionFactory, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates the DAO, and the schema indexes and constraints its lookups rely on if the
+     * store lacks them, see {@link SchemaIndexes}.
+     *
+     * @param sessionFactory the factory of the sessions to pool.
+     * @param poolSize       the largest number of sessions in use at once, e.g. one per web worker thread.
+     */
+    public Neo4jDAO(SessionFactory sessionFactory, int poolSize) {
         this.sessionFactory = sessionFactory;
-        if (null == session) {
-            session = sessionFactory.openSession();
+        this.pool = new SessionPool(sessionFactory, poolSize, POOL_TIMEOUT_MILLIS);
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            new SchemaIndexes(SchemaIndexes.ENTITY_CLASSES, INDEX_TIMEOUT_MILLIS).ensure(unit.session());
         }
+        reindex();
     }
 
     public Neo4jDAO(String dbAddress) {
+        this(createSessionFactory(dbAddress));
+    }
+
+    private static SessionFactory createSessionFactory(String dbAddress) {
         File file = new File(dbAddress);
         Configuration configuration = new Configuration.Builder()
                 //.uri(neoServer.boltURI().toString()) // For Bolt
@@ -43,91 +115,399 @@ public class Neo4jDAO implements DAO {
         EmbeddedDriver driver = new EmbeddedDriver();
         driver.configure(configuration);
 
-        sessionFactory = new SessionFactory(driver, User.class.getPackage().getName());
-        session = sessionFactory.openSession();
+        return new SessionFactory(driver, User.class.getPackage().getName());
+    }
+
+    /**
+     * Begins a unit of work on the calling thread: until it is closed, every call the
+     * thread makes to this DAO uses the same pooled session, which is cleared afterwards.
+     * Calls made outside a unit of work each borrow a pooled session for the call alone and
+     * give it back cleared, so that no entity outlives the call that loaded it, e.g.
+     * <pre>
+     * try (UnitOfWork unit = dao.beginUnitOfWork()) {
+     *     Rocket rocket = dao.load(Rocket.class, id);
+     *     dao.createOrUpdate(launch);
+     * }
+     * </pre>
+     *
+     * @return the unit of work, or the one already open on this thread.
+     */
+    public UnitOfWork beginUnitOfWork() {
+        return UnitOfWork.begin(pool, tracker, unitOfWork);
     }
 
     @Override
     public <T extends Entity> T load(Class<T> clazz, Long id) {
-        return session.load(clazz, id, DEPTH_ENTITY);
+        return load(clazz, id, FetchPlan.ENTITY);
     }
 
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, FetchPlan plan) {
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            T entity = unit.session().load(clazz, id, plan.getDepth());
+            if (null != entity) {
+                unit.tracker().loaded(Collections.singletonList(entity), plan.getDepth());
+            }
+            return entity;
+        }
+    }
+
+    /**
+     * Saves the entity, its cascade, a provider's rockets and a rocket's launches, and
+     * the entities they are directly related to, in one transaction, or in the one the
+     * caller began on this thread. The entity and its cascade take the ids of the nodes
+     * their natural keys are stored with. Only the entities that changed since this DAO
+     * loaded or saved them, in this call or an earlier one, are written, each with its own
+     * relationships, see {@link DirtyTracker}, so a save costs in proportion to what
+     * changed. If any write fails, the whole save is rolled back.
+     */
     @Override
     public <T extends Entity> T createOrUpdate(T entity) {
-        Class clazz = entity.getClass();
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            return createOrUpdate(unit.session(), unit.tracker(), entity);
+        }
+    }
 
-        T existingEntity = findExistingEntity(entity, clazz);
-        if (null != existingEntity) {
-            entity.setId(existingEntity.getId());
+    private <T extends Entity> T createOrUpdate(Session session, DirtyTracker tracker, T entity) {
+        resolveIds(entity);
+        List<Entity> dirty = new ArrayList<>();
+        Set<Entity> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity reached : DirtyTracker.cascade(Collections.singletonList(entity))) {
+            if (tracker.isDirty(reached)) {
+                dirty.add(reached);
+            }
+            if (null == reached.getId()) {
+                created.add(reached);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return entity;
+        }
+
+        // OGM keeps the current transaction per thread; one the caller began may still roll back,
+        // so its writes are not remembered as stored
+        boolean enclosed = null != session.getTransaction();
+        Transaction tx = enclosed ? null : session.beginTransaction();
+        try {
+            for (Entity changed : dirty) {
+                session.save(changed, 1);
+            }
+            if (!enclosed) {
+                tx.commit();
+            }
+        } finally {
+            if (!enclosed) {
+                // rolls back unless committed
+                tx.close();
+            }
         }
-        Transaction tx = session.beginTransaction();
-        saveOutgoingEntities(entity, clazz);
-        session.save(entity);
-        tx.commit();
+        if (enclosed) {
+            dirty.forEach(tracker::forget);
+            return entity;
+        }
+        List<EntityEvent> changes = new ArrayList<>(dirty.size());
+        for (Entity changed : dirty) {
+            index.saved(changed);
+            tracker.saved(changed);
+            changes.add(created.contains(changed) ? EntityEvent.created(changed) : EntityEvent.updated(changed));
+        }
+        events.publish(changes);
         return entity;
     }
 
-    // Makes sure we save associated entities correctly (only once)
-    private <T extends Entity> void saveOutgoingEntities(T entity, Class clazz) {
-        if (clazz.equals(Rocket.class)) {
+    // entities along the cascade, providers to their rockets and rockets to their launches, take
+    // the ids of their nodes; a rocket is resolved before its launches, which are keyed by its id
+    private void resolveIds(Entity entity) {
+        Long existingId = index.lookup(entity);
+        if (null != existingId) {
+            entity.setId(existingId);
+        }
+        if (entity instanceof Rocket) {
             Rocket rocket = (Rocket) entity;
-            for (Launch launch: rocket.getLaunches()) {
-                createOrUpdate(launch);
+            if (null != rocket.getLaunches()) {
+                rocket.getLaunches().forEach(this::resolveIds);
             }
-        } else if (clazz.equals(LaunchServiceProvider.class)) {
+        } else if (entity instanceof LaunchServiceProvider) {
             LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
-            for (Rocket rocket : lsp.getRockets()) {
-                createOrUpdate(rocket);
+            if (null != lsp.getRockets()) {
+                lsp.getRockets().forEach(this::resolveIds);
             }
         }
     }
 
-    private <T extends Entity> T findExistingEntity(Entity entity, Class clazz) {
-        Entity existingEntity = null;
-        Filters filters = new Filters();
-        Collection<? extends Entity> collection = Sets.newLinkedHashSet();
-        if (clazz.equals(Rocket.class)) {
-            Rocket rocket = (Rocket) entity;
-            filters.add(new Filter("name", EQUALS, rocket.getName()))
-                    .and(new Filter("country", EQUALS, rocket.getCountry()));
-            collection = session.loadAll(Rocket.class, filters);
-        } else if (clazz.equals(User.class)) {
-            User user = (User) entity;
-            filters.add(new Filter("email", EQUALS, user.getEmail()));
-            collection = session.loadAll(User.class, filters);
-        } else if (clazz.equals(Launch.class)) {
-            Launch launch = (Launch) entity;
-            filters.add(new Filter("launchDate", EQUALS, launch.getLaunchDate()))
-                    .and(new Filter("launchVehicle", EQUALS, launch.getLaunchVehicle()))
-                    .and(new Filter("launchSite", EQUALS, launch.getLaunchSite()))
-                    .and(new Filter("launchOutcome", EQUALS, launch.getLaunchOutcome()));
-            collection = session.loadAll(Launch.class, filters);
-        } else if (clazz.equals(LaunchServiceProvider.class)) {
-            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
-            filters.add(new Filter("name", EQUALS, lsp.getName()))
-                    .and(new Filter("yearFounded", EQUALS, lsp.getYearFounded()))
-                    .and(new Filter("country", EQUALS, lsp.getCountry()));
-            collection = session.loadAll(LaunchServiceProvider.class, filters);
-        }
-        if (!collection.isEmpty()) {
-            existingEntity = collection.iterator().next();
+    /**
+     * Saves the entities in bulk, resolving their natural keys with the natural key index,
+     * and writing them in batches of {@link #getBatchSize()} entities, one
+     * transaction each. The cascade and the matching of existing entities are the same
+     * as for {@link #createOrUpdate(Entity)}, and the timing of each batch is logged.
+     */
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            BatchUpsert upsert = new BatchUpsert(unit.session(), index, unit.tracker(), batchSize);
+            Collection<T> saved;
+            try {
+                saved = upsert.run(entities);
+            } catch (RuntimeException e) {
+                // some batches may have been committed before the failure
+                events.lost(upsert.size());
+                throw e;
+            }
+            events.publish(upsert.events());
+            return saved;
         }
-        return (T) existingEntity;
     }
 
     @Override
     public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
-        return session.loadAll(clazz);
+        return loadAll(clazz, FetchPlan.ENTITY);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, FetchPlan plan) {
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            Collection<T> entities = unit.session().loadAll(clazz, plan.getDepth());
+            unit.tracker().loaded(entities, plan.getDepth());
+            return entities;
+        }
+    }
+
+    /**
+     * Fetches the projected properties with a single Cypher query, without mapping any
+     * entity. Values come back as stored, e.g. dates as ISO strings and ints as longs.
+     */
+    @Override
+    public <T extends Entity, R> List<R> project(Class<T> clazz, Projection<R> projection) {
+        projection.checkProperties(clazz);
+        StringBuilder cypher = new StringBuilder("MATCH (n:").append(clazz.getSimpleName()).append(") RETURN id(n) AS ").append(Projection.ID);
+        for (String property : projection.getProperties()) {
+            cypher.append(", n.`").append(storedName(clazz, property)).append("` AS `").append(property).append('`');
+        }
+        cypher.append(" ORDER BY ").append(Projection.ID);
+
+        List<R> rows = new ArrayList<>();
+        for (Map<String, Object> row : query(cypher.toString(), Collections.emptyMap())) {
+            rows.add(projection.fromRow(new LinkedHashMap<>(row)));
+        }
+        return rows;
+    }
+
+    /**
+     * Loads the page through a Cypher query on ids, sort values and cursor, as OGM's
+     * sort orders cannot break ties on the id, then loads the entities of the page.
+     */
+    @Override
+    public <T extends Entity> Page<T> loadPage(Class<T> clazz, PageRequest request) {
+        List<Map<String, Object>> rows = pageRows(clazz, request, Collections.emptyList());
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> row : rows.subList(0, Math.min(rows.size(), request.getSize()))) {
+            ids.add(((Number) row.get(Projection.ID)).longValue());
+        }
+        return new Page<>(loadAll(clazz, ids), nextPage(rows, request));
+    }
+
+    @Override
+    public <T extends Entity, R> Page<R> projectPage(Class<T> clazz, Projection<R> projection, PageRequest request) {
+        projection.checkProperties(clazz);
+        List<Map<String, Object>> rows = pageRows(clazz, request, projection.getProperties());
+        List<R> content = new ArrayList<>();
+        for (Map<String, Object> row : rows.subList(0, Math.min(rows.size(), request.getSize()))) {
+            Map<String, Object> projected = new LinkedHashMap<>(row);
+            projected.remove(PageQuery.SORT_VALUE);
+            content.add(projection.fromRow(projected));
+        }
+        return new Page<>(content, nextPage(rows, request));
+    }
+
+    // the rows of the page, and the first row of the next page if there is one
+    private List<Map<String, Object>> pageRows(Class<? extends Entity> clazz, PageRequest request, List<String> properties) {
+        PageQuery pageQuery = new PageQuery(clazz, request, properties);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : query(pageQuery.getCypher(), pageQuery.getParameters())) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static PageRequest nextPage(List<Map<String, Object>> rows, PageRequest request) {
+        if (rows.size() <= request.getSize()) {
+            return null;
+        }
+        Map<String, Object> last = rows.get(request.getSize() - 1);
+        Object id = last.get(Projection.ID);
+        Object sortValue = (null == request.getSort()) ? id : last.get(PageQuery.SORT_VALUE);
+        return request.next(sortValue, ((Number) id).longValue());
+    }
+
+    // the name a property is stored under, which @Property may rename
+    static String storedName(Class<?> clazz, String property) {
+        for (Class<?> c = clazz; null != c; c = c.getSuperclass()) {
+            try {
+                Property annotation = c.getDeclaredField(property).getAnnotation(Property.class);
+                return (null == annotation || annotation.name().isEmpty()) ? property : annotation.name();
+            } catch (NoSuchFieldException e) {
+                // declared further up
+            }
+        }
+        return property;
+    }
+
+    /**
+     * Streams the entities of a class in pages of {@link #getPageSize()} entities,
+     * ordered by id. Each stream reads through its own session, which only ever
+     * holds the current page, so the heap stays bounded whatever the store size.
+     * The stream's session is not taken from the pool, and the entities returned are
+     * not part of any unit of work.
+     */
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        PagedEntityIterator<T> iterator = pagedIterator(clazz);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    private <T extends Entity> PagedEntityIterator<T> pagedIterator(Class<T> clazz) {
+        Session pageSession = sessionFactory.openSession();
+        if (clazz.equals(Launch.class)) {
+            // launches also need the manufacturers of their rockets, which are beyond FetchPlan.ENTITY,
+            // and their payloads are released with them
+            return new PagedEntityIterator<>(pageSession, clazz, pageSize, LAUNCH_COMPLETION, launch -> {
+                Set<Payload> payloads = ((Launch) launch).getPayload();
+                return (null == payloads) ? Collections.<Payload>emptySet() : payloads;
+            });
+        }
+        return new PagedEntityIterator<>(pageSession, clazz, pageSize, null, entity -> Collections.<Entity>emptySet());
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1)
+            throw new IllegalArgumentException("page size must be positive");
+        this.pageSize = pageSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs a Cypher query and returns its rows, e.g. for aggregations that are
+     * cheaper to run in the database than over loaded entities.
+     *
+     * @param cypher     the Cypher query.
+     * @param parameters the query parameters.
+     * @return the result rows, one map of column name to value per row.
+     */
+    public Iterable<Map<String, Object>> query(String cypher, Map<String, ?> parameters) {
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            unit.session().query(cypher, parameters).queryResults().forEach(rows::add);
+            return rows;
+        }
+    }
+
+    /**
+     * Loads the entities with the given ids, in the order of the ids. Ids with no
+     * entity are skipped.
+     *
+     * @param clazz the entity class.
+     * @param ids   the ids of the entities.
+     * @return the loaded entities.
+     */
+    public <T extends Entity> List<T> loadAll(Class<T> clazz, List<Long> ids) {
+        return loadAll(clazz, ids, FetchPlan.ENTITY);
+    }
+
+    /**
+     * Loads the entities with the given ids, in the order of the ids, with as much of
+     * the graph around them as the plan asks for. Ids with no entity are skipped.
+     *
+     * @param clazz the entity class.
+     * @param ids   the ids of the entities.
+     * @param plan  the related entities to fetch with them.
+     * @return the loaded entities.
+     */
+    public <T extends Entity> List<T> loadAll(Class<T> clazz, List<Long> ids, FetchPlan plan) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            Collection<T> entities = unit.session().loadAll(clazz, ids, plan.getDepth());
+            unit.tracker().loaded(entities, plan.getDepth());
+            return inOrder(entities, ids);
+        }
+    }
+
+    static <T extends Entity> List<T> inOrder(Collection<T> loaded, List<Long> ids) {
+        Map<Long, T> entities = new HashMap<>();
+        for (T entity : loaded) {
+            entities.put(entity.getId(), entity);
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (entities.containsKey(id)) {
+                result.add(entities.get(id));
+            }
+        }
+        return result;
     }
 
     // TODO: need to be tested!
     public <T extends Entity> void delete(T entity) {
-        session.delete(entity);
+        // the event takes the id before the session clears it
+        List<EntityEvent> changes = (null == entity.getId()) ? Collections.emptyList()
+                : Collections.singletonList(EntityEvent.deleted(entity));
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            unit.tracker().deleted(entity);
+            unit.session().delete(entity);
+        }
+        index.deleted(entity);
+        events.publish(changes);
+    }
+
+    /**
+     * Saves made in a transaction the caller began are not published, nor indexed, as OGM
+     * tells nobody when that transaction commits; {@link #reindex()} catches up once it did.
+     */
+    @Override
+    public void addListener(EntityListener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(EntityListener listener) {
+        events.removeListener(listener);
+    }
+
+    /**
+     * Rebuilds the natural key index from the store, and forgets the state of the entities
+     * this DAO loaded and saved so far. Both are kept current by this DAO's own reads and
+     * writes, so this is only needed after the store was changed by another writer.
+     */
+    public void reindex() {
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            unit.tracker().clear();
+            Session session = unit.session();
+            index.warmUp(clazz -> session.query(WARM_UP_QUERIES.get(clazz), Collections.emptyMap()).queryResults());
+        }
     }
 
     @Override
     public User getUserByEmail(String email) {
-        Collection<User> users = session.loadAll(User.class, new Filter("email", EQUALS, email));
+        Collection<User> users;
+        try (UnitOfWork unit = beginUnitOfWork()) {
+            users = unit.session().loadAll(User.class, new Filter("email", EQUALS, email), FetchPlan.ENTITY.getDepth());
+            unit.tracker().loaded(users, FetchPlan.ENTITY.getDepth());
+        }
 
         if (null == users || users.isEmpty()) {
             return null;
@@ -136,8 +516,21 @@ public class Neo4jDAO implements DAO {
         }
     }
 
+    @Override
+    public Collection<Launch> getLaunchesInYear(int year) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", LocalDate.of(year, 1, 1).toString());
+        parameters.put("to", LocalDate.of(year + 1, 1, 1).toString());
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> row : query(LAUNCHES_BETWEEN, parameters)) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        return loadAll(Launch.class, ids);
+    }
+
     @Override
     public void close() {
+        events.close();
         sessionFactory.close();
     }
 }
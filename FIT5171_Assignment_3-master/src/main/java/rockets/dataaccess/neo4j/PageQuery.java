@@ -0,0 +1,87 @@
+package rockets.dataaccess.neo4j;
+
+import rockets.dataaccess.PageRequest;
+import rockets.dataaccess.Projection;
+import rockets.model.Entity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Cypher query of a page: the ids, the sort values and the projected properties of
+ * the entities of the page, sorted by the sort property and then by id, plus one more
+ * row that tells whether there is a next page.
+ * <p>
+ * A page requested by number skips the rows before it. A page requested by cursor
+ * seeks past the cursor instead, so with an index on the sort property it costs the
+ * same on every page. As in Cypher, nulls sort last in ascending order and first in
+ * descending order.
+ */
+class PageQuery {
+    static final String SORT_VALUE = "sort_value";
+
+    private final String cypher;
+    private final Map<String, Object> parameters = new HashMap<>();
+
+    PageQuery(Class<? extends Entity> clazz, PageRequest request, List<String> properties) {
+        String sort = request.getSort();
+        if (null != sort) {
+            Projection.of(sort).checkProperties(clazz);
+        }
+        String sortValue = (null == sort) ? null : "n.`" + Neo4jDAO.storedName(clazz, sort) + "`";
+        String direction = request.isDescending() ? " DESC" : "";
+
+        StringBuilder cypher = new StringBuilder("MATCH (n:").append(clazz.getSimpleName()).append(')');
+        if (request.hasCursor()) {
+            cypher.append(" WHERE ").append(seek(sortValue, request));
+            parameters.put("afterValue", request.getAfterValue());
+            parameters.put("afterId", request.getAfterId());
+        }
+        cypher.append(" RETURN id(n) AS ").append(Projection.ID);
+        if (null != sortValue) {
+            cypher.append(", ").append(sortValue).append(" AS ").append(SORT_VALUE);
+        }
+        for (String property : properties) {
+            cypher.append(", n.`").append(Neo4jDAO.storedName(clazz, property)).append("` AS `").append(property).append('`');
+        }
+        cypher.append(" ORDER BY ");
+        if (null != sortValue) {
+            cypher.append(sortValue).append(direction).append(", ");
+        }
+        cypher.append("id(n)").append(direction);
+        if (!request.isKeyset()) {
+            cypher.append(" SKIP $skip");
+            parameters.put("skip", request.getOffset());
+        }
+        cypher.append(" LIMIT $limit");
+        parameters.put("limit", request.getSize() + 1);
+        this.cypher = cypher.toString();
+    }
+
+    // the rows after the cursor in the page order
+    private static String seek(String sortValue, PageRequest request) {
+        String idAfter = request.isDescending() ? "id(n) < $afterId" : "id(n) > $afterId";
+        if (null == sortValue) {
+            return idAfter;
+        }
+        if (null == request.getAfterValue()) {
+            return request.isDescending()
+                    ? "(" + sortValue + " IS NOT NULL OR " + idAfter + ")"
+                    : "(" + sortValue + " IS NULL AND " + idAfter + ")";
+        }
+        String valueAfter = sortValue + (request.isDescending() ? " < " : " > ") + "$afterValue";
+        String tie = "(" + sortValue + " = $afterValue AND " + idAfter + ")";
+        return request.isDescending()
+                ? "(" + valueAfter + " OR " + tie + ")"
+                : "(" + valueAfter + " OR " + tie + " OR " + sortValue + " IS NULL)";
+    }
+
+    String getCypher() {
+        return cypher;
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+}
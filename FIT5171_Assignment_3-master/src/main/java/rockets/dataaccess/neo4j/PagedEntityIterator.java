@@ -0,0 +1,110 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import org.neo4j.ogm.session.Session;
+import rockets.dataaccess.FetchPlan;
+import rockets.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterates over all entities of a class page by page, using the last id seen as the
+ * key of the next page so that pages stay stable while the store changes.
+ * <p>
+ * Entities are loaded at {@link FetchPlan#ENTITY} into a session of their own.
+ * Before the next page is fetched, the entities of the current page and their dependents
+ * are detached from that session, so it only ever holds one page plus the entities they
+ * share, e.g. rockets and providers, which keep one instance across pages. References
+ * further away that readers still need can be fetched with a completion query, which is
+ * run once per page with the page's ids as <code>$ids</code>.
+ */
+class PagedEntityIterator<T extends Entity> implements Iterator<T>, AutoCloseable {
+    private final Class<T> clazz;
+    private final int pageSize;
+    private final String pageQuery;
+    private final String completionQuery;
+    private final Function<T, Collection<? extends Entity>> dependents;
+
+    private Session session;
+    private List<T> current = Collections.emptyList();
+    private Iterator<T> page = Collections.emptyIterator();
+    private long lastId = -1;
+    private boolean exhausted;
+
+    PagedEntityIterator(Session session, Class<T> clazz, int pageSize, String completionQuery,
+                        Function<T, Collection<? extends Entity>> dependents) {
+        this.session = session;
+        this.clazz = clazz;
+        this.pageSize = pageSize;
+        this.completionQuery = completionQuery;
+        this.dependents = dependents;
+        this.pageQuery = "MATCH (n:" + clazz.getSimpleName() + ") WHERE id(n) > $after " +
+                "RETURN id(n) AS id ORDER BY id LIMIT $size";
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !exhausted) {
+            page = nextPage();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return page.next();
+    }
+
+    private Iterator<T> nextPage() {
+        if (null == session)
+            throw new IllegalStateException("stream has been closed");
+        detach(current);
+        Map<String, Object> parameters = ImmutableMap.of("after", lastId, "size", pageSize);
+        List<Long> ids = new ArrayList<>(pageSize);
+        for (Map<String, Object> row : session.query(pageQuery, parameters).queryResults()) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        if (ids.size() < pageSize) {
+            exhausted = true;
+        }
+        if (ids.isEmpty()) {
+            current = Collections.emptyList();
+            return Collections.emptyIterator();
+        }
+        lastId = ids.get(ids.size() - 1);
+        current = Neo4jDAO.inOrder(session.loadAll(clazz, ids, FetchPlan.ENTITY.getDepth()), ids);
+        if (null != completionQuery) {
+            session.query(completionQuery, Collections.singletonMap("ids", ids));
+        }
+        return current.iterator();
+    }
+
+    private void detach(List<T> entities) {
+        for (T entity : entities) {
+            for (Entity dependent : dependents.apply(entity)) {
+                session.detachNodeEntity(dependent.getId());
+            }
+            session.detachNodeEntity(entity.getId());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (null != session) {
+            session.clear();
+            session = null;
+        }
+        exhausted = true;
+        current = Collections.emptyList();
+        page = Collections.emptyIterator();
+    }
+}
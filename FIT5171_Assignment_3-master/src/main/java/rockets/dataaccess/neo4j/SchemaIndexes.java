@@ -0,0 +1,245 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.annotation.CompositeIndex;
+import org.neo4j.ogm.annotation.Index;
+import org.neo4j.ogm.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The schema indexes and unique constraints declared on the entity classes with
+ * {@link Index} and {@link CompositeIndex}, verified and created when missing as a
+ * {@link Neo4jDAO} starts, so that the lookups on them are index seeks. OGM's own
+ * auto-index is off unless configured, and would drop every index it does not know.
+ * <p>
+ * Neo4j fills a new index in the background. Startup waits for it, logging its state,
+ * and goes on without it after a timeout; queries just scan until it is online.
+ */
+class SchemaIndexes {
+    private static Logger logger = LoggerFactory.getLogger(SchemaIndexes.class);
+
+    static final List<Class<? extends Entity>> ENTITY_CLASSES = Collections.unmodifiableList(Arrays.asList(
+            User.class, Rocket.class, LaunchServiceProvider.class, Launch.class));
+
+    private static final String ONLINE = "ONLINE";
+    private static final String FAILED = "FAILED";
+    private static final String UNIQUE_TYPE = "node_unique_property";
+    private static final long POLL_MILLIS = 200;
+
+    private final List<Definition> definitions;
+    private final long timeoutMillis;
+
+    /**
+     * @param classes       the entity classes whose indexes to manage.
+     * @param timeoutMillis how long to wait for new indexes to be populated.
+     */
+    SchemaIndexes(Collection<Class<? extends Entity>> classes, long timeoutMillis) {
+        this.definitions = declared(classes);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    static List<Definition> declared(Collection<Class<? extends Entity>> classes) {
+        List<Definition> definitions = new ArrayList<>();
+        for (Class<? extends Entity> clazz : classes) {
+            String label = clazz.getSimpleName();
+            for (CompositeIndex index : clazz.getAnnotationsByType(CompositeIndex.class)) {
+                String[] properties = (index.properties().length > 0) ? index.properties() : index.value();
+                List<String> stored = new ArrayList<>();
+                for (String property : properties) {
+                    stored.add(Neo4jDAO.storedName(clazz, property));
+                }
+                definitions.add(new Definition(label, stored, index.unique()));
+            }
+            for (Class<?> c = clazz; null != c; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    Index index = field.getAnnotation(Index.class);
+                    if (null != index) {
+                        definitions.add(new Definition(label, Collections.singletonList(Neo4jDAO.storedName(clazz, field.getName())), index.unique()));
+                    }
+                }
+            }
+        }
+        return definitions;
+    }
+
+    List<Definition> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Creates the declared indexes and constraints that are missing, and waits for them
+     * to come online. Indexes that cannot be created, e.g. a unique constraint over
+     * duplicate values, are logged and left out.
+     */
+    void ensure(Session session) {
+        Map<Definition, String> existing = states(session);
+        boolean created = false;
+        for (Definition definition : definitions) {
+            if (existing.containsKey(definition)) {
+                continue;
+            }
+            Definition plain = new Definition(definition.label, definition.properties, false);
+            boolean dropped = false;
+            try {
+                if (definition.unique && existing.containsKey(plain)) {
+                    // a unique constraint brings its own index, and Neo4j refuses it next to another
+                    session.query(plain.dropStatement(), Collections.emptyMap());
+                    dropped = true;
+                }
+                logger.info("create " + definition);
+                session.query(definition.createStatement(), Collections.emptyMap());
+                created = true;
+            } catch (RuntimeException e) {
+                logger.error("cannot create " + definition + ": " + e.getMessage());
+                if (dropped) {
+                    created |= restore(session, plain);
+                }
+            }
+        }
+        if (created) {
+            awaitOnline(session);
+        }
+    }
+
+    // puts back the index dropped for a constraint that could not be created
+    private static boolean restore(Session session, Definition plain) {
+        try {
+            logger.info("restore " + plain);
+            session.query(plain.createStatement(), Collections.emptyMap());
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("cannot restore " + plain + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void awaitOnline(Session session) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Map<Definition, String> logged = new HashMap<>();
+        while (true) {
+            boolean pending = false;
+            for (Map.Entry<Definition, String> entry : states(session).entrySet()) {
+                Definition definition = entry.getKey();
+                String state = entry.getValue();
+                if (!definitions.contains(definition) || state.equals(logged.get(definition))) {
+                    continue;
+                }
+                logged.put(definition, state);
+                if (FAILED.equals(state)) {
+                    logger.error(definition + " failed to populate");
+                } else {
+                    logger.info(definition + " is " + state.toLowerCase());
+                }
+            }
+            for (String state : logged.values()) {
+                pending |= !ONLINE.equals(state) && !FAILED.equals(state);
+            }
+            if (!pending) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                logger.warn("indexes still populating after " + timeoutMillis + " ms, going on without them");
+                return;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // the state of every index in the store
+    private static Map<Definition, String> states(Session session) {
+        Map<Definition, String> states = new HashMap<>();
+        Iterable<Map<String, Object>> rows = session.query("CALL db.indexes() YIELD label, properties, state, type " +
+                "RETURN label, properties, state, type", Collections.emptyMap()).queryResults();
+        for (Map<String, Object> row : rows) {
+            Definition definition = new Definition((String) row.get("label"), strings(row.get("properties")),
+                    UNIQUE_TYPE.equals(row.get("type")));
+            states.put(definition, (String) row.get("state"));
+        }
+        return states;
+    }
+
+    private static List<String> strings(Object values) {
+        List<String> strings = new ArrayList<>();
+        Iterable<?> iterable = (values instanceof Object[]) ? Arrays.asList((Object[]) values) : (Iterable<?>) values;
+        for (Object value : iterable) {
+            strings.add(String.valueOf(value));
+        }
+        return strings;
+    }
+
+    /**
+     * An index, or a unique constraint, on some properties of a label.
+     */
+    static final class Definition {
+        private final String label;
+        private final List<String> properties;
+        private final boolean unique;
+
+        Definition(String label, List<String> properties, boolean unique) {
+            this.label = label;
+            this.properties = properties;
+            this.unique = unique;
+        }
+
+        String createStatement() {
+            if (unique) {
+                if (properties.size() > 1)
+                    throw new IllegalStateException("unique constraints over several properties are not supported: " + this);
+                return "CREATE CONSTRAINT ON (n:" + label + ") ASSERT n.`" + properties.get(0) + "` IS UNIQUE";
+            }
+            return "CREATE INDEX ON :" + label + "(" + propertyList() + ")";
+        }
+
+        String dropStatement() {
+            return "DROP INDEX ON :" + label + "(" + propertyList() + ")";
+        }
+
+        private String propertyList() {
+            StringBuilder list = new StringBuilder();
+            for (String property : properties) {
+                list.append(list.length() == 0 ? "" : ", ").append('`').append(property).append('`');
+            }
+            return list.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Definition that = (Definition) o;
+            return unique == that.unique &&
+                    Objects.equals(label, that.label) &&
+                    Objects.equals(properties, that.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(label, properties, unique);
+        }
+
+        @Override
+        public String toString() {
+            return (unique ? "unique constraint on :" : "index on :") + label + properties;
+        }
+    }
+}
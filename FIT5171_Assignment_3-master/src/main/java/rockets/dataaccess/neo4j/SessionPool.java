@@ -0,0 +1,90 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of OGM sessions. OGM sessions are not thread-safe, so a session is
+ * lent to one thread at a time, and at most <code>maxSize</code> sessions are lent at
+ * once; further threads wait for one to be released. A released session is cleared,
+ * so that its mapping context does not grow from one use to the next.
+ */
+public class SessionPool {
+    private final SessionFactory sessionFactory;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final BlockingQueue<Session> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * @param sessionFactory the factory sessions are opened with.
+     * @param maxSize        the largest number of sessions lent at once.
+     * @param timeoutMillis  how long to wait for a session before giving up.
+     */
+    public SessionPool(SessionFactory sessionFactory, int maxSize, long timeoutMillis) {
+        if (null == sessionFactory)
+            throw new NullPointerException("session factory cannot be null");
+        if (maxSize < 1)
+            throw new IllegalArgumentException("pool size must be positive");
+        if (timeoutMillis < 0)
+            throw new IllegalArgumentException("timeout cannot be negative");
+        this.sessionFactory = sessionFactory;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Lends a session, opening one if no idle session is left.
+     *
+     * @return the session, to be given back with {@link #release(Session)}.
+     * @throws IllegalStateException if no session became free within the timeout.
+     */
+    public Session acquire() {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+                throw new IllegalStateException("no session became free within " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a session", e);
+        }
+        Session session = idle.poll();
+        if (null != session) {
+            return session;
+        }
+        try {
+            return sessionFactory.openSession();
+        } catch (RuntimeException | Error e) {
+            // the permit of a session that could not be opened is not lent
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Clears a lent session and makes it available again.
+     *
+     * @param session the session lent by {@link #acquire()}.
+     */
+    public void release(Session session) {
+        try {
+            session.clear();
+            idle.offer(session);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+}
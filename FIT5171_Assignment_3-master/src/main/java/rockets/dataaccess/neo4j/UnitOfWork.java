@@ -0,0 +1,60 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.session.Session;
+
+/**
+ * A scope in which every call a thread makes to a {@link Neo4jDAO} uses the same
+ * pooled session, so that entities loaded in the scope are shared and relationships
+ * between them are tracked. Closing the scope gives the session back to the pool, which
+ * clears it. The states of the entities, see {@link DirtyTracker}, belong to the DAO and
+ * outlive the scope.
+ * <p>
+ * A unit of work is bound to the thread that began it. Beginning another one on the
+ * same thread joins the open one, which is then only closed by the outermost close.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private final SessionPool pool;
+    private final ThreadLocal<UnitOfWork> scope;
+    private Session session;
+    private final DirtyTracker tracker;
+    private int depth = 1;
+
+    private UnitOfWork(SessionPool pool, DirtyTracker tracker, ThreadLocal<UnitOfWork> scope) {
+        this.pool = pool;
+        this.tracker = tracker;
+        this.scope = scope;
+        this.session = pool.acquire();
+    }
+
+    static UnitOfWork begin(SessionPool pool, DirtyTracker tracker, ThreadLocal<UnitOfWork> scope) {
+        UnitOfWork current = scope.get();
+        if (null != current) {
+            current.depth++;
+            return current;
+        }
+        UnitOfWork unit = new UnitOfWork(pool, tracker, scope);
+        scope.set(unit);
+        return unit;
+    }
+
+    Session session() {
+        if (null == session)
+            throw new IllegalStateException("unit of work has been closed");
+        return session;
+    }
+
+    DirtyTracker tracker() {
+        return tracker;
+    }
+
+    @Override
+    public void close() {
+        if (null == session || --depth > 0) {
+            return;
+        }
+        scope.remove();
+        Session released = session;
+        session = null;
+        pool.release(released);
+    }
+}
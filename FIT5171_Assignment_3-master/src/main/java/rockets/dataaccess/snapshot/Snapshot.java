@@ -0,0 +1,389 @@
+package rockets.dataaccess.snapshot;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * All the entities of a store, read back from a snapshot file, to warm a node up without
+ * going through the store: restore them into an {@link InMemoryDAO}, or hand the launches
+ * to the analytics, e.g. <code>LaunchTable.of(snapshot.getLaunches())</code>.
+ * <p>
+ * A snapshot file starts with {@link #MAGIC} and its {@link #VERSION}, followed by the
+ * providers, rockets, payloads, launches and users, in that order. Each entity is written
+ * once with its id, and refers to the entities it is related to by their ids, so that the
+ * graph is rebuilt as it was. Numbers and strings are encoded compactly, see
+ * {@link SnapshotOutput}. A reader rejects a file of any other version.
+ * <p>
+ * The entities are exported as the store holds them, passwords included, so the file must
+ * be kept as safe as the store itself.
+ */
+public final class Snapshot {
+    static final byte[] MAGIC = {'R', 'K', 'T', 'S'};
+    public static final int VERSION = 1;
+
+    private static final int RECORD = 1;
+    private static final int END = 0;
+
+    private final List<LaunchServiceProvider> providers;
+    private final List<Rocket> rockets;
+    private final List<Payload> payloads;
+    private final List<Launch> launches;
+    private final List<User> users;
+
+    private Snapshot(List<LaunchServiceProvider> providers, List<Rocket> rockets, List<Payload> payloads,
+                     List<Launch> launches, List<User> users) {
+        this.providers = Collections.unmodifiableList(providers);
+        this.rockets = Collections.unmodifiableList(rockets);
+        this.payloads = Collections.unmodifiableList(payloads);
+        this.launches = Collections.unmodifiableList(launches);
+        this.users = Collections.unmodifiableList(users);
+    }
+
+    public List<LaunchServiceProvider> getProviders() {
+        return providers;
+    }
+
+    public List<Rocket> getRockets() {
+        return rockets;
+    }
+
+    public List<Payload> getPayloads() {
+        return payloads;
+    }
+
+    public List<Launch> getLaunches() {
+        return launches;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * @return the number of entities, of every class.
+     */
+    public int size() {
+        return providers.size() + rockets.size() + payloads.size() + launches.size() + users.size();
+    }
+
+    /**
+     * Saves every entity, with its id, into the DAO in one bulk save.
+     *
+     * @param dao the DAO to restore into, usually empty.
+     */
+    public void restoreInto(InMemoryDAO dao) {
+        List<Entity> all = new ArrayList<>(size());
+        all.addAll(providers);
+        all.addAll(rockets);
+        all.addAll(payloads);
+        all.addAll(launches);
+        all.addAll(users);
+        dao.createOrUpdateAll(all);
+    }
+
+    /**
+     * Writes a snapshot of every entity of the DAO to a file. The snapshot is written
+     * next to it first, and then moved over it, so a failed export leaves the file as is.
+     *
+     * @param dao  the DAO to export, which should not be written to meanwhile.
+     * @param file the snapshot file.
+     * @return the number of entities written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static long write(DAO dao, Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        long written;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+            written = write(dao, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Writes a snapshot of every entity of the DAO. The entities are streamed class by
+     * class, so the DAO need not hold them all at once.
+     *
+     * @param dao the DAO to export, which should not be written to meanwhile.
+     * @param out the stream to write to, which is flushed but left open.
+     * @return the number of entities written.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static long write(DAO dao, OutputStream out) throws IOException {
+        if (null == dao)
+            throw new NullPointerException("dao cannot be null");
+        SnapshotOutput output = new SnapshotOutput(out);
+        for (byte b : MAGIC) {
+            output.writeByte(b);
+        }
+        output.writeUnsigned(VERSION);
+        long written = 0;
+        written += writeAll(dao, LaunchServiceProvider.class, output, provider -> {
+            output.writeString(provider.getName());
+            output.writeInt(provider.getYearFounded());
+            output.writeString(provider.getCountry());
+            output.writeString(provider.getHeadquarters());
+            output.writeReferences(provider.getRockets());
+        });
+        written += writeAll(dao, Rocket.class, output, rocket -> {
+            if (null == rocket.getManufacturer())
+                throw new IllegalArgumentException("rocket must have a manufacturer");
+            output.writeString(rocket.getName());
+            output.writeString(rocket.getCountry());
+            output.writeReference(rocket.getManufacturer());
+            output.writeString(rocket.getMassToLEO());
+            output.writeString(rocket.getMassToGTO());
+            output.writeString(rocket.getMassToOther());
+            output.writeInt(rocket.getFirstYearFlight());
+            output.writeInt(rocket.getLatestYearFlight());
+            output.writeReferences(rocket.getLaunches());
+        });
+        written += writeAll(dao, Payload.class, output, payload -> {
+            output.writeString(payload.getName());
+            output.writeString(payload.getDestination());
+            output.writeInt(payload.getMassKG());
+            output.writeString(payload.getType());
+            output.writeBoolean(payload.isActive());
+        });
+        written += writeAll(dao, Launch.class, output, launch -> {
+            output.writeDate(launch.getLaunchDate());
+            output.writeReference(launch.getLaunchVehicle());
+            output.writeReference(launch.getLaunchServiceProvider());
+            output.writeReferences(launch.getPayload());
+            output.writeString(launch.getLaunchSite());
+            output.writeString(launch.getOrbit());
+            output.writeString(launch.getFunction());
+            output.writeDecimal(launch.getPrice());
+            output.writeEnum(launch.getLaunchOutcome());
+        });
+        written += writeAll(dao, User.class, output, user -> {
+            output.writeString(user.getFirstName());
+            output.writeString(user.getLastName());
+            output.writeString(user.getEmail());
+            output.writeString(user.getPassword());
+        });
+        output.flush();
+        return written;
+    }
+
+    private interface RecordWriter<T> {
+        void write(T entity) throws IOException;
+    }
+
+    private static <T extends Entity> long writeAll(DAO dao, Class<T> clazz, SnapshotOutput output,
+                                                    RecordWriter<T> fields) throws IOException {
+        long written = 0;
+        try (Stream<T> entities = dao.stream(clazz)) {
+            Iterator<T> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                T entity = iterator.next();
+                output.writeByte(RECORD);
+                output.writeId(entity);
+                output.writeString(entity.getWikilink());
+                fields.write(entity);
+                written++;
+            }
+        }
+        output.writeByte(END);
+        return written;
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read, or is not a snapshot of this version.
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a snapshot, and rebuilds the graph of its entities.
+     *
+     * @param in the stream to read from, which is left open.
+     * @return the snapshot.
+     * @throws IOException if the stream cannot be read, or is not a snapshot of this version.
+     */
+    public static Snapshot read(InputStream in) throws IOException {
+        SnapshotInput input = new SnapshotInput(in);
+        for (byte b : MAGIC) {
+            if (input.readByte() != b)
+                throw new IOException("not a snapshot");
+        }
+        long version = input.readUnsigned();
+        if (VERSION != version)
+            throw new IOException("unsupported snapshot version " + version);
+
+        Map<Long, LaunchServiceProvider> providers = new HashMap<>();
+        List<LaunchServiceProvider> providerList = new ArrayList<>();
+        List<long[]> providerRockets = new ArrayList<>();
+        readAll(input, id -> {
+            String wikilink = input.readString();
+            LaunchServiceProvider provider = new LaunchServiceProvider(
+                    input.readString(), input.readInt(), input.readString());
+            setIfPresent(input.readString(), provider::setHeadquarters);
+            providerRockets.add(input.readReferences());
+            add(provider, id, wikilink, providers, providerList);
+        });
+
+        Map<Long, Rocket> rockets = new HashMap<>();
+        List<Rocket> rocketList = new ArrayList<>();
+        List<long[]> rocketLaunches = new ArrayList<>();
+        readAll(input, id -> {
+            String wikilink = input.readString();
+            String name = input.readString();
+            String country = input.readString();
+            Rocket rocket = new Rocket(name, country, resolve(providers, input.readReference(), "provider"));
+            setIfPresent(input.readString(), rocket::setMassToLEO);
+            setIfPresent(input.readString(), rocket::setMassToGTO);
+            setIfPresent(input.readString(), rocket::setMassToOther);
+            rocket.setFirstYearFlight(input.readInt());
+            rocket.setLatestYearFlight(input.readInt());
+            rocketLaunches.add(input.readReferences());
+            add(rocket, id, wikilink, rockets, rocketList);
+        });
+
+        Map<Long, Payload> payloads = new HashMap<>();
+        List<Payload> payloadList = new ArrayList<>();
+        readAll(input, id -> {
+            String wikilink = input.readString();
+            Payload payload = new Payload(input.readString(), input.readString(), input.readInt(),
+                    input.readString(), input.readBoolean());
+            add(payload, id, wikilink, payloads, payloadList);
+        });
+
+        Map<Long, Launch> launches = new HashMap<>();
+        List<Launch> launchList = new ArrayList<>();
+        readAll(input, id -> {
+            String wikilink = input.readString();
+            Launch launch = new Launch();
+            launch.setLaunchDate(input.readDate());
+            launch.setLaunchVehicle(resolve(rockets, input.readReference(), "rocket"));
+            launch.setLaunchServiceProvider(resolve(providers, input.readReference(), "provider"));
+            Set<Payload> payload = resolveAll(payloads, input.readReferences(), "payload");
+            if (null != payload && !payload.isEmpty()) {
+                launch.setPayload(payload);
+            }
+            setIfPresent(input.readString(), launch::setLaunchSite);
+            setIfPresent(input.readString(), launch::setOrbit);
+            setIfPresent(input.readString(), launch::setFunction);
+            BigDecimal price = input.readDecimal();
+            if (null != price) {
+                launch.setPrice(price);
+            }
+            launch.setLaunchOutcome(input.readEnum(Launch.LaunchOutcome.class));
+            add(launch, id, wikilink, launches, launchList);
+        });
+
+        Map<Long, User> users = new HashMap<>();
+        List<User> userList = new ArrayList<>();
+        readAll(input, id -> {
+            String wikilink = input.readString();
+            User user = new User();
+            setIfPresent(input.readString(), user::setFirstName);
+            setIfPresent(input.readString(), user::setLastName);
+            setIfPresent(input.readString(), user::setEmail);
+            setIfPresent(input.readString(), user::setPassword);
+            add(user, id, wikilink, users, userList);
+        });
+
+        // the relationships to entities written later are linked once they are all read
+        for (int i = 0; i < providerList.size(); i++) {
+            Set<Rocket> related = resolveAll(rockets, providerRockets.get(i), "rocket");
+            if (null != related) {
+                providerList.get(i).getRockets().addAll(related);
+            }
+        }
+        for (int i = 0; i < rocketList.size(); i++) {
+            Set<Launch> related = resolveAll(launches, rocketLaunches.get(i), "launch");
+            if (null != related) {
+                rocketList.get(i).getLaunches().addAll(related);
+            }
+        }
+        return new Snapshot(providerList, rocketList, payloadList, launchList, userList);
+    }
+
+    private interface RecordReader {
+        void read(long id) throws IOException;
+    }
+
+    private static void readAll(SnapshotInput input, RecordReader record) throws IOException {
+        for (int tag = input.readByte(); END != tag; tag = input.readByte()) {
+            if (RECORD != tag)
+                throw new IOException("corrupt snapshot: unknown record " + tag);
+            try {
+                record.read(input.readId());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IOException("corrupt snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static <T extends Entity> void add(T entity, long id, String wikilink, Map<Long, T> byId, List<T> all) {
+        entity.setId(id);
+        entity.setWikilink(wikilink);
+        byId.put(id, entity);
+        all.add(entity);
+    }
+
+    // the setters reject null and blank values, which the defaults stand for
+    private static void setIfPresent(String value, Consumer<String> setter) {
+        if (null != value && !value.isEmpty()) {
+            setter.accept(value);
+        }
+    }
+
+    private static <T extends Entity> T resolve(Map<Long, T> entities, Long id, String type) throws IOException {
+        if (null == id) {
+            return null;
+        }
+        T entity = entities.get(id);
+        if (null == entity)
+            throw new IOException("corrupt snapshot: no " + type + " " + id);
+        return entity;
+    }
+
+    private static <T extends Entity> Set<T> resolveAll(Map<Long, T> entities, long[] ids, String type) throws IOException {
+        if (null == ids) {
+            return null;
+        }
+        Set<T> resolved = new LinkedHashSet<>();
+        for (long id : ids) {
+            resolved.add(resolve(entities, id, type));
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,160 @@
+package rockets.dataaccess.snapshot;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the values written by {@link SnapshotOutput}. A malformed value is reported as an
+ * {@link IOException}, as a truncated file is. Arrays grow as their elements are read, so
+ * that a corrupt length runs into the end of the stream instead of allocating up to it.
+ */
+class SnapshotInput implements AutoCloseable {
+    // the most elements allocated before any is read
+    private static final int CHUNK = 8192;
+
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+
+    SnapshotInput(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    int readByte() throws IOException {
+        return in.readUnsignedByte();
+    }
+
+    int readInt() throws IOException {
+        long value = readLong();
+        if (value != (int) value)
+            throw new IOException("corrupt snapshot: int out of range");
+        return (int) value;
+    }
+
+    long readLong() throws IOException {
+        long value = readUnsigned();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readUnsigned() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("corrupt snapshot: number too long");
+    }
+
+    boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    String readString() throws IOException {
+        long tag = readUnsigned();
+        if (0 == tag) {
+            return null;
+        }
+        if (1 == tag) {
+            byte[] bytes = readBytes();
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (dictionary.size() < SnapshotOutput.DICTIONARY_CAPACITY) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+        if (tag - 2 >= dictionary.size())
+            throw new IOException("corrupt snapshot: unknown string " + (tag - 2));
+        return dictionary.get((int) (tag - 2));
+    }
+
+    LocalDate readDate() throws IOException {
+        return readBoolean() ? LocalDate.ofEpochDay(readLong()) : null;
+    }
+
+    BigDecimal readDecimal() throws IOException {
+        if (!readBoolean()) {
+            return null;
+        }
+        int scale = readInt();
+        byte[] unscaled = readBytes();
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        long ordinal = readUnsigned();
+        if (0 == ordinal) {
+            return null;
+        }
+        E[] constants = type.getEnumConstants();
+        if (ordinal > constants.length)
+            throw new IOException("corrupt snapshot: unknown " + type.getSimpleName() + " " + (ordinal - 1));
+        return constants[(int) ordinal - 1];
+    }
+
+    long readId() throws IOException {
+        return readUnsigned();
+    }
+
+    /**
+     * @return the id of the related entity, or null if there is none.
+     */
+    Long readReference() throws IOException {
+        long reference = readUnsigned();
+        return (0 == reference) ? null : reference - 1;
+    }
+
+    /**
+     * @return the ids of the related entities, or null if the collection was null.
+     */
+    long[] readReferences() throws IOException {
+        long count = readUnsigned();
+        if (0 == count) {
+            return null;
+        }
+        if (count - 1 > Integer.MAX_VALUE)
+            throw new IOException("corrupt snapshot: length out of range");
+        int length = (int) (count - 1);
+        long[] ids = new long[Math.min(length, CHUNK)];
+        for (int i = 0; i < length; i++) {
+            if (i == ids.length) {
+                ids = Arrays.copyOf(ids, (int) Math.min(length, 2L * i));
+            }
+            ids[i] = readUnsigned();
+        }
+        return ids;
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = length();
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        in.readFully(bytes);
+        while (bytes.length < length) {
+            int read = bytes.length;
+            bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * read));
+            in.readFully(bytes, read, bytes.length - read);
+        }
+        return bytes;
+    }
+
+    private int length() throws IOException {
+        long length = readUnsigned();
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("corrupt snapshot: length out of range");
+        return (int) length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
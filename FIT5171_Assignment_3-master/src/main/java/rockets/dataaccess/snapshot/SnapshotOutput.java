@@ -0,0 +1,145 @@
+package rockets.dataaccess.snapshot;
+
+import rockets.model.Entity;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the values of a snapshot in its compact encoding, read back by {@link SnapshotInput}.
+ * Numbers are variable-length, so small ones take one byte, and a string repeated in the
+ * file, e.g. a country or an orbit, is written once and then referred to by number.
+ */
+class SnapshotOutput implements AutoCloseable {
+    // strings are numbered until the dictionary is full, so that its size stays bounded
+    static final int DICTIONARY_CAPACITY = 1 << 16;
+
+    private static final int NULL = 0;
+    private static final int NEW_STRING = 1;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    SnapshotOutput(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    // zig-zag, so that small negative values are short too
+    void writeLong(long value) throws IOException {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    void writeUnsigned(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    void writeString(String value) throws IOException {
+        if (null == value) {
+            writeUnsigned(NULL);
+            return;
+        }
+        Integer number = dictionary.get(value);
+        if (null != number) {
+            writeUnsigned(number + 2L);
+            return;
+        }
+        if (dictionary.size() < DICTIONARY_CAPACITY) {
+            dictionary.put(value, dictionary.size());
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(NEW_STRING);
+        writeUnsigned(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeDate(LocalDate value) throws IOException {
+        writeBoolean(null != value);
+        if (null != value) {
+            writeLong(value.toEpochDay());
+        }
+    }
+
+    void writeDecimal(BigDecimal value) throws IOException {
+        writeBoolean(null != value);
+        if (null != value) {
+            writeInt(value.scale());
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeUnsigned(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    void writeEnum(Enum<?> value) throws IOException {
+        writeUnsigned((null == value) ? NULL : value.ordinal() + 1L);
+    }
+
+    /**
+     * Writes the id of an entity, which must have one.
+     */
+    void writeId(Entity entity) throws IOException {
+        if (null == entity.getId())
+            throw new IllegalArgumentException("entity must have an id");
+        writeUnsigned(entity.getId());
+    }
+
+    /**
+     * Writes a reference to a related entity, or to none.
+     */
+    void writeReference(Entity entity) throws IOException {
+        if (null == entity) {
+            writeUnsigned(NULL);
+        } else {
+            if (null == entity.getId())
+                throw new IllegalArgumentException("related entity must have an id");
+            writeUnsigned(entity.getId() + 1);
+        }
+    }
+
+    /**
+     * Writes references to the entities of a collection, or to none if it is null.
+     */
+    void writeReferences(Collection<? extends Entity> entities) throws IOException {
+        if (null == entities) {
+            writeUnsigned(NULL);
+            return;
+        }
+        writeUnsigned(entities.size() + 1L);
+        for (Entity entity : entities) {
+            if (null == entity || null == entity.getId())
+                throw new IllegalArgumentException("related entity must have an id");
+            writeUnsigned(entity.getId());
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
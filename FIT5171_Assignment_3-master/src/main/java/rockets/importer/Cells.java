@@ -0,0 +1,60 @@
+package rockets.importer;
+
+import org.apache.commons.csv.CSVRecord;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the cells of the datasets, which were copied from Wikipedia tables, so their
+ * values carry footnote marks, e.g. "Long March 11[22]", and may span lines.
+ */
+final class Cells {
+    private static final Pattern FOOTNOTES = Pattern.compile("\\[[^\\]]*\\]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private Cells() {
+    }
+
+    static boolean isBlank(CSVRecord record, int column) {
+        return column >= record.size() || record.get(column).trim().isEmpty();
+    }
+
+    /**
+     * @return the value without footnote marks and line breaks, or "" if there is none.
+     */
+    static String clean(CSVRecord record, int column) {
+        return (column >= record.size()) ? "" : clean(record.get(column));
+    }
+
+    /**
+     * @return the value without footnote marks and line breaks, or "" if it is null.
+     */
+    static String clean(String value) {
+        if (null == value) {
+            return "";
+        }
+        return WHITESPACE.matcher(withoutFootnotes(value)).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return the first line of the value without footnote marks, or "" if there is none.
+     */
+    static String firstLine(CSVRecord record, int column) {
+        if (column >= record.size()) {
+            return "";
+        }
+        return withoutFootnotes(record.get(column).split("\n")[0]).trim();
+    }
+
+    /**
+     * @return the name in the form names are matched in, ignoring case.
+     */
+    static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String withoutFootnotes(String value) {
+        return FOOTNOTES.matcher(value).replaceAll("");
+    }
+}
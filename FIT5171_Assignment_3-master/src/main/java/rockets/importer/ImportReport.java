@@ -0,0 +1,84 @@
+package rockets.importer;
+
+/**
+ * What an import did: the records it read, the entities it saved, and the records it
+ * skipped, which are logged with the reason, and how fast it went. An import of changes
+ * also tells the entities it left as they were, and those whose rows are gone from the
+ * source, and whether it deleted them.
+ */
+public final class ImportReport {
+    private final long recordsRead;
+    private final long saved;
+    private final long skipped;
+    private final long unchanged;
+    private final long missing;
+    private final long deleted;
+    private final long millis;
+
+    public ImportReport(long recordsRead, long saved, long skipped, long millis) {
+        this(recordsRead, saved, skipped, 0, 0, 0, millis);
+    }
+
+    public ImportReport(long recordsRead, long saved, long skipped, long unchanged, long missing, long deleted,
+                        long millis) {
+        this.recordsRead = recordsRead;
+        this.saved = saved;
+        this.skipped = skipped;
+        this.unchanged = unchanged;
+        this.missing = missing;
+        this.deleted = deleted;
+        this.millis = millis;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getSaved() {
+        return saved;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the entities not saved, as their rows did not change since the last import.
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return the entities of the last import whose rows are no longer in the source.
+     */
+    public long getMissing() {
+        return missing;
+    }
+
+    /**
+     * @return the missing entities that were deleted.
+     */
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return the records read per second, counting at least a millisecond.
+     */
+    public double getRecordsPerSecond() {
+        return recordsRead * 1000.0 / Math.max(1, millis);
+    }
+
+    @Override
+    public String toString() {
+        String changes = (0 == unchanged && 0 == missing) ? ""
+                : String.format(", unchanged %d, missing %d, deleted %d", unchanged, missing, deleted);
+        return String.format("read %d records, saved %d, skipped %d%s in %d ms (%.0f records/s)",
+                recordsRead, saved, skipped, changes, millis, getRecordsPerSecond());
+    }
+}
@@ -0,0 +1,558 @@
+package rockets.importer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.ingest.IngestPipeline;
+import rockets.ingest.StageStats;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports the launches of the "Rocket launches 2010- - 2018.csv" dataset, a year of
+ * launches laid out as on Wikipedia:
+ * <ul>
+ * <li>three header rows, then month headings and navigation rows, which are skipped,</li>
+ * <li>a launch row: date and time, rocket, launch site and provider,</li>
+ * <li>the rows continuing it: one per payload, with its operator, orbit, function,
+ * decay and outcome, and remarks, which are skipped.</li>
+ * </ul>
+ * The file is streamed through an {@link IngestPipeline}: the records of one launch are
+ * grouped as they are read on the calling thread, then parsed on a few threads, checked
+ * for a day, referred to their provider and saved in batches through
+ * {@link DAO#createOrUpdateAll}, one thread each. Only a few launches are between the
+ * stages at a time, so memory stays bounded whatever the file size. The entities are only
+ * assembled on the thread that saves them, so no two threads touch them at once; launches
+ * parsed on more than one thread may be saved out of file order.
+ * <p>
+ * Providers are matched to the stored ones, or to the {@link ProviderDirectory}, which
+ * gives their country and year founded, and rockets to the stored ones by name and
+ * provider; a new rocket takes its provider's country. Launches refer to their rocket and
+ * provider, and take the orbit and function of their first payload; a launch failed if a
+ * payload's outcome says the launch failed, partially or not. Launches without a day,
+ * e.g. "March (TBD)", and launches by providers that are not known are skipped. A launch
+ * stored for the year with the same date, rocket, provider and site is updated, along
+ * with its payloads of the names of those read, so importing a file again saves no launch
+ * or payload twice, even if an outcome changed.
+ * <p>
+ * {@link #importChangesFrom} saves only the launches whose rows are new or changed since
+ * the last import of changes, which it tells by the {@link RowFingerprints} of each
+ * launch's rows, by the year, day, rocket and site of the launch. The launches of that
+ * import whose rows are gone are reported, and deleted with their payloads only if asked,
+ * so a refresh writes in proportion to what changed.
+ */
+public class LaunchCsvImporter {
+    private static Logger logger = LoggerFactory.getLogger(LaunchCsvImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int HEADER_RECORDS = 3;
+    // launches queued in front of each stage, per parser thread
+    private static final int PARSED_AHEAD = 4;
+
+    private static final int DATE = 0;
+    private static final int ROCKET = 1;
+    private static final int SITE = 3;
+    private static final int PROVIDER = 5;
+    private static final int PAYLOAD = 1;
+    private static final int ORBIT = 3;
+    private static final int FUNCTION = 4;
+    private static final int DECAY = 5;
+    private static final int OUTCOME = 6;
+
+    // e.g. "8 January", or "1/2 March" for a window across midnight
+    private static final Pattern DAY_AND_MONTH = Pattern.compile("(\\d{1,2})(?:/\\d{1,2})?\\s+([A-Za-z]+)");
+
+    private final DAO dao;
+    private final int year;
+    private final ProviderDirectory directory;
+    private final int batchSize;
+    private final int threads;
+
+    /**
+     * @param dao  the DAO to save the launches with.
+     * @param year the year of the launches, which the file leaves out.
+     */
+    public LaunchCsvImporter(DAO dao, int year) {
+        this(dao, year, ProviderDirectory.load(), DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param dao       the DAO to save the launches with.
+     * @param year      the year of the launches, which the file leaves out.
+     * @param directory the providers to create those that are not stored yet from.
+     * @param batchSize the number of launches saved at once.
+     * @param threads   the number of threads to parse launches on.
+     */
+    public LaunchCsvImporter(DAO dao, int year, ProviderDirectory directory, int batchSize, int threads) {
+        if (null == dao)
+            throw new NullPointerException("dao cannot be null");
+        if (null == directory)
+            throw new NullPointerException("directory cannot be null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batch size must be positive");
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive");
+        this.dao = dao;
+        this.year = year;
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.threads = threads;
+    }
+
+    public ImportReport importFrom(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * @param reader the CSV to import, which is not closed.
+     * @return what was imported.
+     * @throws IOException if the CSV cannot be read.
+     */
+    public ImportReport importFrom(Reader reader) throws IOException {
+        return importFrom(reader, null, false);
+    }
+
+    /**
+     * Imports the launches whose rows changed since the import that wrote the fingerprint
+     * file, and writes it anew.
+     *
+     * @param file             the CSV to import.
+     * @param fingerprintFile  the fingerprints of the last import, which may not exist yet.
+     * @param deleteMissing    whether to delete the launches whose rows are gone.
+     * @return what was imported.
+     * @throws IOException if the CSV or the fingerprints cannot be read or written.
+     */
+    public ImportReport importChangesFrom(Path file, Path fingerprintFile, boolean deleteMissing)
+            throws IOException {
+        RowFingerprints fingerprints = RowFingerprints.read(fingerprintFile);
+        ImportReport report;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            report = importChangesFrom(reader, fingerprints, deleteMissing);
+        }
+        fingerprints.write(fingerprintFile);
+        return report;
+    }
+
+    /**
+     * @param reader        the CSV to import, which is not closed.
+     * @param fingerprints  the fingerprints of the last import, updated to this one.
+     * @param deleteMissing whether to delete the launches whose rows are gone.
+     * @return what was imported.
+     * @throws IOException if the CSV cannot be read.
+     */
+    public ImportReport importChangesFrom(Reader reader, RowFingerprints fingerprints, boolean deleteMissing)
+            throws IOException {
+        if (null == fingerprints)
+            throw new NullPointerException("fingerprints cannot be null");
+        return importFrom(reader, fingerprints, deleteMissing);
+    }
+
+    /**
+     * @throws IllegalStateException if launches failed in a stage, e.g. as the DAO failed
+     *                               to save them, after the others were saved.
+     */
+    private ImportReport importFrom(Reader reader, RowFingerprints fingerprints, boolean deleteMissing)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Assembler assembler = new Assembler(fingerprints);
+        LaunchReader launches = new LaunchReader(CSVFormat.DEFAULT.parse(reader).iterator(), assembler);
+        List<StageStats> stats = IngestPipeline.<LaunchRows>builder()
+                .queueCapacity(threads * PARSED_AHEAD)
+                .parse(rows -> parseLaunch(rows.records, rows.key, rows.fingerprint), threads)
+                .validate(assembler::validate, 1)
+                .resolve(assembler::resolve, 1)
+                .write(assembler::save, batchSize, 1)
+                .run(() -> launches);
+        for (StageStats stage : stats) {
+            if (stage.getErrors() > 0)
+                throw new IllegalStateException(stage.getErrors() + " launches failed to " + stage.getName(),
+                        assembler.failure);
+        }
+        if (null != fingerprints) {
+            assembler.removeMissing(deleteMissing);
+        }
+        long saved = stats.get(3).getProcessed();
+        long skipped = stats.get(1).getDropped() + stats.get(2).getDropped();
+        ImportReport report = new ImportReport(launches.read, saved, skipped, assembler.unchanged,
+                assembler.missing, assembler.deleted, System.currentTimeMillis() - start);
+        logger.info("imported launches: " + report);
+        return report;
+    }
+
+    // the records of one launch, with the key and fingerprint the last import of changes knows them by
+    private static final class LaunchRows {
+        private final List<CSVRecord> records;
+        private final String key;
+        private final String fingerprint;
+
+        LaunchRows(List<CSVRecord> records, String key, String fingerprint) {
+            this.records = records;
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    // groups the records of each launch as they are read, leaving out the launches whose rows did not change
+    private static final class LaunchReader implements Iterator<LaunchRows> {
+        private final Iterator<CSVRecord> records;
+        private final Assembler assembler;
+        // the records of the launch being read
+        private List<CSVRecord> launch;
+        private LaunchRows next;
+        private long read;
+
+        LaunchReader(Iterator<CSVRecord> records, Assembler assembler) {
+            this.records = records;
+            this.assembler = assembler;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == next) {
+                next = readLaunch();
+            }
+            return null != next;
+        }
+
+        @Override
+        public LaunchRows next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            LaunchRows rows = next;
+            next = null;
+            return rows;
+        }
+
+        private LaunchRows readLaunch() {
+            while (records.hasNext()) {
+                CSVRecord record = records.next();
+                read++;
+                if (record.getRecordNumber() <= HEADER_RECORDS) {
+                    continue;
+                }
+                if (Cells.isBlank(record, DATE)) {
+                    if (null != launch) {
+                        launch.add(record);
+                    }
+                    continue;
+                }
+                // a launch row, or a heading, either of which ends the launch before
+                List<CSVRecord> ended = launch;
+                launch = Cells.isBlank(record, ROCKET) ? null : new ArrayList<>(Arrays.asList(record));
+                LaunchRows rows = (null == ended) ? null : assembler.changed(ended);
+                if (null != rows) {
+                    return rows;
+                }
+            }
+            List<CSVRecord> ended = launch;
+            launch = null;
+            return (null == ended) ? null : assembler.changed(ended);
+        }
+    }
+
+    // the values of one launch, parsed off the thread that saves it, so they refer to no entity but its provider
+    private static final class ParsedLaunch {
+        private long record;
+        private String key;
+        private String fingerprint;
+        private String skipped;
+        private LocalDate date;
+        private String rocket;
+        private String site;
+        private String provider;
+        private LaunchServiceProvider resolved;
+        private String orbit;
+        private String function;
+        private Launch.LaunchOutcome outcome;
+        private final Set<Payload> payloads = new LinkedHashSet<>();
+    }
+
+    private ParsedLaunch parseLaunch(List<CSVRecord> records, String key, String fingerprint) {
+        CSVRecord row = records.get(0);
+        ParsedLaunch launch = new ParsedLaunch();
+        launch.record = row.getRecordNumber();
+        launch.key = key;
+        launch.fingerprint = fingerprint;
+        launch.rocket = Cells.clean(row, ROCKET);
+        launch.site = Cells.clean(row, SITE);
+        launch.provider = Cells.clean(row, PROVIDER);
+        // the time, if any, is on the second line
+        String day = Cells.firstLine(row, DATE);
+        Matcher matcher = DAY_AND_MONTH.matcher(day);
+        if (!matcher.matches()) {
+            launch.skipped = "no day in '" + day + "'";
+            return launch;
+        }
+        try {
+            Month month = Month.valueOf(matcher.group(2).toUpperCase(Locale.ROOT));
+            launch.date = LocalDate.of(year, month, Integer.parseInt(matcher.group(1)));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            launch.skipped = "no date in '" + day + "'";
+            return launch;
+        }
+
+        boolean failed = false;
+        boolean flown = false;
+        for (CSVRecord payload : records.subList(1, records.size())) {
+            if (Cells.isBlank(payload, ORBIT) && Cells.isBlank(payload, FUNCTION) && Cells.isBlank(payload, OUTCOME)) {
+                // remarks
+                continue;
+            }
+            String orbit = Cells.clean(payload, ORBIT);
+            String function = Cells.clean(payload, FUNCTION);
+            String outcome = Cells.clean(payload, OUTCOME).toLowerCase(Locale.ROOT);
+            if (null == launch.orbit && !orbit.isEmpty()) {
+                launch.orbit = orbit;
+            }
+            if (null == launch.function && !function.isEmpty()) {
+                launch.function = function;
+            }
+            failed |= outcome.contains("launch failure");
+            flown |= !outcome.isEmpty();
+            boolean active = outcome.startsWith("operational") || "in orbit".equalsIgnoreCase(Cells.clean(payload, DECAY));
+            launch.payloads.add(new Payload(Cells.clean(payload, PAYLOAD), orbit, 0, function, active));
+        }
+        if (flown) {
+            launch.outcome = failed ? Launch.LaunchOutcome.FAILED : Launch.LaunchOutcome.SUCCESSFUL;
+        }
+        return launch;
+    }
+
+    // the steps of the pipeline but parsing; each is run on one thread of its own, and so touches
+    // only what it alone uses, but for the fingerprints, which take their keys from the calling
+    // thread and their ids from the saving one
+    private final class Assembler {
+        private final RowFingerprints fingerprints;
+        // the keys of the launches read, in the form the fingerprints have them
+        private final Set<String> keys = new HashSet<>();
+        private final Set<Long> savedIds = new HashSet<>();
+        private Providers providers;
+        private Map<List<String>, Rocket> rockets;
+        // the stored launches of the year, by date, rocket, provider and site
+        private Map<List<Object>, Launch> stored;
+        private volatile RuntimeException failure;
+        private long unchanged;
+        private long missing;
+        private long deleted;
+
+        Assembler(RowFingerprints fingerprints) {
+            this.fingerprints = fingerprints;
+        }
+
+        // e.g. "2018 8 January Falcon 9 Full Thrust @ Cape Canaveral SLC-40", made unique
+        private String key(CSVRecord row) {
+            String key = year + " " + Cells.firstLine(row, DATE) + " " + Cells.clean(row, ROCKET) + " @ "
+                    + Cells.clean(row, SITE);
+            String unique = key;
+            for (int i = 2; !keys.add(unique); i++) {
+                unique = key + " #" + i;
+            }
+            return unique;
+        }
+
+        // the records of a launch, or null if they did not change since the last import of changes
+        LaunchRows changed(List<CSVRecord> launch) {
+            String key = key(launch.get(0));
+            String fingerprint = null;
+            if (null != fingerprints) {
+                fingerprint = RowFingerprints.of(launch);
+                if (fingerprints.matches(key, fingerprint)) {
+                    unchanged++;
+                    return null;
+                }
+            }
+            return new LaunchRows(launch, key, fingerprint);
+        }
+
+        ParsedLaunch validate(ParsedLaunch parsed) {
+            if (null != parsed.skipped) {
+                skip(parsed, parsed.skipped);
+                return null;
+            }
+            return parsed;
+        }
+
+        ParsedLaunch resolve(ParsedLaunch parsed) {
+            if (null == providers) {
+                // left until a launch changed, as an import of no changes needs none
+                providers = new Providers(dao, directory);
+            }
+            parsed.resolved = providers.lookup(parsed.provider);
+            if (null == parsed.resolved) {
+                skip(parsed, "unknown provider '" + parsed.provider + "'");
+                return null;
+            }
+            return parsed;
+        }
+
+        void save(List<ParsedLaunch> parsed) {
+            if (null == rockets) {
+                loadRocketsAndLaunches();
+            }
+            List<Launch> batch = new ArrayList<>(parsed.size());
+            for (ParsedLaunch launch : parsed) {
+                batch.add(assemble(launch));
+            }
+            try {
+                dao.createOrUpdateAll(batch);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Launch launch = batch.get(i);
+                savedIds.add(launch.getId());
+                if (null != fingerprints) {
+                    fingerprints.put(parsed.get(i).key, parsed.get(i).fingerprint, launch.getId());
+                }
+            }
+        }
+
+        private Launch assemble(ParsedLaunch parsed) {
+            LaunchServiceProvider provider = parsed.resolved;
+            Launch launch = new Launch(parsed.date, rocket(parsed.rocket, provider), provider, parsed.orbit);
+            if (!parsed.site.isEmpty()) {
+                launch.setLaunchSite(parsed.site);
+            }
+            if (null != parsed.function) {
+                launch.setFunction(parsed.function);
+            }
+            Launch previous = stored.remove(storedKey(parsed.date, parsed.rocket, provider.getName(), parsed.site));
+            if (!parsed.payloads.isEmpty()) {
+                launch.setPayload(payloads(parsed, previous));
+            }
+            launch.setLaunchOutcome(parsed.outcome);
+            Long id = (null == fingerprints) ? null : fingerprints.id(parsed.key);
+            if (null == id && null != previous) {
+                id = previous.getId();
+            }
+            if (null != id) {
+                // the launch saved from the row before, which a changed outcome would not match
+                launch.setId(id);
+            }
+            return launch;
+        }
+
+        // the launches of the last import of the year whose rows are gone
+        void removeMissing(boolean delete) {
+            for (String key : new ArrayList<>(fingerprints.keys())) {
+                if (!key.startsWith(year + " ") || keys.contains(key)) {
+                    continue;
+                }
+                missing++;
+                if (!delete) {
+                    logger.info("the launch of '" + key + "' is no longer in the file");
+                    continue;
+                }
+                Long id = fingerprints.id(key);
+                // a launch may have been saved again under a new key, e.g. if its time changed
+                Launch launch = savedIds.contains(id) ? null : dao.load(Launch.class, id);
+                if (null != launch) {
+                    if (null != launch.getPayload()) {
+                        for (Payload payload : launch.getPayload()) {
+                            dao.delete(payload);
+                        }
+                    }
+                    dao.delete(launch);
+                    deleted++;
+                    logger.info("deleted the launch of '" + key + "', which is no longer in the file");
+                }
+                fingerprints.remove(key);
+            }
+        }
+
+        private void skip(ParsedLaunch parsed, String reason) {
+            if (null != fingerprints) {
+                fingerprints.remove(parsed.key);
+            }
+            logger.warn("skipped the launch in record " + parsed.record + ": " + reason);
+        }
+
+        private void loadRocketsAndLaunches() {
+            rockets = new HashMap<>();
+            for (Rocket rocket : dao.loadAll(Rocket.class)) {
+                if (null != rocket.getManufacturer()) {
+                    rockets.putIfAbsent(Arrays.asList(Cells.key(rocket.getName()), Cells.key(rocket.getManufacturer().getName())), rocket);
+                }
+            }
+            stored = new HashMap<>();
+            for (Launch launch : dao.getLaunchesInYear(year)) {
+                if (null != launch.getLaunchVehicle() && null != launch.getLaunchServiceProvider()) {
+                    stored.putIfAbsent(storedKey(launch.getLaunchDate(), launch.getLaunchVehicle().getName(),
+                            launch.getLaunchServiceProvider().getName(), launch.getLaunchSite()), launch);
+                }
+            }
+        }
+
+        private List<Object> storedKey(LocalDate date, String rocket, String provider, String site) {
+            return Arrays.asList(date, Cells.key(rocket), Cells.key(provider), Cells.key(Cells.clean(site)));
+        }
+
+        // the payloads read, or the stored launch's payloads of their names updated with them
+        private Set<Payload> payloads(ParsedLaunch parsed, Launch stored) {
+            List<Payload> storedPayloads = (null == stored || null == stored.getPayload())
+                    ? new ArrayList<>() : new ArrayList<>(stored.getPayload());
+            Set<Payload> payloads = new LinkedHashSet<>();
+            for (Payload read : parsed.payloads) {
+                Payload payload = read;
+                for (Iterator<Payload> it = storedPayloads.iterator(); it.hasNext(); ) {
+                    Payload candidate = it.next();
+                    if (null != candidate.getName() && Cells.key(candidate.getName()).equals(Cells.key(read.getName()))) {
+                        it.remove();
+                        // the setters refuse the blank cells the payloads read may have
+                        if (!read.getDestination().isEmpty()) {
+                            candidate.setDestination(read.getDestination());
+                        }
+                        if (!read.getType().isEmpty()) {
+                            candidate.setType(read.getType());
+                        }
+                        candidate.setActive(read.isActive());
+                        payload = candidate;
+                        break;
+                    }
+                }
+                payloads.add(payload);
+            }
+            return payloads;
+        }
+
+        private Rocket rocket(String name, LaunchServiceProvider provider) {
+            return rockets.computeIfAbsent(Arrays.asList(Cells.key(name), Cells.key(provider.getName())), k -> {
+                Rocket rocket = new Rocket(name, provider.getCountry(), provider);
+                if (null != provider.getRockets()) {
+                    provider.getRockets().add(rocket);
+                }
+                return rocket;
+            });
+        }
+    }
+}
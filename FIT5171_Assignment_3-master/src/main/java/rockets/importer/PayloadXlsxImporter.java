@@ -0,0 +1,227 @@
+package rockets.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.Payload;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports the satellites of the UCS satellite database, e.g.
+ * "UCS_Satellite_Database_9-1-2017.xlsx", as the payloads of the stored launches: one
+ * satellite per row, below a header row, with its name, purpose, class of orbit, launch
+ * mass, date of launch and launch vehicle among the columns.
+ * <p>
+ * The workbook is streamed through a {@link SheetReader}, so whatever its size only the
+ * row being imported and the launches not saved yet are held. A satellite is the payload
+ * of the stored launch on its date whose rocket has its vehicle's name, or a longer one,
+ * e.g. "Falcon 9 Full Thrust" for "Falcon 9"; the launches are indexed by date once, so
+ * a row costs no query. Satellites of launches that are not stored are skipped. The
+ * payload of a launch with the satellite's name is updated, so importing the workbook
+ * again saves no payload twice, and the launches are saved in batches through
+ * {@link DAO#createOrUpdateAll}.
+ * <p>
+ * The type of a payload is the satellite's purpose, e.g. "Earth Observation", and its
+ * destination the class of orbit, e.g. "LEO". The database lists satellites in
+ * operation, so the payloads are active.
+ */
+public class PayloadXlsxImporter {
+    private static Logger logger = LoggerFactory.getLogger(PayloadXlsxImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int HEADER_ROWS = 1;
+
+    private static final int NAME = 0;
+    private static final int PURPOSE = 5;
+    private static final int ORBIT_CLASS = 7;
+    private static final int LAUNCH_MASS = 15;
+    private static final int LAUNCH_DATE = 18;
+    private static final int LAUNCH_VEHICLE = 23;
+
+    // the day before the spreadsheet day 1, counting the 29 February 1900 that never was
+    private static final LocalDate SERIAL_DAY_ZERO = LocalDate.of(1899, 12, 30);
+    private static final Pattern MASS = Pattern.compile("^(\\d{1,3}(?:,\\d{3})+|\\d+)(\\.\\d+)?");
+
+    private final DAO dao;
+    private final int batchSize;
+
+    public PayloadXlsxImporter(DAO dao) {
+        this(dao, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param dao       the DAO to save the launches with.
+     * @param batchSize the number of launches saved at once.
+     */
+    public PayloadXlsxImporter(DAO dao, int batchSize) {
+        if (null == dao)
+            throw new NullPointerException("dao cannot be null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batch size must be positive");
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param file the workbook to import.
+     * @return what was imported; the payloads saved are counted as saved.
+     * @throws IOException if the workbook cannot be read.
+     */
+    public ImportReport importFrom(Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        Import current = new Import(launchesByDate());
+        SheetReader.read(file, current::row);
+        current.save();
+
+        ImportReport report = new ImportReport(current.rowsRead, current.saved, current.skipped,
+                System.currentTimeMillis() - start);
+        logger.info("imported payloads: " + report);
+        return report;
+    }
+
+    private Map<LocalDate, List<Launch>> launchesByDate() {
+        Map<LocalDate, List<Launch>> launches = new HashMap<>();
+        for (Launch launch : dao.loadAll(Launch.class)) {
+            if (null != launch.getLaunchDate() && null != launch.getLaunchVehicle()) {
+                launches.computeIfAbsent(launch.getLaunchDate(), date -> new ArrayList<>()).add(launch);
+            }
+        }
+        return launches;
+    }
+
+    private class Import {
+        private final Map<LocalDate, List<Launch>> launches;
+        // a launch is saved once per batch, however many of its payloads are imported
+        private final Set<Launch> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+        private long rowsRead;
+        private long saved;
+        private long skipped;
+        private long payloadsInBatch;
+
+        Import(Map<LocalDate, List<Launch>> launches) {
+            this.launches = launches;
+        }
+
+        void row(int number, List<String> cells) {
+            rowsRead++;
+            if (number <= HEADER_ROWS) {
+                return;
+            }
+            String name = cell(cells, NAME);
+            String vehicle = cell(cells, LAUNCH_VEHICLE);
+            LocalDate date = date(cell(cells, LAUNCH_DATE));
+            if (name.isEmpty() || vehicle.isEmpty() || null == date) {
+                skipped++;
+                logger.warn("skipped row " + number + ": no name, launch vehicle or date of launch");
+                return;
+            }
+            Launch launch = launch(date, vehicle);
+            if (null == launch) {
+                // most satellites predate the stored launches, so these are not worth a warning
+                skipped++;
+                logger.debug("skipped row " + number + ": no launch of " + vehicle + " on " + date);
+                return;
+            }
+
+            Payload payload = payload(launch, name);
+            apply(cells, payload);
+            if (null == launch.getPayload()) {
+                launch.setPayload(new LinkedHashSet<>(Collections.singletonList(payload)));
+            } else {
+                launch.getPayload().add(payload);
+            }
+            batch.add(launch);
+            payloadsInBatch++;
+            if (batch.size() >= batchSize) {
+                save();
+            }
+        }
+
+        void save() {
+            if (!batch.isEmpty()) {
+                dao.createOrUpdateAll(new ArrayList<>(batch));
+                batch.clear();
+            }
+            saved += payloadsInBatch;
+            payloadsInBatch = 0;
+        }
+
+        private Launch launch(LocalDate date, String vehicle) {
+            List<Launch> onDate = launches.get(date);
+            if (null == onDate) {
+                return null;
+            }
+            String key = Cells.key(vehicle);
+            Launch longer = null;
+            for (Launch launch : onDate) {
+                String rocket = Cells.key(launch.getLaunchVehicle().getName());
+                if (rocket.equals(key)) {
+                    return launch;
+                }
+                if (null == longer && rocket.startsWith(key + " ")) {
+                    longer = launch;
+                }
+            }
+            return longer;
+        }
+    }
+
+    // the launch's payload of the name, taken out of its set as its hash changes with it
+    private static Payload payload(Launch launch, String name) {
+        if (null != launch.getPayload()) {
+            for (Payload payload : launch.getPayload()) {
+                if (null != payload.getName() && Cells.key(payload.getName()).equals(Cells.key(name))) {
+                    launch.getPayload().remove(payload);
+                    return payload;
+                }
+            }
+        }
+        Payload payload = new Payload();
+        payload.setName(name);
+        return payload;
+    }
+
+    private static void apply(List<String> cells, Payload payload) {
+        String purpose = cell(cells, PURPOSE);
+        if (!purpose.isEmpty()) {
+            payload.setType(purpose);
+        }
+        String orbitClass = cell(cells, ORBIT_CLASS);
+        if (!orbitClass.isEmpty()) {
+            payload.setDestination(orbitClass);
+        }
+        Matcher mass = MASS.matcher(cell(cells, LAUNCH_MASS));
+        if (mass.find()) {
+            payload.setMassKG((int) Math.round(Double.parseDouble(mass.group().replace(",", ""))));
+        }
+        payload.setActive(true);
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return (column < cells.size()) ? Cells.clean(cells.get(column)) : "";
+    }
+
+    // dates are stored as the number of days since SERIAL_DAY_ZERO
+    private static LocalDate date(String serial) {
+        try {
+            return SERIAL_DAY_ZERO.plusDays((long) Math.floor(Double.parseDouble(serial)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package rockets.importer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The launch service providers the datasets name, with the country and year founded
+ * they leave out, which a {@link rockets.model.LaunchServiceProvider} needs. Providers
+ * are looked up by name or by one of their aliases, ignoring case, e.g. "ULA" and
+ * "United Launch Alliance" are the same provider.
+ * <p>
+ * The directory is read from a CSV file with the columns <code>name</code>,
+ * <code>country</code>, <code>yearFounded</code> and <code>aliases</code>, separated
+ * by semicolons; the default one is the resource
+ * <code>rockets/importer/launch-service-providers.csv</code>.
+ */
+public class ProviderDirectory {
+    private static final String DEFAULT_RESOURCE = "launch-service-providers.csv";
+
+    /**
+     * A provider's details as the directory lists them.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String country;
+        private final int yearFounded;
+
+        Entry(String name, String country, int yearFounded) {
+            this.name = name;
+            this.country = country;
+            this.yearFounded = yearFounded;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public int getYearFounded() {
+            return yearFounded;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private ProviderDirectory(Map<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * @return the directory shipped with the importers.
+     */
+    public static ProviderDirectory load() {
+        try (InputStream in = ProviderDirectory.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (null == in)
+                throw new IllegalStateException("missing resource " + DEFAULT_RESOURCE);
+            return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a directory.
+     *
+     * @param reader the CSV to read, which is not closed.
+     * @return the directory.
+     * @throws IOException if the CSV cannot be read.
+     */
+    public static ProviderDirectory read(Reader reader) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        for (CSVRecord record : CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader)) {
+            Entry entry = new Entry(record.get("name").trim(), record.get("country").trim(),
+                    Integer.parseInt(record.get("yearFounded").trim()));
+            entries.put(normalize(entry.getName()), entry);
+            for (String alias : record.get("aliases").split(";")) {
+                if (!alias.trim().isEmpty()) {
+                    entries.put(normalize(alias), entry);
+                }
+            }
+        }
+        return new ProviderDirectory(entries);
+    }
+
+    /**
+     * @param name the name of a provider, or one of its aliases.
+     * @return the provider's details, or null if the directory does not list it.
+     */
+    public Entry lookup(String name) {
+        return (null == name) ? null : entries.get(normalize(name));
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+package rockets.importer;
+
+import rockets.dataaccess.DAO;
+import rockets.model.LaunchServiceProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The providers an import refers to, looked up in memory: the stored providers, read
+ * once, by name, and those the {@link ProviderDirectory} lists, created on first use.
+ * Not thread-safe; an import looks providers up on one thread.
+ */
+class Providers {
+    private final ProviderDirectory directory;
+    private final Map<String, LaunchServiceProvider> providers = new HashMap<>();
+
+    Providers(DAO dao, ProviderDirectory directory) {
+        this.directory = directory;
+        for (LaunchServiceProvider provider : dao.loadAll(LaunchServiceProvider.class)) {
+            providers.putIfAbsent(Cells.key(provider.getName()), provider);
+        }
+    }
+
+    /**
+     * @param name the name of a provider, or one of its aliases.
+     * @return the provider, or null if it is neither stored nor in the directory.
+     */
+    LaunchServiceProvider lookup(String name) {
+        ProviderDirectory.Entry entry = directory.lookup(name);
+        String key = Cells.key((null == entry) ? name : entry.getName());
+        LaunchServiceProvider provider = providers.get(key);
+        if (null == provider && null != entry) {
+            provider = new LaunchServiceProvider(entry.getName(), entry.getYearFounded(), entry.getCountry());
+            providers.put(key, provider);
+        }
+        return provider;
+    }
+}
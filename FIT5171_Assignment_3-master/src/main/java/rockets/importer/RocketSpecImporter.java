@@ -0,0 +1,208 @@
+package rockets.importer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports the rocket specifications of the "Rocket launches 2010- - comparison.csv"
+ * dataset: per vehicle its origin, manufacturer, mass to LEO, GTO and other orbits, and
+ * the years of its first and latest flight, below two header rows.
+ * <p>
+ * The specifications are set on every stored rocket of the same name, ignoring case. A
+ * vehicle that is not stored yet is created, made by its manufacturer, which is matched
+ * to the stored providers or to the {@link ProviderDirectory}; vehicles of unknown
+ * manufacturers are skipped. Stored rockets and providers are read once, so a record
+ * costs no query, and the rockets are saved in batches through
+ * {@link DAO#createOrUpdateAll}.
+ * <p>
+ * The cells hold more than the rocket keeps, so a mass is the first number of its cell,
+ * e.g. 22800 for "22,800 expended (PAF structural limit: 10,886)", and a year the first
+ * year of its cell, e.g. 2020 for "Q4 2020". Empty cells leave the rocket as it is.
+ */
+public class RocketSpecImporter {
+    private static Logger logger = LoggerFactory.getLogger(RocketSpecImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int HEADER_RECORDS = 2;
+
+    private static final int VEHICLE = 0;
+    private static final int ORIGIN = 1;
+    private static final int MANUFACTURER = 2;
+    private static final int MASS_TO_LEO = 3;
+    private static final int MASS_TO_GTO = 4;
+    private static final int MASS_TO_OTHER = 5;
+    private static final int FIRST_FLIGHT = 7;
+    private static final int LATEST_FLIGHT = 8;
+
+    private static final Pattern MASS = Pattern.compile("^(\\d{1,3}(?:,\\d{3})+|\\d+)");
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+
+    private final DAO dao;
+    private final ProviderDirectory directory;
+    private final int batchSize;
+
+    public RocketSpecImporter(DAO dao) {
+        this(dao, ProviderDirectory.load(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param dao       the DAO to save the rockets with.
+     * @param directory the providers to create the manufacturers that are not stored yet from.
+     * @param batchSize the number of rockets saved at once.
+     */
+    public RocketSpecImporter(DAO dao, ProviderDirectory directory, int batchSize) {
+        if (null == dao)
+            throw new NullPointerException("dao cannot be null");
+        if (null == directory)
+            throw new NullPointerException("directory cannot be null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batch size must be positive");
+        this.dao = dao;
+        this.directory = directory;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReport importFrom(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * @param reader the CSV to import, which is not closed.
+     * @return what was imported.
+     * @throws IOException if the CSV cannot be read.
+     */
+    public ImportReport importFrom(Reader reader) throws IOException {
+        long start = System.currentTimeMillis();
+        Providers providers = new Providers(dao, directory);
+        Map<String, List<Rocket>> rockets = new HashMap<>();
+        for (Rocket rocket : dao.loadAll(Rocket.class)) {
+            rockets.computeIfAbsent(Cells.key(rocket.getName()), name -> new ArrayList<>()).add(rocket);
+        }
+
+        // a rocket is saved once per batch, however many records name it
+        Set<Rocket> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+        long recordsRead = 0;
+        long saved = 0;
+        long skipped = 0;
+        for (CSVRecord record : CSVFormat.DEFAULT.parse(reader)) {
+            recordsRead++;
+            if (record.getRecordNumber() <= HEADER_RECORDS) {
+                continue;
+            }
+            String name = Cells.firstLine(record, VEHICLE);
+            if (name.isEmpty()) {
+                skipped++;
+                logger.warn("skipped record " + record.getRecordNumber() + ": no vehicle");
+                continue;
+            }
+            List<Rocket> named = rockets.get(Cells.key(name));
+            if (null == named) {
+                Rocket created = create(name, record, providers);
+                if (null == created) {
+                    skipped++;
+                    logger.warn("skipped record " + record.getRecordNumber() + ": unknown manufacturer '"
+                            + manufacturer(record) + "' of " + name);
+                    continue;
+                }
+                named = new ArrayList<>(Collections.singletonList(created));
+                rockets.put(Cells.key(name), named);
+            }
+            for (Rocket rocket : named) {
+                apply(record, rocket);
+                batch.add(rocket);
+            }
+            if (batch.size() >= batchSize) {
+                saved += save(batch);
+            }
+        }
+        saved += save(batch);
+
+        ImportReport report = new ImportReport(recordsRead, saved, skipped, System.currentTimeMillis() - start);
+        logger.info("imported rocket specifications: " + report);
+        return report;
+    }
+
+    private int save(Set<Rocket> batch) {
+        int size = batch.size();
+        if (size > 0) {
+            dao.createOrUpdateAll(new ArrayList<>(batch));
+            batch.clear();
+        }
+        return size;
+    }
+
+    private static Rocket create(String name, CSVRecord record, Providers providers) {
+        LaunchServiceProvider manufacturer = providers.lookup(manufacturer(record));
+        if (null == manufacturer) {
+            return null;
+        }
+        String origin = Cells.firstLine(record, ORIGIN);
+        Rocket rocket = new Rocket(name, origin.isEmpty() ? manufacturer.getCountry() : origin, manufacturer);
+        if (null != manufacturer.getRockets()) {
+            manufacturer.getRockets().add(rocket);
+        }
+        return rocket;
+    }
+
+    // the first of the manufacturers a cell lists, e.g. "CASIC" for "CASIC / ExPace"
+    private static String manufacturer(CSVRecord record) {
+        return Cells.firstLine(record, MANUFACTURER).split(" / ")[0].trim();
+    }
+
+    private static void apply(CSVRecord record, Rocket rocket) {
+        String massToLEO = mass(record, MASS_TO_LEO);
+        if (null != massToLEO) {
+            rocket.setMassToLEO(massToLEO);
+        }
+        String massToGTO = mass(record, MASS_TO_GTO);
+        if (null != massToGTO) {
+            rocket.setMassToGTO(massToGTO);
+        }
+        String massToOther = mass(record, MASS_TO_OTHER);
+        if (null != massToOther) {
+            rocket.setMassToOther(massToOther);
+        }
+        Integer firstFlight = year(record, FIRST_FLIGHT);
+        if (null != firstFlight) {
+            rocket.setFirstYearFlight(firstFlight);
+        }
+        Integer latestFlight = year(record, LATEST_FLIGHT);
+        if (null != latestFlight) {
+            rocket.setLatestYearFlight(latestFlight);
+        }
+    }
+
+    // the first number of the cell without its thousands separators, or null if it has none
+    private static String mass(CSVRecord record, int column) {
+        Matcher matcher = MASS.matcher(Cells.firstLine(record, column));
+        return matcher.find() ? matcher.group(1).replace(",", "") : null;
+    }
+
+    private static Integer year(CSVRecord record, int column) {
+        Matcher matcher = YEAR.matcher(Cells.clean(record, column));
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+}
@@ -0,0 +1,160 @@
+package rockets.importer;
+
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What an import saved from each row of its source, or group of rows that makes one
+ * entity: a fingerprint, i.e. a hash of the row's content, and the id of the entity,
+ * by a key that identifies the row across versions of the source. An import compares
+ * the rows it reads with these, to save only those that are new or changed.
+ * <p>
+ * The fingerprints are kept in a text file of one line per row, the fingerprint, the id
+ * and the key separated by tabs, below a header line. They describe what the DAO they
+ * were saved to holds, so they are to be deleted if it is rebuilt otherwise.
+ * <p>
+ * The rows may be looked up and put from the threads of one import at once.
+ */
+public final class RowFingerprints {
+    private static final String HEADER = "# row fingerprints 1";
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long id;
+
+        Entry(String fingerprint, long id) {
+            this.fingerprint = fingerprint;
+            this.id = id;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param file the fingerprints to read.
+     * @return the fingerprints, which are none if there is no such file.
+     * @throws IOException if the file cannot be read, or is not one of fingerprints.
+     */
+    public static RowFingerprints read(Path file) throws IOException {
+        RowFingerprints fingerprints = new RowFingerprints();
+        if (!Files.exists(file)) {
+            return fingerprints;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine()))
+                throw new IOException("not a fingerprint file: " + file);
+            for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+                String[] values = line.split("\t", 3);
+                if (3 != values.length)
+                    throw new IOException("corrupt fingerprint file: " + file);
+                try {
+                    fingerprints.put(values[2], values[0], Long.parseLong(values[1]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("corrupt fingerprint file: " + file, e);
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Writes the fingerprints to a file next to the given one first, and then moves it
+     * over, so the file is never left half written.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getValue().fingerprint + "\t" + entry.getValue().id + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return whether the row of the key was saved with this fingerprint.
+     */
+    public boolean matches(String key, String fingerprint) {
+        Entry entry = entries.get(key);
+        return null != entry && entry.fingerprint.equals(fingerprint);
+    }
+
+    /**
+     * @return the id of the entity saved from the row of the key, or null if there is none.
+     */
+    public Long id(String key) {
+        Entry entry = entries.get(key);
+        return (null == entry) ? null : entry.id;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key spans lines or tabs.
+     */
+    public void put(String key, String fingerprint, long id) {
+        if (null == key || null == fingerprint)
+            throw new NullPointerException("key and fingerprint cannot be null");
+        if (key.contains("\n") || key.contains("\r") || fingerprint.contains("\t"))
+            throw new IllegalArgumentException("key cannot span lines and fingerprint cannot contain tabs");
+        entries.put(key, new Entry(fingerprint, id));
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the SHA-256 hash of the values of the records, in hexadecimal.
+     */
+    static String of(List<CSVRecord> records) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (CSVRecord record : records) {
+            for (String value : record) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                // unit and record separators, so values cannot run into each other
+                digest.update((byte) 0x1F);
+            }
+            digest.update((byte) 0x1E);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
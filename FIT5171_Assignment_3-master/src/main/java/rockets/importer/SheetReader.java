@@ -0,0 +1,250 @@
+package rockets.importer;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the first sheet of an xlsx workbook row by row with a SAX parser, so a row is
+ * held in memory only while it is handled, never the sheet. The shared strings, which
+ * the cells of any row may refer to, are read first and kept.
+ * <p>
+ * Cells are handed over as the text the workbook stores: strings as they are, numbers,
+ * including dates, which are serial day numbers, as written, e.g. "42909", booleans as
+ * "1" or "0". A row's list is indexed by column, from 0 for column A, with null for
+ * missing cells, and is reused for the next row.
+ */
+final class SheetReader {
+    private static final String WORKBOOK = "xl/workbook.xml";
+    private static final String WORKBOOK_RELATIONSHIPS = "xl/_rels/workbook.xml.rels";
+    private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+    private static final String RELATIONSHIPS_NS =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    interface RowHandler {
+        /**
+         * @param number the row number, from 1.
+         * @param cells  the values of the row, valid until this returns.
+         */
+        void row(int number, List<String> cells);
+    }
+
+    private SheetReader() {
+    }
+
+    /**
+     * Reads the first sheet of a workbook.
+     *
+     * @param file    the workbook.
+     * @param handler called with each row, in order.
+     * @throws IOException if the workbook cannot be read, or is not one.
+     */
+    static void read(Path file, RowHandler handler) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            SAXParser parser = parser();
+            List<String> sharedStrings = sharedStrings(zip, parser);
+            parse(zip, sheet(zip, parser), parser, new SheetHandler(sharedStrings, handler));
+        }
+    }
+
+    private static SAXParser parser() throws IOException {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("cannot create an XML parser", e);
+        }
+    }
+
+    private static void parse(ZipFile zip, String name, SAXParser parser, DefaultHandler handler)
+            throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (null == entry)
+            throw new IOException("invalid workbook: missing " + name);
+        try (InputStream in = zip.getInputStream(entry)) {
+            parser.reset();
+            parser.parse(in, handler);
+        } catch (SAXException e) {
+            throw new IOException("invalid workbook: " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<String> sharedStrings(ZipFile zip, SAXParser parser) throws IOException {
+        if (null == zip.getEntry(SHARED_STRINGS)) {
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>();
+        parse(zip, SHARED_STRINGS, parser, new DefaultHandler() {
+            private StringBuilder text;
+            private boolean phonetic;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("si".equals(localName)) {
+                    text = new StringBuilder();
+                } else if ("rPh".equals(localName)) {
+                    phonetic = true;
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                // the text of an item is that of its runs, without the phonetic guides
+                if (null != text && !phonetic) {
+                    text.append(ch, start, length);
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if ("si".equals(localName)) {
+                    strings.add(text.toString());
+                    text = null;
+                } else if ("rPh".equals(localName)) {
+                    phonetic = false;
+                }
+            }
+        });
+        return strings;
+    }
+
+    // the entry of the first sheet, which the workbook names through its relationships
+    private static String sheet(ZipFile zip, SAXParser parser) throws IOException {
+        String[] id = new String[1];
+        parse(zip, WORKBOOK, parser, new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("sheet".equals(localName) && null == id[0]) {
+                    id[0] = attributes.getValue(RELATIONSHIPS_NS, "id");
+                }
+            }
+        });
+        if (null == id[0])
+            throw new IOException("invalid workbook: no sheet");
+
+        String[] target = new String[1];
+        parse(zip, WORKBOOK_RELATIONSHIPS, parser, new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("Relationship".equals(localName) && id[0].equals(attributes.getValue("Id"))) {
+                    target[0] = attributes.getValue("Target");
+                }
+            }
+        });
+        if (null == target[0])
+            throw new IOException("invalid workbook: no target for sheet " + id[0]);
+        return target[0].startsWith("/") ? target[0].substring(1) : "xl/" + target[0];
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final List<String> sharedStrings;
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+        private final StringBuilder value = new StringBuilder();
+        private int row;
+        private int column;
+        private String type;
+        private boolean inValue;
+
+        SheetHandler(List<String> sharedStrings, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName) {
+                case "row":
+                    String number = attributes.getValue("r");
+                    row = (null == number) ? row + 1 : Integer.parseInt(number);
+                    column = -1;
+                    cells.clear();
+                    break;
+                case "c":
+                    String reference = attributes.getValue("r");
+                    column = (null == reference) ? column + 1 : column(reference);
+                    type = attributes.getValue("t");
+                    value.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    inValue = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "c":
+                    while (cells.size() <= column) {
+                        cells.add(null);
+                    }
+                    cells.set(column, cellValue());
+                    break;
+                case "row":
+                    handler.row(row, cells);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String cellValue() throws SAXException {
+            if (0 == value.length()) {
+                return null;
+            }
+            if (!"s".equals(type)) {
+                return value.toString();
+            }
+            try {
+                return sharedStrings.get(Integer.parseInt(value.toString().trim()));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new SAXException("no shared string " + value + " in row " + row);
+            }
+        }
+
+        // e.g. 0 for "A1" and 26 for "AA1"
+        private int column(String reference) throws SAXException {
+            int column = 0;
+            int i = 0;
+            while (i < reference.length() && Character.isLetter(reference.charAt(i))) {
+                column = column * 26 + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+                i++;
+            }
+            if (0 == column)
+                throw new SAXException("invalid cell reference " + reference);
+            return column - 1;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package rockets.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ingests a source of records in four stages, each on threads of its own, with a bounded
+ * queue in front of each:
+ * <ol>
+ * <li>parse, which reads a record into the values an entity is made of,</li>
+ * <li>validate, which makes the entity through the model's setters, so what they reject
+ * is rejected,</li>
+ * <li>resolve, which refers the entity to the stored entities it relates to,</li>
+ * <li>write, which saves the entities in batches, e.g. through
+ * {@link DAO#createOrUpdateAll}.</li>
+ * </ol>
+ * As a stage blocks while the queue of the next one is full, a slow write stage holds
+ * the stages before it back, down to the reading of the source, and the items in flight
+ * never exceed the capacity of the queues. A step that throws for an item is counted as
+ * an error of its stage and the item dropped, as one that returns null is; the pipeline
+ * goes on. Items may overtake each other in a stage of more than one thread.
+ * <p>
+ * A pipeline is built with {@link #builder()}, and runs once. Its {@link #stats()} can
+ * be read from any thread while it runs.
+ *
+ * @param <I> the type of the records.
+ */
+public final class IngestPipeline<I> {
+    private static Logger logger = LoggerFactory.getLogger(IngestPipeline.class);
+
+    public static final String PARSE = "parse";
+    public static final String VALIDATE = "validate";
+    public static final String RESOLVE = "resolve";
+    public static final String WRITE = "write";
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final List<String> MAP_STAGES = Arrays.asList(PARSE, VALIDATE, RESOLVE);
+    private static final String ORDER = "stages must be added as parse, validate, resolve and write";
+    // how often a blocked source checks whether the pipeline failed
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * What a stage does with an item.
+     */
+    @FunctionalInterface
+    public interface Step<A, B> {
+        /**
+         * @return what the item becomes, or null to drop it.
+         */
+        B apply(A item) throws Exception;
+    }
+
+    /**
+     * What the write stage does with a batch.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    private final List<StageSpec> specs;
+    private final int queueCapacity;
+    private final AtomicReference<List<Stage>> stages = new AtomicReference<>();
+    private final AtomicReference<IllegalStateException> failure = new AtomicReference<>();
+
+    private IngestPipeline(List<StageSpec> specs, int queueCapacity) {
+        this.specs = specs;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @param <I> the type of the records.
+     * @return a builder, to add the stages to in order.
+     */
+    public static <I> Builder<I, I> builder() {
+        return new Builder<>(Collections.emptyList(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @return a writer saving the batches with the DAO in one call each.
+     */
+    public static <E extends Entity> BatchWriter<E> saveTo(DAO dao) {
+        if (null == dao)
+            throw new NullPointerException("dao cannot be null");
+        return dao::createOrUpdateAll;
+    }
+
+    /**
+     * Runs the records through the stages, reading them on the calling thread.
+     *
+     * @param source the records.
+     * @return the stats of the stages once all the records went through.
+     * @throws IllegalStateException if the pipeline ran before, a stage's thread failed
+     *                               beyond its step, or the calling thread was interrupted.
+     */
+    public List<StageStats> run(Iterable<? extends I> source) {
+        if (null == source)
+            throw new NullPointerException("source cannot be null");
+        List<Stage> running = newStages();
+        if (!stages.compareAndSet(null, running))
+            throw new IllegalStateException("pipeline already run");
+
+        int threads = running.stream().mapToInt(stage -> stage.threads).sum();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, stageThreads());
+        try {
+            for (Stage stage : running) {
+                for (int i = 0; i < stage.threads; i++) {
+                    executor.execute(() -> work(stage, executor));
+                }
+            }
+            BlockingQueue<Object> first = running.get(0).input;
+            for (I record : source) {
+                offer(first, record);
+            }
+            offer(first, Stage.END);
+            executor.shutdown();
+            while (!executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while ingesting", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        checkFailure();
+
+        List<StageStats> stats = stats();
+        logger.info("ingested: " + stats);
+        return stats;
+    }
+
+    /**
+     * @return the stats of the stages, in order, or an empty list before the pipeline runs.
+     */
+    public List<StageStats> stats() {
+        List<Stage> running = stages.get();
+        List<StageStats> stats = new ArrayList<>();
+        if (null != running) {
+            for (Stage stage : running) {
+                stats.add(stage.stats());
+            }
+        }
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Stage> newStages() {
+        List<Stage> running = new ArrayList<>();
+        BlockingQueue<Object> input = new ArrayBlockingQueue<>(queueCapacity);
+        for (StageSpec spec : specs) {
+            if (WRITE.equals(spec.name)) {
+                running.add(new Stage.WriteStage(spec.threads, (BatchWriter<Object>) spec.writer, spec.batchSize,
+                        input));
+            } else {
+                BlockingQueue<Object> output = new ArrayBlockingQueue<>(queueCapacity);
+                running.add(new Stage.MapStage(spec.name, spec.threads, (Step<Object, Object>) spec.step, input,
+                        output));
+                input = output;
+            }
+        }
+        return running;
+    }
+
+    // puts the item into the queue once there is room, unless the pipeline fails meanwhile
+    private void offer(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private void work(Stage stage, ExecutorService executor) {
+        try {
+            stage.work();
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // the stage would never pass the end on, so the others are stopped
+            failure.compareAndSet(null, new IllegalStateException(stage.name + " stage failed", e));
+            executor.shutdownNow();
+        }
+    }
+
+    private void checkFailure() {
+        IllegalStateException e = failure.get();
+        if (null != e)
+            throw e;
+    }
+
+    private static ThreadFactory stageThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "ingest-stage-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class StageSpec {
+        final String name;
+        final int threads;
+        final Step<?, ?> step;
+        final BatchWriter<?> writer;
+        final int batchSize;
+
+        StageSpec(String name, int threads, Step<?, ?> step, BatchWriter<?> writer, int batchSize) {
+            if (threads <= 0)
+                throw new IllegalArgumentException("threads must be positive");
+            this.name = name;
+            this.threads = threads;
+            this.step = step;
+            this.writer = writer;
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * Adds the stages of a pipeline, which must come in the order parse, validate,
+     * resolve and write, to items of type O so far.
+     */
+    public static final class Builder<I, O> {
+        private final List<StageSpec> specs;
+        private final int queueCapacity;
+
+        private Builder(List<StageSpec> specs, int queueCapacity) {
+            this.specs = specs;
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * @param capacity the items each stage's input queue holds at most.
+         */
+        public Builder<I, O> queueCapacity(int capacity) {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("queue capacity must be positive");
+            return new Builder<>(specs, capacity);
+        }
+
+        public <N> Builder<I, N> parse(Step<? super O, ? extends N> step, int threads) {
+            return then(PARSE, step, threads);
+        }
+
+        public <N> Builder<I, N> validate(Step<? super O, ? extends N> step, int threads) {
+            return then(VALIDATE, step, threads);
+        }
+
+        public <N> Builder<I, N> resolve(Step<? super O, ? extends N> step, int threads) {
+            return then(RESOLVE, step, threads);
+        }
+
+        /**
+         * Adds the write stage, which ends the pipeline.
+         *
+         * @param writer    what writes a batch, e.g. {@link #saveTo(DAO)}.
+         * @param batchSize the items a worker writes at once, but for its last batch.
+         * @param threads   the workers of the stage.
+         * @return the pipeline.
+         */
+        public IngestPipeline<I> write(BatchWriter<? super O> writer, int batchSize, int threads) {
+            if (null == writer)
+                throw new NullPointerException("writer cannot be null");
+            if (batchSize <= 0)
+                throw new IllegalArgumentException("batch size must be positive");
+            if (specs.size() != MAP_STAGES.size())
+                throw new IllegalStateException(ORDER);
+            List<StageSpec> all = new ArrayList<>(specs);
+            all.add(new StageSpec(WRITE, threads, null, writer, batchSize));
+            return new IngestPipeline<>(all, queueCapacity);
+        }
+
+        private <N> Builder<I, N> then(String name, Step<? super O, ? extends N> step, int threads) {
+            if (null == step)
+                throw new NullPointerException("step cannot be null");
+            if (specs.size() != MAP_STAGES.indexOf(name))
+                throw new IllegalStateException(ORDER);
+            List<StageSpec> all = new ArrayList<>(specs);
+            all.add(new StageSpec(name, threads, step, null, 0));
+            return new Builder<>(all, queueCapacity);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package rockets.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A stage of a running {@link IngestPipeline}: its workers take the items of its input
+ * queue until the end marker, handle them and put what they make into the output queue,
+ * which blocks them while the next stage is behind. The last worker to finish passes the
+ * end marker on.
+ */
+abstract class Stage {
+    private static Logger logger = LoggerFactory.getLogger(Stage.class);
+
+    static final Object END = new Object();
+
+    /**
+     * What a worker does with the items it takes; a worker has one, so it may keep state.
+     */
+    interface Handler {
+        void handle(Object item) throws InterruptedException;
+
+        void finish() throws InterruptedException;
+    }
+
+    final String name;
+    final int threads;
+    final BlockingQueue<Object> input;
+    final BlockingQueue<Object> output;
+    final LongAdder processed = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    private final AtomicInteger running;
+    private final long start = System.nanoTime();
+    private volatile long end;
+
+    Stage(String name, int threads, BlockingQueue<Object> input, BlockingQueue<Object> output) {
+        this.name = name;
+        this.threads = threads;
+        this.input = input;
+        this.output = output;
+        this.running = new AtomicInteger(threads);
+    }
+
+    abstract Handler newHandler();
+
+    void work() throws InterruptedException {
+        Handler handler = newHandler();
+        for (Object item = input.take(); END != item; item = input.take()) {
+            handler.handle(item);
+        }
+        // left for the other workers of the stage
+        input.put(END);
+        handler.finish();
+        if (0 == running.decrementAndGet()) {
+            input.clear();
+            end = System.nanoTime();
+            if (null != output) {
+                output.put(END);
+            }
+        }
+    }
+
+    void failed(String what, int items, Exception e) {
+        errors.add(items);
+        logger.warn(name + " failed on " + what + ": " + e);
+    }
+
+    StageStats stats() {
+        long until = (0 == end) ? System.nanoTime() : end;
+        double seconds = Math.max(1, until - start) / 1e9;
+        long count = processed.sum();
+        return new StageStats(name, threads, count, dropped.sum(), errors.sum(), input.size(), count / seconds);
+    }
+
+    /**
+     * A stage that turns each item into another, or into null to drop it.
+     */
+    static class MapStage extends Stage {
+        private final IngestPipeline.Step<Object, Object> step;
+
+        MapStage(String name, int threads, IngestPipeline.Step<Object, Object> step,
+                 BlockingQueue<Object> input, BlockingQueue<Object> output) {
+            super(name, threads, input, output);
+            this.step = step;
+        }
+
+        @Override
+        Handler newHandler() {
+            return new Handler() {
+                @Override
+                public void handle(Object item) throws InterruptedException {
+                    Object result;
+                    try {
+                        result = step.apply(item);
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failed(String.valueOf(item), 1, e);
+                        return;
+                    }
+                    if (null == result) {
+                        dropped.increment();
+                    } else {
+                        output.put(result);
+                        processed.increment();
+                    }
+                }
+
+                @Override
+                public void finish() {
+                }
+            };
+        }
+    }
+
+    /**
+     * The last stage, which writes the items in batches; a worker fills a batch of its own.
+     */
+    static class WriteStage extends Stage {
+        private final IngestPipeline.BatchWriter<Object> writer;
+        private final int batchSize;
+
+        WriteStage(int threads, IngestPipeline.BatchWriter<Object> writer, int batchSize,
+                   BlockingQueue<Object> input) {
+            super(IngestPipeline.WRITE, threads, input, null);
+            this.writer = writer;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        Handler newHandler() {
+            List<Object> batch = new ArrayList<>(batchSize);
+            return new Handler() {
+                @Override
+                public void handle(Object item) throws InterruptedException {
+                    batch.add(item);
+                    if (batch.size() >= batchSize) {
+                        finish();
+                    }
+                }
+
+                @Override
+                public void finish() throws InterruptedException {
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                    try {
+                        writer.write(new ArrayList<>(batch));
+                        processed.add(batch.size());
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        // the whole batch is lost with the write
+                        failed("a batch of " + batch.size(), batch.size(), e);
+                    } finally {
+                        batch.clear();
+                    }
+                }
+            };
+        }
+    }
+}
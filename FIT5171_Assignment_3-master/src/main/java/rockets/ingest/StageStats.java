@@ -0,0 +1,76 @@
+package rockets.ingest;
+
+/**
+ * How a stage of an {@link IngestPipeline} is doing, as of when it was asked: the items
+ * it took, passed on or wrote, dropped and failed on, the items waiting for it, and its
+ * throughput over the run so far.
+ */
+public final class StageStats {
+    private final String name;
+    private final int threads;
+    private final long processed;
+    private final long dropped;
+    private final long errors;
+    private final int queueDepth;
+    private final double itemsPerSecond;
+
+    StageStats(String name, int threads, long processed, long dropped, long errors, int queueDepth,
+               double itemsPerSecond) {
+        this.name = name;
+        this.threads = threads;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.errors = errors;
+        this.queueDepth = queueDepth;
+        this.itemsPerSecond = itemsPerSecond;
+    }
+
+    /**
+     * @return "parse", "validate", "resolve" or "write".
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the items passed on to the next stage, or written by the last one.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return the items the stage's step returned null for.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the items the stage's step threw an exception for, which are dropped too.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the items waiting in the stage's input queue.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d processed, %d dropped, %d errors, %d queued (%.0f items/s on %d threads)",
+                name, processed, dropped, errors, queueDepth, itemsPerSecond, threads);
+    }
+}
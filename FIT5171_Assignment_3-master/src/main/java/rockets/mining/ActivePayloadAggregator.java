@@ -0,0 +1,80 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts active payloads carried by each rocket, grouped by the rocket's country.
+ */
+public class ActivePayloadAggregator implements LaunchAggregator {
+    private final Map<String, Map<Rocket, Integer>> activePayloadsByCountry = new HashMap<>();
+    // launches with a payload per rocket, to know when a rocket has none left
+    private final Map<Rocket, Integer> launchesByRocket = new HashMap<>();
+
+    @Override
+    public void accept(Launch launch) {
+        Rocket rocket = launch.getLaunchVehicle();
+        if (null == rocket || null == launch.getPayload())
+            return;
+        activePayloadsByCountry.computeIfAbsent(rocket.getCountry(), country -> new LinkedHashMap<>())
+                .merge(rocket, activePayloads(launch), Integer::sum);
+        launchesByRocket.merge(rocket, 1, Integer::sum);
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        Rocket rocket = launch.getLaunchVehicle();
+        if (null == rocket || null == launch.getPayload())
+            return;
+        Map<Rocket, Integer> activePayloads = activePayloadsByCountry.get(rocket.getCountry());
+        if (null == activePayloads)
+            return;
+        if (launchesByRocket.merge(rocket, -1, Integer::sum) > 0) {
+            activePayloads.computeIfPresent(rocket, (r, active) -> active - activePayloads(launch));
+        } else {
+            launchesByRocket.remove(rocket);
+            activePayloads.remove(rocket);
+            if (activePayloads.isEmpty()) {
+                activePayloadsByCountry.remove(rocket.getCountry());
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of another aggregator, which scanned launches that come
+     * after the ones this aggregator scanned.
+     *
+     * @param other the aggregator to merge in.
+     */
+    public void merge(ActivePayloadAggregator other) {
+        other.activePayloadsByCountry.forEach((country, activePayloads) -> {
+            Map<Rocket, Integer> merged = activePayloadsByCountry.computeIfAbsent(country, c -> new LinkedHashMap<>());
+            activePayloads.forEach((rocket, active) -> merged.merge(rocket, active, Integer::sum));
+        });
+        other.launchesByRocket.forEach((rocket, launches) -> launchesByRocket.merge(rocket, launches, Integer::sum));
+    }
+
+    /**
+     * @param country the country of the rockets
+     * @return the number of active payloads of every rocket from <code>country</code>.
+     */
+    public Map<Rocket, Integer> getActivePayloads(String country) {
+        return Collections.unmodifiableMap(activePayloadsByCountry.getOrDefault(country, Collections.emptyMap()));
+    }
+
+    static int activePayloads(Launch launch) {
+        int active = 0;
+        if (null != launch.getPayload()) {
+            for (Payload payload : launch.getPayload()) {
+                active += (payload.isActive()) ? 1 : 0;
+            }
+        }
+        return active;
+    }
+}
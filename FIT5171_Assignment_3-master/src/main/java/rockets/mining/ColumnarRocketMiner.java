@@ -0,0 +1,94 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A miner that answers its queries from a columnar {@link LaunchTable} snapshot
+ * of the launches instead of from the launch entities. Like the scan of a cached
+ * miner, the table is dropped once the DAO publishes a change or the miner is refreshed.
+ */
+public class ColumnarRocketMiner extends RocketMiner {
+    private volatile LaunchTable table;
+
+    public ColumnarRocketMiner(DAO dao) {
+        super(dao);
+    }
+
+    /**
+     * Returns the launch table, building it from all launches on first use. Concurrent
+     * first queries may each build one, of which the last is kept.
+     *
+     * @return the launch table.
+     */
+    protected LaunchTable table() {
+        LaunchTable current = table;
+        if (null == current) {
+            current = LaunchTable.of(dao.loadAll(Launch.class, LAUNCH_SCAN));
+            logger.info("built launch table of " + current.size() + " launches");
+            table = current;
+        }
+        return current;
+    }
+
+    @Override
+    public void refresh() {
+        super.refresh();
+        table = null;
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return table().mostLaunchedRockets(k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return table().mostReliableLaunchServiceProviders(k);
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return table().mostRecentLaunches(k);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return table().mostExpensiveLaunches(k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        if (k < 0)
+            throw new IllegalArgumentException("The value of k cannot be negative.");
+        return table().highestRevenueLaunchServiceProviders(k, year);
+    }
+
+    @Override
+    public BigDecimal successfulLaunchRateInYears(int fromYear, int toYear) {
+        return table().successfulLaunchRateInYears(fromYear, toYear);
+    }
+
+    @Override
+    public String dominantCountry(String orbit) {
+        return table().dominantCountry(orbit);
+    }
+
+    @Override
+    public Rocket rocketWithMostActivePayloads(String country) {
+        return table().rocketWithMostActivePayloads(country);
+    }
+}
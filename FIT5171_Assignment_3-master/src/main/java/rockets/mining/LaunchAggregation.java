@@ -0,0 +1,59 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scans a launch collection once and feeds every launch to all registered
+ * aggregators, so several statistics are computed from a single pass.
+ */
+public class LaunchAggregation {
+    private final List<LaunchAggregator> aggregators = new ArrayList<>();
+
+    /**
+     * Registers an aggregator to be filled by the next scan.
+     *
+     * @param aggregator the aggregator to register.
+     * @return the same aggregator, for chaining.
+     */
+    public <A extends LaunchAggregator> A register(A aggregator) {
+        if (null == aggregator)
+            throw new NullPointerException("aggregator cannot be null");
+        aggregators.add(aggregator);
+        return aggregator;
+    }
+
+    public List<LaunchAggregator> getAggregators() {
+        return Collections.unmodifiableList(aggregators);
+    }
+
+    /**
+     * Feeds every launch to every registered aggregator. Null launches are skipped.
+     *
+     * @param launches the launches to scan.
+     */
+    public void scan(Iterable<Launch> launches) {
+        for (Launch launch : launches) {
+            accept(launch);
+        }
+    }
+
+    public void accept(Launch launch) {
+        if (null == launch)
+            return;
+        for (LaunchAggregator aggregator : aggregators) {
+            aggregator.accept(launch);
+        }
+    }
+
+    public void retract(Launch launch) {
+        if (null == launch)
+            return;
+        for (LaunchAggregator aggregator : aggregators) {
+            aggregator.retract(launch);
+        }
+    }
+}
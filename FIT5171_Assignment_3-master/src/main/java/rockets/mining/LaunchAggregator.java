@@ -0,0 +1,24 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+/**
+ * A consumer of launches that accumulates one statistic while
+ * {@link LaunchAggregation} scans the launch collection.
+ */
+public interface LaunchAggregator {
+    /**
+     * Folds a single launch into the aggregate.
+     *
+     * @param launch the launch being scanned, never null.
+     */
+    void accept(Launch launch);
+
+    /**
+     * Removes a launch previously folded in by {@link #accept(Launch)}, so the
+     * aggregate can be maintained incrementally as launches change.
+     *
+     * @param launch the launch to remove, as it was when it was accepted.
+     */
+    void retract(Launch launch);
+}
@@ -0,0 +1,135 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Partitions launches into one bucket per year and month, each holding
+ * successful and total launch counters and the sum of launch prices. Questions
+ * about a year or a range of years are answered from the buckets in the range,
+ * in O(buckets) rather than O(launches).
+ */
+public class LaunchCalendarIndex implements LaunchAggregator {
+    private final TreeMap<Integer, Bucket> buckets = new TreeMap<>();
+
+    private static int bucketOf(int year, int month) {
+        return year * 12 + (month - 1);
+    }
+
+    private static int bucketOf(Launch launch) {
+        return bucketOf(launch.getLaunchDate().getYear(), launch.getLaunchDate().getMonthValue());
+    }
+
+    @Override
+    public void accept(Launch launch) {
+        if (null == launch.getLaunchDate())
+            return;
+        buckets.computeIfAbsent(bucketOf(launch), b -> new Bucket()).add(launch);
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        if (null == launch.getLaunchDate())
+            return;
+        buckets.computeIfPresent(bucketOf(launch), (b, bucket) -> bucket.remove(launch) ? bucket : null);
+    }
+
+    /**
+     * Adds the buckets of another index.
+     *
+     * @param other the index to merge in.
+     */
+    public void merge(LaunchCalendarIndex other) {
+        other.buckets.forEach((b, bucket) -> buckets.computeIfAbsent(b, key -> new Bucket()).add(bucket));
+    }
+
+    // all buckets from January of fromYear to December of toYear
+    private Map<Integer, Bucket> range(int fromYear, int toYear) {
+        if (fromYear > toYear)
+            throw new IllegalArgumentException("fromYear cannot be after toYear");
+        return buckets.subMap(bucketOf(fromYear, 1), true, bucketOf(toYear, 12), true);
+    }
+
+    public int getLaunches(int fromYear, int toYear) {
+        int total = 0;
+        for (Bucket bucket : range(fromYear, toYear).values()) {
+            total += bucket.total;
+        }
+        return total;
+    }
+
+    public int getSuccessfulLaunches(int fromYear, int toYear) {
+        int successful = 0;
+        for (Bucket bucket : range(fromYear, toYear).values()) {
+            successful += bucket.successful;
+        }
+        return successful;
+    }
+
+    /**
+     * @param fromYear the first year, inclusive.
+     * @param toYear   the last year, inclusive.
+     * @return the successful launch rate in the years, with scale 2; zero without launches.
+     */
+    public BigDecimal getSuccessfulLaunchRate(int fromYear, int toYear) {
+        int successful = 0;
+        int total = 0;
+        for (Bucket bucket : range(fromYear, toYear).values()) {
+            successful += bucket.successful;
+            total += bucket.total;
+        }
+        if (0 == total)
+            return BigDecimal.ZERO.setScale(2);
+        return BigDecimal.valueOf(successful).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param fromYear the first year, inclusive.
+     * @param toYear   the last year, inclusive.
+     * @return the sum of the prices of the launches in the years.
+     */
+    public BigDecimal getRevenue(int fromYear, int toYear) {
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Bucket bucket : range(fromYear, toYear).values()) {
+            revenue = revenue.add(bucket.revenue);
+        }
+        return revenue;
+    }
+
+    private static class Bucket {
+        private int successful;
+        private int total;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        void add(Launch launch) {
+            if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
+                successful++;
+            }
+            total++;
+            if (null != launch.getPrice()) {
+                revenue = revenue.add(launch.getPrice());
+            }
+        }
+
+        void add(Bucket other) {
+            successful += other.successful;
+            total += other.total;
+            revenue = revenue.add(other.revenue);
+        }
+
+        // returns false once no launch is left
+        boolean remove(Launch launch) {
+            if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
+                successful--;
+            }
+            if (null != launch.getPrice()) {
+                revenue = revenue.subtract(launch.getPrice());
+            }
+            return --total > 0;
+        }
+    }
+}
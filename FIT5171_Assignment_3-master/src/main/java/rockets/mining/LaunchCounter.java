@@ -0,0 +1,51 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Counts launches grouped by a key extracted from each launch, e.g. the launch vehicle.
+ * Keys are kept in the order they are first encountered.
+ */
+public class LaunchCounter<K> implements LaunchAggregator {
+    private final Function<Launch, K> keyExtractor;
+    private final Map<K, Integer> counts = new LinkedHashMap<>();
+
+    public LaunchCounter(Function<Launch, K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void accept(Launch launch) {
+        K key = keyExtractor.apply(launch);
+        if (null != key) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        K key = keyExtractor.apply(launch);
+        if (null != key) {
+            counts.computeIfPresent(key, (k, count) -> (count > 1) ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Adds the counts of another counter, which scanned launches that come after
+     * the ones this counter scanned.
+     *
+     * @param other the counter to merge in.
+     */
+    public void merge(LaunchCounter<K> other) {
+        other.counts.forEach((key, count) -> counts.merge(key, count, Integer::sum));
+    }
+
+    public Map<K, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+}
@@ -0,0 +1,79 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+/**
+ * The statistics {@link RocketMiner} answers its queries from, all filled by one
+ * {@link LaunchAggregation} scan over the launches.
+ */
+public class LaunchStatistics {
+    private final LaunchAggregation aggregation = new LaunchAggregation();
+
+    private final LaunchCounter<Rocket> rocketLaunches = aggregation.register(new LaunchCounter<>(Launch::getLaunchVehicle));
+    private final OutcomeCounter<LaunchServiceProvider> providerOutcomes = aggregation.register(new OutcomeCounter<>(Launch::getLaunchServiceProvider));
+    private final RevenueAggregator revenue = aggregation.register(new RevenueAggregator());
+    private final OrbitCountryAggregator orbitCountries = aggregation.register(new OrbitCountryAggregator());
+    private final ActivePayloadAggregator activePayloads = aggregation.register(new ActivePayloadAggregator());
+    private final LaunchCalendarIndex calendar = aggregation.register(new LaunchCalendarIndex());
+
+    /**
+     * Builds the statistics of the given launches in a single pass.
+     *
+     * @param launches the launches to scan.
+     * @return the filled statistics.
+     */
+    public static LaunchStatistics of(Iterable<Launch> launches) {
+        LaunchStatistics statistics = new LaunchStatistics();
+        statistics.aggregation.scan(launches);
+        return statistics;
+    }
+
+    /**
+     * Merges the statistics of launches that come after the ones these statistics
+     * scanned. The result is the same as if one scan had seen all the launches.
+     *
+     * @param other the statistics to merge in.
+     */
+    public void merge(LaunchStatistics other) {
+        rocketLaunches.merge(other.rocketLaunches);
+        providerOutcomes.merge(other.providerOutcomes);
+        revenue.merge(other.revenue);
+        orbitCountries.merge(other.orbitCountries);
+        activePayloads.merge(other.activePayloads);
+        calendar.merge(other.calendar);
+    }
+
+    public void accept(Launch launch) {
+        aggregation.accept(launch);
+    }
+
+    public void retract(Launch launch) {
+        aggregation.retract(launch);
+    }
+
+    public LaunchCounter<Rocket> getRocketLaunches() {
+        return rocketLaunches;
+    }
+
+    public OutcomeCounter<LaunchServiceProvider> getProviderOutcomes() {
+        return providerOutcomes;
+    }
+
+    public RevenueAggregator getRevenue() {
+        return revenue;
+    }
+
+    public OrbitCountryAggregator getOrbitCountries() {
+        return orbitCountries;
+    }
+
+    public ActivePayloadAggregator getActivePayloads() {
+        return activePayloads;
+    }
+
+    public LaunchCalendarIndex getCalendar() {
+        return calendar;
+    }
+}
@@ -0,0 +1,78 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.ForwardingDAO;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.Collection;
+
+/**
+ * A DAO that keeps {@link MaterializedLaunchStatistics} current on every write
+ * made through it. Launches saved along with a rocket or a launch service
+ * provider are recorded as well.
+ */
+public class LaunchStatisticsDAO extends ForwardingDAO {
+    private final MaterializedLaunchStatistics statistics;
+
+    /**
+     * Warms the statistics up with the launches already in <code>delegate</code>.
+     *
+     * @param delegate   the DAO writes are forwarded to.
+     * @param statistics the statistics to maintain.
+     */
+    public LaunchStatisticsDAO(DAO delegate, MaterializedLaunchStatistics statistics) {
+        super(delegate);
+        this.statistics = statistics;
+        statistics.warmUp(delegate.loadAll(Launch.class));
+    }
+
+    public MaterializedLaunchStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        T saved = super.createOrUpdate(entity);
+        savedLaunches(saved);
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        Collection<T> saved = super.createOrUpdateAll(entities);
+        saved.forEach(this::savedLaunches);
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        super.delete(entity);
+        if (entity instanceof Launch) {
+            statistics.deleted((Launch) entity);
+        }
+    }
+
+    // mirrors the cascade of Neo4jDAO: provider -> rockets -> launches
+    private void savedLaunches(Entity entity) {
+        if (entity instanceof Launch) {
+            statistics.saved((Launch) entity);
+        } else if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            if (null != rocket.getLaunches()) {
+                for (Launch launch : rocket.getLaunches()) {
+                    statistics.saved(launch);
+                }
+            }
+        } else if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            if (null != lsp.getRockets()) {
+                for (Rocket rocket : lsp.getRockets()) {
+                    savedLaunches(rocket);
+                }
+            }
+        }
+    }
+}
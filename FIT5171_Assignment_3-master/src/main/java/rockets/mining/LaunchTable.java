@@ -0,0 +1,393 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar snapshot of the launches for analytics. Every launch attribute the
+ * miner reads is stored in its own primitive array (struct-of-arrays), with
+ * rockets, providers, countries and orbits replaced by dense int ids, so that
+ * queries scan contiguous memory instead of chasing entity references.
+ * <p>
+ * Prices are stored as fixed-point longs with {@link #PRICE_SCALE} decimals.
+ * Rankings are broken the same way as in {@link RocketMiner}.
+ */
+public class LaunchTable {
+    public static final int PRICE_SCALE = 4;
+
+    private static final int NONE = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final int size;
+    // kept only to return result rows
+    private final Launch[] launches;
+    private final int[] epochDays;
+    private final long[] prices;
+    private final int[] rockets;
+    private final int[] providers;
+    private final int[] manufacturers;
+    private final int[] providerCountries;
+    private final int[] rocketCountries;
+    private final int[] orbits;
+    private final BitSet successful;
+    private final BitSet withPayload;
+    // payload of launch i is prefix[i + 1] - prefix[i]
+    private final long[] payloadMassPrefix;
+    private final int[] activePayloadPrefix;
+
+    private final Dictionary<Rocket> rocketIds = new Dictionary<>();
+    private final Dictionary<LaunchServiceProvider> providerIds = new Dictionary<>();
+    private final Dictionary<String> countryIds = new Dictionary<>();
+    private final Dictionary<String> orbitIds = new Dictionary<>();
+
+    private LaunchTable(int size) {
+        this.size = size;
+        launches = new Launch[size];
+        epochDays = new int[size];
+        prices = new long[size];
+        rockets = new int[size];
+        providers = new int[size];
+        manufacturers = new int[size];
+        providerCountries = new int[size];
+        rocketCountries = new int[size];
+        orbits = new int[size];
+        successful = new BitSet(size);
+        withPayload = new BitSet(size);
+        payloadMassPrefix = new long[size + 1];
+        activePayloadPrefix = new int[size + 1];
+    }
+
+    /**
+     * Builds the table of the given launches. Null launches are skipped.
+     *
+     * @param launches the launches, e.g. loaded from the DAO.
+     * @return the columnar table.
+     */
+    public static LaunchTable of(Collection<Launch> launches) {
+        int size = 0;
+        for (Launch launch : launches) {
+            size += (null == launch) ? 0 : 1;
+        }
+        LaunchTable table = new LaunchTable(size);
+        int row = 0;
+        for (Launch launch : launches) {
+            if (null != launch) {
+                table.set(row++, launch);
+            }
+        }
+        return table;
+    }
+
+    private void set(int row, Launch launch) {
+        Rocket rocket = launch.getLaunchVehicle();
+        LaunchServiceProvider provider = launch.getLaunchServiceProvider();
+        launches[row] = launch;
+        epochDays[row] = (null == launch.getLaunchDate()) ? NO_DATE : (int) launch.getLaunchDate().toEpochDay();
+        prices[row] = (null == launch.getPrice()) ? NO_PRICE : toFixedPoint(launch.getPrice());
+        rockets[row] = rocketIds.idOf(rocket);
+        providers[row] = providerIds.idOf(provider);
+        manufacturers[row] = (null == rocket) ? NONE : providerIds.idOf(rocket.getManufacturer());
+        providerCountries[row] = (null == provider) ? NONE : countryIds.idOf(provider.getCountry());
+        rocketCountries[row] = (null == rocket) ? NONE : countryIds.idOf(rocket.getCountry());
+        orbits[row] = orbitIds.idOf(launch.getOrbit());
+        successful.set(row, launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL);
+        withPayload.set(row, null != launch.getPayload());
+        long mass = 0;
+        int active = 0;
+        if (null != launch.getPayload()) {
+            for (Payload payload : launch.getPayload()) {
+                mass += payload.getMassKG();
+                active += payload.isActive() ? 1 : 0;
+            }
+        }
+        payloadMassPrefix[row + 1] = payloadMassPrefix[row] + mass;
+        activePayloadPrefix[row + 1] = activePayloadPrefix[row] + active;
+    }
+
+    static long toFixedPoint(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Rocket> mostLaunchedRockets(int k) {
+        int[] counts = new int[rocketIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (rockets[row] != NONE) {
+                counts[rockets[row]]++;
+            }
+        }
+        int[] top = top(k, counts.length, (a, b) -> {
+            int order = Integer.compare(counts[b], counts[a]);
+            return (0 != order) ? order : RocketMiner.ROCKET_ORDER.compare(rocketIds.valueOf(a), rocketIds.valueOf(b));
+        });
+        return rocketIds.valuesOf(top);
+    }
+
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        int[] successes = new int[providerIds.size()];
+        int[] totals = new int[providerIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (providers[row] != NONE) {
+                totals[providers[row]]++;
+                if (successful.get(row)) {
+                    successes[providers[row]]++;
+                }
+            }
+        }
+        // providers that never launched, e.g. only manufacture, are not ranked
+        int[] top = top(k, totals.length, (a, b) -> {
+            if ((0 == totals[a]) != (0 == totals[b]))
+                return (0 == totals[a]) ? 1 : -1;
+            int order = Double.compare(ratio(successes[b], totals[b]), ratio(successes[a], totals[a]));
+            return (0 != order) ? order : RocketMiner.PROVIDER_ORDER.compare(providerIds.valueOf(a), providerIds.valueOf(b));
+        });
+        return providerIds.valuesOf(withLaunches(top, totals));
+    }
+
+    public List<Launch> mostRecentLaunches(int k) {
+        int[] top = top(k, size, (a, b) -> {
+            if (epochDays[a] == NO_DATE || epochDays[b] == NO_DATE)
+                return Boolean.compare(epochDays[a] == NO_DATE, epochDays[b] == NO_DATE);
+            return Integer.compare(epochDays[b], epochDays[a]);
+        });
+        return rows(top);
+    }
+
+    public List<Launch> mostExpensiveLaunches(int k) {
+        int[] top = top(k, size, (a, b) -> {
+            if (prices[a] == NO_PRICE || prices[b] == NO_PRICE)
+                return Boolean.compare(prices[a] == NO_PRICE, prices[b] == NO_PRICE);
+            return Long.compare(prices[b], prices[a]);
+        });
+        return rows(top);
+    }
+
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        int from = (int) LocalDate.of(year, 1, 1).toEpochDay();
+        int to = (int) LocalDate.of(year + 1, 1, 1).toEpochDay();
+        long[] revenue = new long[providerIds.size()];
+        int[] launchCounts = new int[providerIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (epochDays[row] != NO_DATE && epochDays[row] >= from && epochDays[row] < to
+                    && prices[row] != NO_PRICE && manufacturers[row] != NONE) {
+                revenue[manufacturers[row]] += prices[row];
+                launchCounts[manufacturers[row]]++;
+            }
+        }
+        int[] top = top(k, revenue.length, (a, b) -> {
+            if ((0 == launchCounts[a]) != (0 == launchCounts[b]))
+                return (0 == launchCounts[a]) ? 1 : -1;
+            int order = Long.compare(revenue[b], revenue[a]);
+            return (0 != order) ? order : RocketMiner.PROVIDER_ORDER.compare(providerIds.valueOf(a), providerIds.valueOf(b));
+        });
+        return providerIds.valuesOf(withLaunches(top, launchCounts));
+    }
+
+    public BigDecimal successfulLaunchRateInYears(int fromYear, int toYear) {
+        if (fromYear > toYear)
+            throw new IllegalArgumentException("fromYear cannot be after toYear");
+        int from = (int) LocalDate.of(fromYear, 1, 1).toEpochDay();
+        int to = (int) LocalDate.of(toYear + 1, 1, 1).toEpochDay();
+        int successes = 0;
+        int total = 0;
+        for (int row = 0; row < size; row++) {
+            if (epochDays[row] != NO_DATE && epochDays[row] >= from && epochDays[row] < to) {
+                total++;
+                successes += successful.get(row) ? 1 : 0;
+            }
+        }
+        if (0 == total)
+            return BigDecimal.ZERO.setScale(2);
+        return BigDecimal.valueOf(successes).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+    }
+
+    public String dominantCountry(String orbit) {
+        int orbitId = orbitIds.find(orbit);
+        if (NONE == orbitId)
+            return null;
+        int[] launchCounts = new int[countryIds.size()];
+        long[] payloadMass = new long[countryIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (orbits[row] == orbitId && providerCountries[row] != NONE) {
+                launchCounts[providerCountries[row]]++;
+                payloadMass[providerCountries[row]] += payloadMassPrefix[row + 1] - payloadMassPrefix[row];
+            }
+        }
+        int[] top = top(1, launchCounts.length, (a, b) -> {
+            int order = Integer.compare(launchCounts[b], launchCounts[a]);
+            if (0 == order)
+                order = Long.compare(payloadMass[b], payloadMass[a]);
+            return (0 != order) ? order : Comparator.<String>nullsLast(Comparator.naturalOrder()).compare(countryIds.valueOf(a), countryIds.valueOf(b));
+        });
+        return (0 == top.length || 0 == launchCounts[top[0]]) ? null : countryIds.valueOf(top[0]);
+    }
+
+    public Rocket rocketWithMostActivePayloads(String country) {
+        int countryId = countryIds.find(country);
+        if (NONE == countryId)
+            return null;
+        int[] activePayloads = new int[rocketIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (rocketCountries[row] == countryId && withPayload.get(row)) {
+                activePayloads[rockets[row]] += activePayloadPrefix[row + 1] - activePayloadPrefix[row];
+            }
+        }
+        int[] top = top(1, activePayloads.length, (a, b) -> {
+            int order = Integer.compare(activePayloads[b], activePayloads[a]);
+            return (0 != order) ? order : RocketMiner.ROCKET_ORDER.compare(rocketIds.valueOf(a), rocketIds.valueOf(b));
+        });
+        return (0 == top.length || 0 == activePayloads[top[0]]) ? null : rocketIds.valueOf(top[0]);
+    }
+
+    private static double ratio(int successes, int total) {
+        return (0 == total) ? 0 : (successes * 1.0) / total;
+    }
+
+    private static int[] withLaunches(int[] ids, int[] launchCounts) {
+        int kept = 0;
+        while (kept < ids.length && launchCounts[ids[kept]] > 0) {
+            kept++;
+        }
+        return Arrays.copyOf(ids, kept);
+    }
+
+    private List<Launch> rows(int[] indices) {
+        List<Launch> result = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            result.add(launches[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Orders two row or dictionary indices; negative if the first ranks higher.
+     */
+    private interface IndexOrder {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Selects the k highest ranked of the indices 0..n-1 with a bounded binary heap
+     * of primitive ints, the lowest ranked kept index at its root. Ties are ranked
+     * by the smaller index, i.e. the row or entity seen first.
+     */
+    private static int[] top(int k, int n, IndexOrder order) {
+        if (k < 0)
+            throw new IllegalArgumentException("k cannot be negative");
+        IndexOrder ranking = (a, b) -> {
+            int result = order.compare(a, b);
+            return (0 != result) ? result : Integer.compare(a, b);
+        };
+        int[] heap = new int[Math.min(k, n)];
+        int kept = 0;
+        for (int index = 0; index < n && heap.length > 0; index++) {
+            if (kept < heap.length) {
+                heap[kept] = index;
+                siftUp(heap, kept++, ranking);
+            } else if (ranking.compare(index, heap[0]) < 0) {
+                heap[0] = index;
+                siftDown(heap, kept, ranking);
+            }
+        }
+        // drain lowest ranked first into the back of the result
+        int[] result = new int[kept];
+        for (int i = kept - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, ranking);
+        }
+        return result;
+    }
+
+    private static void siftUp(int[] heap, int position, IndexOrder ranking) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (ranking.compare(heap[position], heap[parent]) <= 0)
+                return;
+            swap(heap, position, parent);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int length, IndexOrder ranking) {
+        int position = 0;
+        while (true) {
+            int lowest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < length && ranking.compare(heap[left], heap[lowest]) > 0)
+                lowest = left;
+            if (right < length && ranking.compare(heap[right], heap[lowest]) > 0)
+                lowest = right;
+            if (lowest == position)
+                return;
+            swap(heap, position, lowest);
+            position = lowest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    /**
+     * Assigns dense int ids to values in the order they are first seen.
+     */
+    private static class Dictionary<T> {
+        private final List<T> values = new ArrayList<>();
+        private final Map<T, Integer> ids = new HashMap<>();
+
+        int idOf(T value) {
+            if (null == value)
+                return NONE;
+            Integer id = ids.get(value);
+            if (null == id) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        int find(T value) {
+            Integer id = (null == value) ? null : ids.get(value);
+            return (null == id) ? NONE : id;
+        }
+
+        T valueOf(int id) {
+            return values.get(id);
+        }
+
+        List<T> valuesOf(int[] ids) {
+            List<T> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(values.get(id));
+            }
+            return result;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package rockets.mining;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityEvent;
+import rockets.dataaccess.EntityListener;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Launch statistics kept current as launches are written, instead of being
+ * rebuilt by a scan. Each saved or deleted launch costs O(1) counter updates.
+ * <p>
+ * A copy of every launch is kept as it was last saved, so that an update can
+ * retract the old values before the new ones are added. The copy also holds its own
+ * copies of the rocket and providers, so that it retracts from the manufacturer and
+ * country the launch was counted under, even if those were changed since.
+ * <p>
+ * The statistics are fed either by a {@link LaunchStatisticsDAO} wrapping the DAO the
+ * writes go through, or by the changes a DAO publishes, see {@link #follow(DAO)}, which
+ * also sees the writes made through any other wrapper of that DAO. A DAO that does not
+ * publish its changes can only be followed by a {@link #refresh()} now and then.
+ */
+public class MaterializedLaunchStatistics implements EntityListener {
+    private static Logger logger = LoggerFactory.getLogger(MaterializedLaunchStatistics.class);
+
+    private final LaunchStatistics statistics = new LaunchStatistics();
+    private final Map<Long, Launch> savedLaunches = new HashMap<>();
+    private DAO source;
+    // the changes published while the launches already in the DAO are being added
+    private List<EntityEvent> buffered;
+    private boolean lostWhileBuffering;
+
+    /**
+     * Listens to the changes published by the DAO, then adds the launches already in it,
+     * and then the changes published in the meantime. Should changes be lost, the
+     * statistics are rebuilt from the DAO. If the DAO does not publish its changes, only
+     * the launches already in it are added.
+     *
+     * @param dao the DAO to follow.
+     */
+    public void follow(DAO dao) {
+        synchronized (this) {
+            this.source = dao;
+            this.buffered = new ArrayList<>();
+            this.lostWhileBuffering = false;
+        }
+        if (!RocketMiner.listen(dao, this)) {
+            logger.info(dao.getClass().getSimpleName() + " does not publish its changes, so the statistics are kept until refreshed");
+            synchronized (this) {
+                buffered = null;
+            }
+            refresh();
+            return;
+        }
+        Collection<Launch> launches = dao.loadAll(Launch.class);
+        boolean lost;
+        synchronized (this) {
+            warmUp(launches);
+            List<EntityEvent> events = buffered;
+            buffered = null;
+            lost = lostWhileBuffering;
+            if (!lost) {
+                // a change may already be in the launches loaded, but applying it again is harmless
+                events.forEach(this::apply);
+            }
+        }
+        if (lost) {
+            rebuild(dao.loadAll(Launch.class));
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(EntityEvent event) {
+        if (!Launch.class.equals(event.getEntityClass())) {
+            return;
+        }
+        if (null != buffered) {
+            buffered.add(event);
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(EntityEvent event) {
+        if (EntityEvent.Type.DELETED == event.getType()) {
+            deleted((Launch) event.getBefore());
+        } else {
+            saved((Launch) event.getAfter());
+        }
+    }
+
+    @Override
+    public void onEventsLost(long count) {
+        synchronized (this) {
+            if (null != buffered) {
+                buffered.clear();
+                lostWhileBuffering = true;
+                return;
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Rebuilds the statistics from the DAO followed, if any.
+     */
+    public void refresh() {
+        DAO dao;
+        synchronized (this) {
+            dao = source;
+        }
+        if (null != dao) {
+            rebuild(dao.loadAll(Launch.class));
+        }
+    }
+
+    private synchronized void rebuild(Iterable<Launch> launches) {
+        for (Launch launch : savedLaunches.values()) {
+            statistics.retract(launch);
+        }
+        savedLaunches.clear();
+        warmUp(launches);
+    }
+
+    /**
+     * Adds the launches already in the store.
+     *
+     * @param launches the stored launches.
+     */
+    public synchronized void warmUp(Iterable<Launch> launches) {
+        for (Launch launch : launches) {
+            saved(launch);
+        }
+    }
+
+    /**
+     * Records a created or updated launch.
+     *
+     * @param launch the saved launch, which must have an id.
+     */
+    public synchronized void saved(Launch launch) {
+        if (null == launch || null == launch.getId())
+            return;
+        Launch copy = copyOf(launch);
+        statistics.retract(savedLaunches.put(launch.getId(), copy));
+        statistics.accept(copy);
+    }
+
+    /**
+     * Records a deleted launch.
+     *
+     * @param launch the deleted launch.
+     */
+    public synchronized void deleted(Launch launch) {
+        if (null == launch || null == launch.getId())
+            return;
+        statistics.retract(savedLaunches.remove(launch.getId()));
+    }
+
+    public synchronized int size() {
+        return savedLaunches.size();
+    }
+
+    /**
+     * Runs a query against the current statistics while no write can change them.
+     *
+     * @param query the query.
+     * @return the query result, which must not hold on to the statistics.
+     */
+    public synchronized <R> R query(Function<LaunchStatistics, R> query) {
+        return query.apply(statistics);
+    }
+
+    // copies the fields the aggregators read, down to the values they group by
+    private static Launch copyOf(Launch launch) {
+        Launch copy = new Launch(launch.getLaunchDate(), copyOf(launch.getLaunchVehicle()),
+                copyOf(launch.getLaunchServiceProvider()), launch.getOrbit());
+        copy.setId(launch.getId());
+        copy.setLaunchOutcome(launch.getLaunchOutcome());
+        if (null != launch.getPrice()) {
+            copy.setPrice(launch.getPrice());
+        }
+        if (null != launch.getPayload() && !launch.getPayload().isEmpty()) {
+            Set<Payload> payload = new HashSet<>();
+            for (Payload p : launch.getPayload()) {
+                payload.add(new Payload(p.getName(), p.getDestination(), p.getMassKG(), p.getType(), p.isActive()));
+            }
+            copy.setPayload(payload);
+        }
+        return copy;
+    }
+
+    private static Rocket copyOf(Rocket rocket) {
+        if (null == rocket)
+            return null;
+        Rocket copy = new Rocket(rocket.getName(), rocket.getCountry(), copyOf(rocket.getManufacturer()));
+        copy.setId(rocket.getId());
+        return copy;
+    }
+
+    private static LaunchServiceProvider copyOf(LaunchServiceProvider provider) {
+        if (null == provider)
+            return null;
+        LaunchServiceProvider copy = new LaunchServiceProvider(provider.getName(), provider.getYearFounded(), provider.getCountry());
+        copy.setId(provider.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,94 @@
+package rockets.mining;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Execution settings of {@link RocketMiner}. A serial miner scans launches on the
+ * calling thread; a parallel miner splits the launches across a fork/join pool
+ * once there are at least <code>threshold</code> of them. A miner scans the launches
+ * for every query, unless it is {@link #cached()}, as the default miner is.
+ * <p>
+ * A configuration that made its own pool shuts it down when closed; a shared pool is
+ * left to its owner.
+ */
+public class MinerConfig implements AutoCloseable {
+    private static final MinerConfig SERIAL = new MinerConfig(null, Integer.MAX_VALUE, false, false);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final boolean cached;
+    private final boolean ownsPool;
+
+    private MinerConfig(ForkJoinPool pool, int threshold, boolean cached, boolean ownsPool) {
+        this.pool = pool;
+        this.threshold = threshold;
+        this.cached = cached;
+        this.ownsPool = ownsPool;
+    }
+
+    public static MinerConfig serial() {
+        return SERIAL;
+    }
+
+    /**
+     * @param parallelism the number of worker threads of the pool.
+     * @param threshold   the number of launches below which the miner stays serial.
+     * @return a parallel configuration with its own pool, which is to be closed once
+     * its miners are no longer used.
+     */
+    public static MinerConfig parallel(int parallelism, int threshold) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive");
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold cannot be negative");
+        return new MinerConfig(new ForkJoinPool(parallelism), threshold, false, true);
+    }
+
+    /**
+     * @param pool      the pool to aggregate on.
+     * @param threshold the number of launches below which the miner stays serial.
+     * @return a parallel configuration sharing the given pool.
+     */
+    public static MinerConfig parallel(ForkJoinPool pool, int threshold) {
+        if (null == pool)
+            throw new NullPointerException("pool cannot be null");
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold cannot be negative");
+        return new MinerConfig(pool, threshold, false, false);
+    }
+
+    /**
+     * @return these settings, but for a miner that keeps the launches it scanned for the
+     * next queries, until the DAO publishes a change or the miner is refreshed. The
+     * copy shares the pool, and closing either closes a pool these settings own.
+     */
+    public MinerConfig cached() {
+        return new MinerConfig(pool, threshold, true, ownsPool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public boolean isParallel(int launches) {
+        return null != pool && launches >= threshold;
+    }
+
+    /**
+     * Shuts the pool down if these settings made it.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+}
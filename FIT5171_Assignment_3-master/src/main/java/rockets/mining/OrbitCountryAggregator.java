@@ -0,0 +1,103 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.Payload;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tallies launches and payload mass per orbit and per country of the launch service provider.
+ */
+public class OrbitCountryAggregator implements LaunchAggregator {
+    private final Map<String, Map<String, CountryTally>> talliesByOrbit = new HashMap<>();
+
+    @Override
+    public void accept(Launch launch) {
+        if (null == launch.getOrbit() || null == launch.getLaunchServiceProvider())
+            return;
+        String country = launch.getLaunchServiceProvider().getCountry();
+        talliesByOrbit.computeIfAbsent(launch.getOrbit(), orbit -> new LinkedHashMap<>())
+                .computeIfAbsent(country, c -> new CountryTally())
+                .add(launch);
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        if (null == launch.getOrbit() || null == launch.getLaunchServiceProvider())
+            return;
+        String country = launch.getLaunchServiceProvider().getCountry();
+        Map<String, CountryTally> tallies = talliesByOrbit.get(launch.getOrbit());
+        if (null != tallies) {
+            tallies.computeIfPresent(country, (c, tally) -> tally.remove(launch) ? tally : null);
+            if (tallies.isEmpty()) {
+                talliesByOrbit.remove(launch.getOrbit());
+            }
+        }
+    }
+
+    /**
+     * Adds the tallies of another aggregator, which scanned launches that come
+     * after the ones this aggregator scanned.
+     *
+     * @param other the aggregator to merge in.
+     */
+    public void merge(OrbitCountryAggregator other) {
+        other.talliesByOrbit.forEach((orbit, tallies) -> {
+            Map<String, CountryTally> merged = talliesByOrbit.computeIfAbsent(orbit, o -> new LinkedHashMap<>());
+            tallies.forEach((country, tally) -> merged.computeIfAbsent(country, c -> new CountryTally()).add(tally));
+        });
+    }
+
+    /**
+     * @param orbit the orbit
+     * @return the tally of every country that launched into <code>orbit</code>.
+     */
+    public Map<String, CountryTally> getTallies(String orbit) {
+        return Collections.unmodifiableMap(talliesByOrbit.getOrDefault(orbit, Collections.emptyMap()));
+    }
+
+    static long payloadMass(Launch launch) {
+        long mass = 0;
+        if (null != launch.getPayload()) {
+            for (Payload payload : launch.getPayload()) {
+                mass += payload.getMassKG();
+            }
+        }
+        return mass;
+    }
+
+    /**
+     * Launch count and total payload mass of one country in one orbit.
+     */
+    public static class CountryTally {
+        private int launches;
+        private long payloadMass;
+
+        void add(Launch launch) {
+            launches++;
+            payloadMass += payloadMass(launch);
+        }
+
+        void add(CountryTally other) {
+            launches += other.launches;
+            payloadMass += other.payloadMass;
+        }
+
+        // returns false once no launch is left
+        boolean remove(Launch launch) {
+            payloadMass -= payloadMass(launch);
+            return --launches > 0;
+        }
+
+        public int getLaunches() {
+            return launches;
+        }
+
+        public long getPayloadMass() {
+            return payloadMass;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Counts successful and total launches grouped by a key extracted from each launch,
+ * e.g. the launch service provider.
+ */
+public class OutcomeCounter<K> implements LaunchAggregator {
+    private final Function<Launch, K> keyExtractor;
+    private final Map<K, Outcomes> outcomes = new LinkedHashMap<>();
+
+    public OutcomeCounter(Function<Launch, K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void accept(Launch launch) {
+        K key = keyExtractor.apply(launch);
+        if (null != key) {
+            outcomes.computeIfAbsent(key, k -> new Outcomes()).add(launch);
+        }
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        K key = keyExtractor.apply(launch);
+        if (null != key) {
+            outcomes.computeIfPresent(key, (k, counters) -> counters.remove(launch) ? counters : null);
+        }
+    }
+
+    /**
+     * Adds the counters of another outcome counter, which scanned launches that
+     * come after the ones this counter scanned.
+     *
+     * @param other the outcome counter to merge in.
+     */
+    public void merge(OutcomeCounter<K> other) {
+        other.outcomes.forEach((key, counters) -> outcomes.computeIfAbsent(key, k -> new Outcomes()).add(counters));
+    }
+
+    public Map<K, Outcomes> getOutcomes() {
+        return Collections.unmodifiableMap(outcomes);
+    }
+
+    /**
+     * Successful and total launch counters of one group.
+     */
+    public static class Outcomes {
+        private int successful;
+        private int total;
+
+        void add(Launch launch) {
+            if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
+                successful++;
+            }
+            total++;
+        }
+
+        void add(Outcomes other) {
+            successful += other.successful;
+            total += other.total;
+        }
+
+        // returns false once no launch is left
+        boolean remove(Launch launch) {
+            if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
+                successful--;
+            }
+            return --total > 0;
+        }
+
+        public int getSuccessful() {
+            return successful;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public double getRatio() {
+            return (0 == total) ? 0 : (successful * 1.0) / total;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds {@link LaunchStatistics} on a fork/join pool. The launches are split in
+ * halves until a part is small enough, each part is scanned into its own partial
+ * statistics, and the partials are merged left to right, so the result is the
+ * same as the one of a serial scan.
+ */
+class ParallelLaunchScan extends RecursiveTask<LaunchStatistics> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Launch> launches;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    private ParallelLaunchScan(List<Launch> launches, int from, int to, int leafSize) {
+        this.launches = launches;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * @param launches    the launches to scan, must support fast random access.
+     * @param parallelism the number of workers the launches are spread over.
+     */
+    static ParallelLaunchScan of(List<Launch> launches, int parallelism) {
+        // a few parts per worker so that faster workers can steal the rest
+        int leafSize = Math.max(1, launches.size() / (parallelism * 4));
+        return new ParallelLaunchScan(launches, 0, launches.size(), leafSize);
+    }
+
+    @Override
+    protected LaunchStatistics compute() {
+        if (to - from <= leafSize) {
+            return LaunchStatistics.of(launches.subList(from, to));
+        }
+        int middle = (from + to) >>> 1;
+        ParallelLaunchScan left = new ParallelLaunchScan(launches, from, middle, leafSize);
+        ParallelLaunchScan right = new ParallelLaunchScan(launches, middle, to, leafSize);
+        right.fork();
+        LaunchStatistics statistics = left.compute();
+        statistics.merge(right.join());
+        return statistics;
+    }
+}
@@ -0,0 +1,77 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sums launch prices per year and per launch service provider. The launch price
+ * is considered as the sales revenue of the rocket's manufacturer.
+ */
+public class RevenueAggregator implements LaunchAggregator {
+    private final Map<Integer, Map<LaunchServiceProvider, BigDecimal>> revenueByYear = new HashMap<>();
+    // priced launches per year and provider, to know when a provider has none left
+    private final Map<Integer, Map<LaunchServiceProvider, Integer>> launchesByYear = new HashMap<>();
+
+    @Override
+    public void accept(Launch launch) {
+        if (null == launch.getLaunchDate() || null == launch.getPrice() || null == launch.getLaunchVehicle())
+            return;
+        int year = launch.getLaunchDate().getYear();
+        LaunchServiceProvider lsp = launch.getLaunchVehicle().getManufacturer();
+        revenueByYear.computeIfAbsent(year, y -> new LinkedHashMap<>()).merge(lsp, launch.getPrice(), BigDecimal::add);
+        launchesByYear.computeIfAbsent(year, y -> new HashMap<>()).merge(lsp, 1, Integer::sum);
+    }
+
+    @Override
+    public void retract(Launch launch) {
+        if (null == launch.getLaunchDate() || null == launch.getPrice() || null == launch.getLaunchVehicle())
+            return;
+        int year = launch.getLaunchDate().getYear();
+        LaunchServiceProvider lsp = launch.getLaunchVehicle().getManufacturer();
+        Map<LaunchServiceProvider, Integer> launches = launchesByYear.get(year);
+        if (null == launches || !launches.containsKey(lsp))
+            return;
+        Map<LaunchServiceProvider, BigDecimal> revenue = revenueByYear.get(year);
+        if (launches.merge(lsp, -1, Integer::sum) > 0) {
+            revenue.computeIfPresent(lsp, (p, sum) -> sum.subtract(launch.getPrice()));
+        } else {
+            launches.remove(lsp);
+            revenue.remove(lsp);
+            if (launches.isEmpty()) {
+                launchesByYear.remove(year);
+                revenueByYear.remove(year);
+            }
+        }
+    }
+
+    /**
+     * Adds the revenue of another aggregator, which scanned launches that come
+     * after the ones this aggregator scanned.
+     *
+     * @param other the aggregator to merge in.
+     */
+    public void merge(RevenueAggregator other) {
+        other.revenueByYear.forEach((year, revenue) -> {
+            Map<LaunchServiceProvider, BigDecimal> merged = revenueByYear.computeIfAbsent(year, y -> new LinkedHashMap<>());
+            revenue.forEach((lsp, sum) -> merged.merge(lsp, sum, BigDecimal::add));
+        });
+        other.launchesByYear.forEach((year, launches) -> {
+            Map<LaunchServiceProvider, Integer> merged = launchesByYear.computeIfAbsent(year, y -> new HashMap<>());
+            launches.forEach((lsp, count) -> merged.merge(lsp, count, Integer::sum));
+        });
+    }
+
+    /**
+     * @param year the year
+     * @return the revenue of every launch service provider that launched in <code>year</code>.
+     */
+    public Map<LaunchServiceProvider, BigDecimal> getRevenue(int year) {
+        return Collections.unmodifiableMap(revenueByYear.getOrDefault(year, Collections.emptyMap()));
+    }
+}
@@ -3,31 +3,158 @@ package rockets.mining;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityListener;
+import rockets.dataaccess.FetchPlan;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
-import rockets.model.Payload;
 import rockets.model.Rocket;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static java.util.Map.Entry.comparingByValue;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsLast;
 
 public class RocketMiner {
-    private static Logger logger = LoggerFactory.getLogger(RocketMiner.class);
+    protected static Logger logger = LoggerFactory.getLogger(RocketMiner.class);
 
-    private DAO dao;
-    private static final String noNegativeK = "k cannot be negative";
+    protected final DAO dao;
+    protected static final String noNegativeK = "k cannot be negative";
 
+    // Ties in every ranking are broken by the natural key of the ranked entity
+    static final Comparator<Rocket> ROCKET_ORDER = Comparator
+            .comparing(Rocket::getName, nullsLast(naturalOrder()))
+            .thenComparing(Rocket::getCountry, nullsLast(naturalOrder()));
+    static final Comparator<LaunchServiceProvider> PROVIDER_ORDER = Comparator
+            .comparing(LaunchServiceProvider::getName, nullsLast(naturalOrder()))
+            .thenComparingInt(LaunchServiceProvider::getYearFounded)
+            .thenComparing(LaunchServiceProvider::getCountry, nullsLast(naturalOrder()));
 
+
+    // the revenue reads the manufacturer of each launch vehicle, two relationships away
+    static final FetchPlan LAUNCH_SCAN = FetchPlan.depth(2);
+
+    private volatile LaunchStatistics statistics;
+    private final MaterializedLaunchStatistics materializedStatistics;
+    private final MinerConfig config;
+
+
+    /**
+     * Creates a serial miner that scans the launches once for all its queries, and again
+     * once the DAO publishes a change, see {@link MinerConfig#cached()}. A miner that scans
+     * for every query is made with {@link MinerConfig#serial()}.
+     *
+     * @param dao the DAO to load launches from.
+     */
     public RocketMiner(DAO dao) {
+        this(dao, MinerConfig.serial().cached());
+    }
+
+    /**
+     * Creates a miner that scans the launches as configured, e.g. in parallel.
+     *
+     * @param dao    the DAO to load launches from.
+     * @param config the execution settings.
+     */
+    public RocketMiner(DAO dao, MinerConfig config) {
         this.dao = dao;
+        this.config = config;
+        this.materializedStatistics = null;
+        // the scan is dropped once the events of a write arrive
+        if (config.isCached() && !listen(dao, event -> refresh())) {
+            logger.info(dao.getClass().getSimpleName() + " does not publish its changes, so the scan is kept until refreshed");
+        }
+    }
+
+    /**
+     * Registers the listener if the DAO publishes its changes.
+     *
+     * @return whether the DAO publishes its changes.
+     */
+    static boolean listen(DAO dao, EntityListener listener) {
+        try {
+            dao.addListener(listener);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a miner that answers from statistics maintained on every write,
+     * e.g. by a {@link LaunchStatisticsDAO}, and never rescans the launches.
+     *
+     * @param dao                    the DAO to load launches from.
+     * @param materializedStatistics the maintained statistics.
+     */
+    public RocketMiner(DAO dao, MaterializedLaunchStatistics materializedStatistics) {
+        this.dao = dao;
+        this.config = MinerConfig.serial();
+        this.materializedStatistics = materializedStatistics;
+    }
+
+    /**
+     * Returns the launch statistics, scanning all launches. A cached miner keeps the scan
+     * for its next queries, until the DAO publishes a change or {@link #refresh()} is called;
+     * only the latter applies to a DAO that does not publish its changes.
+     * A serial miner streams the launches, so the scan runs in constant memory.
+     *
+     * @return the launch statistics.
+     */
+    protected LaunchStatistics statistics() {
+        LaunchStatistics current = statistics;
+        if (null != current) {
+            return current;
+        }
+        current = scan();
+        if (config.isCached()) {
+            statistics = current;
+        }
+        return current;
+    }
+
+    private LaunchStatistics scan() {
+        if (null == config.getPool()) {
+            logger.info("scan launches as a stream");
+            try (Stream<Launch> launches = dao.stream(Launch.class)) {
+                return LaunchStatistics.of(launches::iterator);
+            }
+        }
+        Collection<Launch> launches = dao.loadAll(Launch.class, LAUNCH_SCAN);
+        if (config.isParallel(launches.size())) {
+            logger.info("scan " + launches.size() + " launches in parallel");
+            ParallelLaunchScan scan = ParallelLaunchScan.of(new ArrayList<>(launches), config.getPool().getParallelism());
+            return config.getPool().invoke(scan);
+        }
+        logger.info("scan " + launches.size() + " launches");
+        return LaunchStatistics.of(launches);
+    }
+
+    /**
+     * Runs a query against the maintained statistics if this miner has them,
+     * and against the scanned statistics otherwise.
+     */
+    protected <R> R query(Function<LaunchStatistics, R> query) {
+        if (null != materializedStatistics) {
+            return materializedStatistics.query(query);
+        }
+        return query.apply(statistics());
+    }
+
+    /**
+     * Discards the launch statistics a cached miner keeps, so that the next query rescans
+     * the launches. Maintained statistics are always current and are not affected.
+     */
+    public void refresh() {
+        statistics = null;
     }
 
 
     /**
-     * TODO: to be implemented & tested!
      * Returns the top-k active rocket, as measured by number of launches.
      *
      * @param k the number of rockets to be returned.
@@ -37,31 +164,12 @@ public class RocketMiner {
 
         if (k < 0)
             throw new IllegalArgumentException(noNegativeK);
-        ArrayList<Launch> launches = new ArrayList<>(dao.loadAll(Launch.class));
-        HashMap<Rocket, Integer> countRockets = new HashMap<>();
-        for (Launch launch : launches) {
-            boolean inMap = countRockets.containsKey(launch.getLaunchVehicle());
-            if (inMap) {
-                // Get counter
-                int count = countRockets.get(launch.getLaunchVehicle());
-                countRockets.replace(launch.getLaunchVehicle(), ++count);
-                // Add 1 to counter
-            } else {
-                // Add to map with 1 in counter
-                countRockets.put(launch.getLaunchVehicle(), 1);
-            }
-        }
-        // Demonstrated in https://www.javacodegeeks.com/2017/09/java-8-sorting-hashmap-values-ascending-descending-order.html
-        Map<Rocket, Integer> sortedCountRockets = countRockets.entrySet().stream().sorted(Collections.reverseOrder(comparingByValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
-        ArrayList<Rocket> sortedRocketList = new ArrayList<>();
-        sortedCountRockets.forEach((key, value) -> sortedRocketList.add(key));
-        return (k > sortedRocketList.size()) ? sortedRocketList : sortedRocketList.subList(0, k);
+        Comparator<Map.Entry<Rocket, Integer>> mostLaunched = Map.Entry.<Rocket, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(ROCKET_ORDER));
+        return keys(query(stats -> TopKSelector.select(stats.getRocketLaunches().getCounts().entrySet(), k, mostLaunched)));
     }
 
     /**
-     * TODO: to be implemented & tested!
-     * <p>
      * Returns the top-k most reliable launch service providers as measured
      * by percentage of successful launches.
      *
@@ -73,41 +181,10 @@ public class RocketMiner {
         logger.info("find most reliable " + k + " launch service providers");
         if (k < 0)
             throw new IllegalArgumentException(noNegativeK);
-        ArrayList<Launch> launches = new ArrayList<>(dao.loadAll(Launch.class));
-        HashMap<LaunchServiceProvider, Integer[]> totalLaunches = new HashMap<>();
-
-        // Counting the total number of launches a launch service provider has done
-        for (Launch launch : launches) {
-            boolean inMap = totalLaunches.containsKey(launch.getLaunchServiceProvider());
-            if (inMap) { // If already in the map totalLaunches, add 1
-                int currentSuccessful = totalLaunches.get(launch.getLaunchServiceProvider())[0];
-                int currentTotal = totalLaunches.get(launch.getLaunchServiceProvider())[1];
-                if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
-                    currentSuccessful++;
-                }
-                totalLaunches.replace(launch.getLaunchServiceProvider(), new Integer[] {currentSuccessful, ++currentTotal});
-            } else { // If not in the map totalLaunches (i.e. it's the first one found)
-                int successful = 0;
-                if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
-                    successful++;
-                }
-                totalLaunches.put(launch.getLaunchServiceProvider(), new Integer[] {successful, 1});
-            }
-        }
-
-        // Calculating ratio
-        HashMap<LaunchServiceProvider, Double> reliabilityRatio = new HashMap<>();
-        totalLaunches.forEach((key, value) -> reliabilityRatio.put(key, (value[0] * 1.0) / value[1]));
-
-        //TODO: discuss this line of code
-        // Demonstrated in https://www.javacodegeeks.com/2017/09/java-8-sorting-hashmap-values-ascending-descending-order.html
-        Map<LaunchServiceProvider, Double> sortedReliabilityRatio = reliabilityRatio.entrySet().stream()
-                .sorted(Collections.reverseOrder(comparingByValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
-
-        List<LaunchServiceProvider> reliableProviders = new ArrayList<>();
-        sortedReliabilityRatio.forEach((key, value) -> reliableProviders.add(key));
-        return (k > reliableProviders.size()) ? reliableProviders : reliableProviders.subList(0, k);
+        Comparator<Map.Entry<LaunchServiceProvider, OutcomeCounter.Outcomes>> mostReliable = Comparator
+                .<Map.Entry<LaunchServiceProvider, OutcomeCounter.Outcomes>>comparingDouble(e -> e.getValue().getRatio()).reversed()
+                .thenComparing(Map.Entry.comparingByKey(PROVIDER_ORDER));
+        return keys(query(stats -> TopKSelector.select(stats.getProviderOutcomes().getOutcomes().entrySet(), k, mostReliable)));
     }
 
     /**
@@ -121,13 +198,13 @@ public class RocketMiner {
         logger.info("find most recent " + k + " launches");
         if (k < 0)
             throw new IllegalArgumentException(noNegativeK);
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Comparator<Launch> launchDateComparator = (a, b) -> -a.getLaunchDate().compareTo(b.getLaunchDate());
-        return launches.stream().sorted(launchDateComparator).limit(k).collect(Collectors.toList());
+        Comparator<Launch> launchDateComparator = Comparator.comparing(Launch::getLaunchDate, nullsLast(Comparator.<LocalDate>reverseOrder()));
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            return TopKSelector.select(launches::iterator, k, launchDateComparator);
+        }
     }
 
     /**
-     * TODO: to be implemented & tested!
      * <p>
      * Returns the successful launch rate in <code>year</code> measured by the
      * number of successful launches and total number of launches
@@ -136,76 +213,37 @@ public class RocketMiner {
      * @return the successful launch rate in BigDecimal with scale 2.
      */
     public BigDecimal successfulLaunchRateInYear(int year) {
-        return BigDecimal.valueOf(0);
+        logger.info("find successful launch rate in " + year);
+        return successfulLaunchRateInYears(year, year);
     }
 
-    public String dominantCountry(String orbit) {
-        logger.info("find most dominant country in orbit " + orbit);
-        ArrayList<Launch> launches = new ArrayList<>(dao.loadAll(Launch.class));
-        Map<String, ArrayList<Launch>> allLaunchesByCountry = new HashMap<>();
-
-        for(Launch launch : launches) {
-            if (launch.getOrbit().equals(orbit)) {
-                Set<String> countries = allLaunchesByCountry.keySet();
-                String launchCountry = launch.getLaunchServiceProvider().getCountry();
-                if (countries.contains(launchCountry)) {
-                    ArrayList<Launch> countryLaunches = allLaunchesByCountry.get(launchCountry);
-                    countryLaunches.add(launch);
-                    allLaunchesByCountry.put(launchCountry, countryLaunches);
-                } else {
-                    ArrayList<Launch> countryLaunches = new ArrayList<>();
-                    countryLaunches.add(launch);
-                    allLaunchesByCountry.put(launchCountry, countryLaunches);
-                }
-            }
-        }
-
-        Map<String, ArrayList<Launch>> sortedAllLaunches = allLaunchesByCountry
-                .entrySet()
-                .stream()
-                .sorted(Comparator.comparing(e -> e.getValue().size(), Comparator.reverseOrder()))
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue(), (e1, e2) -> e2, LinkedHashMap::new));
-
-        List<String> sortedCountries = new ArrayList<>(sortedAllLaunches.keySet());
-
-        if (sortedCountries.size() > 1) {
-            if (allLaunchesByCountry.get(sortedCountries.get(0)).size() == allLaunchesByCountry.get(sortedCountries.get(1)).size()) {
-                //if top two countries have same number of rockets in orbit
-                //return the one with more payload mass
-
-                ArrayList<Launch> countryLaunches1 = allLaunchesByCountry.get(sortedCountries.get(0));
-                ArrayList<Launch> countryLaunches2 = allLaunchesByCountry.get(sortedCountries.get(1));
-                if (CalculatePayloadMass(countryLaunches1) > CalculatePayloadMass(countryLaunches2)) {
-                    return sortedCountries.get(0);
-                } else {
-                    return sortedCountries.get(1);
-                }
-            } else {
-                //return the top country on the list
-                return sortedCountries.get(0);
-            }
-        } else {
-            return sortedCountries.get(0);
-        }
+    /**
+     * Returns the successful launch rate from <code>fromYear</code> to <code>toYear</code>,
+     * both inclusive, measured by the number of successful launches and total number of launches.
+     * The rate is summed from the calendar buckets of the years, so once the launches are
+     * scanned, or on maintained statistics, a query does not depend on the number of launches.
+     *
+     * @param fromYear the first year
+     * @param toYear   the last year
+     * @return the successful launch rate in BigDecimal with scale 2.
+     */
+    public BigDecimal successfulLaunchRateInYears(int fromYear, int toYear) {
+        return query(stats -> stats.getCalendar().getSuccessfulLaunchRate(fromYear, toYear));
     }
 
-    private int CalculatePayloadMass(ArrayList<Launch> countryLaunches) {
-        int countryPayloadMass = 0;
-        for(Launch launch : countryLaunches) {
-            ArrayList<Payload> payloads = new ArrayList<Payload>();
-            payloads.addAll(launch.getPayload());
-            int launchPayloadMass = 0;
-            for (Payload payload : payloads) {
-                launchPayloadMass += payload.getMassKG();
-            }
-            countryPayloadMass += launchPayloadMass;
-        }
-        return countryPayloadMass;
+    public String dominantCountry(String orbit) {
+        logger.info("find most dominant country in orbit " + orbit);
+        // most launches first; if countries have same number of rockets in orbit,
+        // the one with more payload mass
+        Comparator<Map.Entry<String, OrbitCountryAggregator.CountryTally>> dominance = Comparator
+                .<Map.Entry<String, OrbitCountryAggregator.CountryTally>>comparingInt(e -> e.getValue().getLaunches()).reversed()
+                .thenComparing(Comparator.<Map.Entry<String, OrbitCountryAggregator.CountryTally>>comparingLong(e -> e.getValue().getPayloadMass()).reversed())
+                .thenComparing(Map.Entry.comparingByKey(nullsLast(naturalOrder())));
+        List<String> dominantCountries = keys(query(stats -> TopKSelector.select(stats.getOrbitCountries().getTallies(orbit).entrySet(), 1, dominance)));
+        return dominantCountries.isEmpty() ? null : dominantCountries.get(0);
     }
 
     /**
-     * TODO: to be implemented & tested!
-     * <p>
      * Returns the top-k most expensive launches.
      *
      * @param k the number of launches to be returned.
@@ -214,10 +252,10 @@ public class RocketMiner {
     public List<Launch> mostExpensiveLaunches(int k) {
 
         logger.info("find top " + k + "most expensive launches");
-        ArrayList<Launch> launches = new ArrayList<>(dao.loadAll(Launch.class));
-        //launches.sort((o1, o2) -> o1.getPrice().compareTo(o2.getPrice()));
-        Comparator<Launch> expensiveLaunchesComparator = (o1, o2) -> -o1.getPrice().compareTo(o2.getPrice());
-        return launches.stream().sorted(expensiveLaunchesComparator).limit(k).collect(Collectors.toList());
+        Comparator<Launch> expensiveLaunchesComparator = Comparator.comparing(Launch::getPrice, nullsLast(Comparator.<BigDecimal>reverseOrder()));
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            return TopKSelector.select(launches::iterator, k, expensiveLaunchesComparator);
+        }
     }
 
     public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year)
@@ -232,62 +270,22 @@ public class RocketMiner {
 
         // The launch price is being considered as the launch service provider's sales revenue.
 
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Map<LaunchServiceProvider, Double> salesRevenue = new HashMap<>();
-
-        for (Launch l : launches)
-        {
-            if (l.getLaunchDate().getYear() == year)
-            {
-                LaunchServiceProvider lsp = l.getLaunchVehicle().getManufacturer();
-                double value = l.getPrice().doubleValue();
-
-                if (salesRevenue.containsKey(lsp))
-                {
-                    double currentValue = salesRevenue.get(lsp).doubleValue();
-                    salesRevenue.put(lsp, (currentValue + value));
-                }
-                else
-                {
-                    salesRevenue.put(lsp, value);
-                }
-            }
-        }
+        Comparator<Map.Entry<LaunchServiceProvider, BigDecimal>> highestRevenue = Map.Entry.<LaunchServiceProvider, BigDecimal>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(nullsLast(PROVIDER_ORDER)));
 
-        Map<LaunchServiceProvider, Double> sales = salesRevenue.entrySet().stream().sorted(Collections.reverseOrder(comparingByValue())).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
-
-        List<LaunchServiceProvider> sortedRevenue = new ArrayList<>();
-        int x = 0;
-        for (LaunchServiceProvider key: sales.keySet())
-        {
-            if (x < k)
-            {
-                sortedRevenue.add(key);
-                x++;
-            }
-            else
-            {
-                break;
-            }
-        }
-
-        return sortedRevenue;
+        return keys(query(stats -> TopKSelector.select(stats.getRevenue().getRevenue(year).entrySet(), k, highestRevenue)));
     }
 
     public Rocket rocketWithMostActivePayloads(String country) {
-        ArrayList<Launch> launches = new ArrayList<>(dao.loadAll(Launch.class));
-        int highestSoFar = 0;
-        Rocket currentHighestRocket = null;
-        for (Launch launch : launches) {
-            int currentTotalActivePayloads = 0;
-            if (launch.getPayload() != null && launch.getLaunchVehicle().getCountry().equals(country)) {
-                for (Payload payload : launch.getPayload()) {
-                    currentTotalActivePayloads += (payload.isActive()) ? 1 : 0;
-                }
-                if (currentTotalActivePayloads > highestSoFar)
-                    currentHighestRocket = launch.getLaunchVehicle();
-            }
-        }
-        return currentHighestRocket;
+        Comparator<Map.Entry<Rocket, Integer>> mostActive = Map.Entry.<Rocket, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(ROCKET_ORDER));
+        return query(stats -> {
+            List<Map.Entry<Rocket, Integer>> top = TopKSelector.select(stats.getActivePayloads().getActivePayloads(country).entrySet(), 1, mostActive);
+            return (top.isEmpty() || top.get(0).getValue() == 0) ? null : top.get(0).getKey();
+        });
+    }
+
+    private static <K, V> List<K> keys(List<Map.Entry<K, V>> entries) {
+        return entries.stream().map(Map.Entry::getKey).collect(Collectors.toList());
     }
 }
@@ -0,0 +1,91 @@
+package rockets.mining;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the k best items of a sequence in O(n log k) time and O(k) space by
+ * keeping a bounded heap whose head is the worst item kept so far.
+ * <p>
+ * Items are ranked by the given order, best first. Items that the order considers
+ * equal are ranked by the order they were offered in, so the result is deterministic.
+ *
+ * @param <T> the type of the items.
+ */
+public class TopKSelector<T> {
+    private final int k;
+    private final Comparator<Ranked<T>> ranking;
+    private final PriorityQueue<Ranked<T>> heap;
+    private long offered;
+
+    /**
+     * @param k     the number of items to keep, cannot be negative.
+     * @param order the ranking order, the best item first.
+     */
+    public TopKSelector(int k, Comparator<? super T> order) {
+        if (k < 0)
+            throw new IllegalArgumentException("k cannot be negative");
+        if (null == order)
+            throw new NullPointerException("order cannot be null");
+        this.k = k;
+        this.ranking = Comparator.<Ranked<T>, T>comparing(ranked -> ranked.item, order)
+                .thenComparingLong(ranked -> ranked.sequence);
+        this.heap = new PriorityQueue<>(Math.max(1, k), ranking.reversed());
+    }
+
+    /**
+     * Selects the k best items of <code>items</code>.
+     *
+     * @param items the items to choose from.
+     * @param k     the number of items to select.
+     * @param order the ranking order, the best item first.
+     * @return at most k items, the best first.
+     */
+    public static <T> List<T> select(Iterable<? extends T> items, int k, Comparator<? super T> order) {
+        TopKSelector<T> selector = new TopKSelector<>(k, order);
+        for (T item : items) {
+            selector.offer(item);
+        }
+        return selector.getResult();
+    }
+
+    /**
+     * Offers an item, keeping it only if it ranks among the k best seen so far.
+     *
+     * @param item the item to offer.
+     */
+    public void offer(T item) {
+        Ranked<T> ranked = new Ranked<>(item, offered++);
+        if (heap.size() < k) {
+            heap.add(ranked);
+        } else if (k > 0 && ranking.compare(ranked, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(ranked);
+        }
+    }
+
+    /**
+     * @return the kept items, the best first.
+     */
+    public List<T> getResult() {
+        List<Ranked<T>> kept = new ArrayList<>(heap);
+        kept.sort(ranking);
+        List<T> result = new ArrayList<>(kept.size());
+        for (Ranked<T> ranked : kept) {
+            result.add(ranked.item);
+        }
+        return result;
+    }
+
+    private static class Ranked<T> {
+        private final T item;
+        private final long sequence;
+
+        private Ranked(T item, long sequence) {
+            this.item = item;
+            this.sequence = sequence;
+        }
+    }
+}
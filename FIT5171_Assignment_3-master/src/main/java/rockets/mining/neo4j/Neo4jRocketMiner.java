@@ -0,0 +1,151 @@
+package rockets.mining.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.mining.RocketMiner;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A miner that runs its queries as Cypher aggregations in Neo4j, so that only the
+ * ids of the k result rows leave the database and only those entities are loaded.
+ * Rankings are broken the same way as in {@link RocketMiner}, by natural key.
+ * <p>
+ * Launch dates and prices are stored as strings by OGM, so dates are compared as
+ * ISO strings and prices are converted with <code>toFloat</code>.
+ */
+public class Neo4jRocketMiner extends RocketMiner {
+    private static final String MOST_LAUNCHED_ROCKETS =
+            "MATCH (l:Launch)-[:LAUNCH_VEHICLE]->(r:Rocket) " +
+            "WITH r, count(l) AS launches " +
+            "RETURN id(r) AS id ORDER BY launches DESC, r.name, r.country LIMIT $k";
+
+    private static final String MOST_RELIABLE_PROVIDERS =
+            "MATCH (l:Launch)-[:LAUNCH_SERVICE_PROVIDER]->(p:LaunchServiceProvider) " +
+            "WITH p, count(l) AS total, sum(CASE WHEN l.launchOutcome = 'SUCCESSFUL' THEN 1 ELSE 0 END) AS successful " +
+            "RETURN id(p) AS id ORDER BY toFloat(successful) / total DESC, p.name, p.yearFounded, p.country LIMIT $k";
+
+    private static final String MOST_RECENT_LAUNCHES =
+            "MATCH (l:Launch) " +
+            "RETURN id(l) AS id ORDER BY l.launchDate IS NULL, l.launchDate DESC, id(l) LIMIT $k";
+
+    private static final String MOST_EXPENSIVE_LAUNCHES =
+            "MATCH (l:Launch) " +
+            "RETURN id(l) AS id ORDER BY l.price IS NULL, toFloat(l.price) DESC, id(l) LIMIT $k";
+
+    private static final String HIGHEST_REVENUE_PROVIDERS =
+            "MATCH (l:Launch)-[:LAUNCH_VEHICLE]->(:Rocket)<-[:MANUFACTURES]-(p:LaunchServiceProvider) " +
+            "WHERE l.launchDate >= $from AND l.launchDate < $to AND l.price IS NOT NULL " +
+            "WITH p, sum(toFloat(l.price)) AS revenue " +
+            "RETURN id(p) AS id ORDER BY revenue DESC, p.name, p.yearFounded, p.country LIMIT $k";
+
+    private static final String SUCCESSFUL_LAUNCH_RATE =
+            "MATCH (l:Launch) WHERE l.launchDate >= $from AND l.launchDate < $to " +
+            "RETURN count(l) AS total, sum(CASE WHEN l.launchOutcome = 'SUCCESSFUL' THEN 1 ELSE 0 END) AS successful";
+
+    private static final String DOMINANT_COUNTRY =
+            "MATCH (l:Launch {orbit: $orbit})-[:LAUNCH_SERVICE_PROVIDER]->(p:LaunchServiceProvider) " +
+            "OPTIONAL MATCH (l)-[:PAYLOAD]->(payload:Payload) " +
+            "WITH l, p.country AS country, sum(coalesce(payload.massKG, 0)) AS mass " +
+            "WITH country, count(l) AS launches, sum(mass) AS payloadMass " +
+            "RETURN country ORDER BY launches DESC, payloadMass DESC, country LIMIT 1";
+
+    private static final String ROCKET_WITH_MOST_ACTIVE_PAYLOADS =
+            "MATCH (l:Launch)-[:LAUNCH_VEHICLE]->(r:Rocket {country: $country}) " +
+            "MATCH (l)-[:PAYLOAD]->(payload:Payload) " +
+            "WITH r, sum(CASE WHEN payload.isActive THEN 1 ELSE 0 END) AS active WHERE active > 0 " +
+            "RETURN id(r) AS id ORDER BY active DESC, r.name, r.country LIMIT 1";
+
+    private final Neo4jDAO neo4j;
+
+    public Neo4jRocketMiner(Neo4jDAO dao) {
+        super(dao);
+        this.neo4j = dao;
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return neo4j.loadAll(Rocket.class, ids(MOST_LAUNCHED_ROCKETS, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        logger.info("find most reliable " + k + " launch service providers");
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return neo4j.loadAll(LaunchServiceProvider.class, ids(MOST_RELIABLE_PROVIDERS, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        logger.info("find most recent " + k + " launches");
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return neo4j.loadAll(Launch.class, ids(MOST_RECENT_LAUNCHES, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        logger.info("find top " + k + "most expensive launches");
+        if (k < 0)
+            throw new IllegalArgumentException(noNegativeK);
+        return neo4j.loadAll(Launch.class, ids(MOST_EXPENSIVE_LAUNCHES, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        if (k < 0)
+            throw new IllegalArgumentException("The value of k cannot be negative.");
+        Map<String, Object> parameters = ImmutableMap.of("k", k,
+                "from", LocalDate.of(year, 1, 1).toString(), "to", LocalDate.of(year + 1, 1, 1).toString());
+        return neo4j.loadAll(LaunchServiceProvider.class, ids(HIGHEST_REVENUE_PROVIDERS, parameters));
+    }
+
+    @Override
+    public BigDecimal successfulLaunchRateInYears(int fromYear, int toYear) {
+        if (fromYear > toYear)
+            throw new IllegalArgumentException("fromYear cannot be after toYear");
+        Map<String, Object> parameters = ImmutableMap.of(
+                "from", LocalDate.of(fromYear, 1, 1).toString(), "to", LocalDate.of(toYear + 1, 1, 1).toString());
+        Map<String, Object> row = neo4j.query(SUCCESSFUL_LAUNCH_RATE, parameters).iterator().next();
+        long total = ((Number) row.get("total")).longValue();
+        if (0 == total)
+            return BigDecimal.ZERO.setScale(2);
+        long successful = ((Number) row.get("successful")).longValue();
+        return BigDecimal.valueOf(successful).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public String dominantCountry(String orbit) {
+        logger.info("find most dominant country in orbit " + orbit);
+        for (Map<String, Object> row : neo4j.query(DOMINANT_COUNTRY, Collections.singletonMap("orbit", orbit))) {
+            return (String) row.get("country");
+        }
+        return null;
+    }
+
+    @Override
+    public Rocket rocketWithMostActivePayloads(String country) {
+        List<Rocket> rockets = neo4j.loadAll(Rocket.class, ids(ROCKET_WITH_MOST_ACTIVE_PAYLOADS, Collections.singletonMap("country", country)));
+        return rockets.isEmpty() ? null : rockets.get(0);
+    }
+
+    private List<Long> ids(String cypher, Map<String, ?> parameters) {
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> row : neo4j.query(cypher, parameters)) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        return ids;
+    }
+}
@@ -1,5 +1,7 @@
 package rockets.model;
 
+import org.neo4j.ogm.annotation.CompositeIndex;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -7,6 +9,7 @@ import java.util.Set;
 
 import static org.apache.commons.lang3.Validate.notBlank;
 
+@CompositeIndex(properties = {"launchDate", "launchSite"})
 public class Launch extends Entity {
     public enum LaunchOutcome {
         FAILED, SUCCESSFUL
@@ -1,6 +1,7 @@
 package rockets.model;
 
 import com.google.common.collect.Sets;
+import org.neo4j.ogm.annotation.CompositeIndex;
 import static org.apache.commons.lang3.Validate.notBlank;
 
 
@@ -12,6 +13,7 @@ import java.text.SimpleDateFormat;
 import java.util.Objects;
 import java.util.Set;
 
+@CompositeIndex(properties = {"name", "yearFounded", "country"})
 public class LaunchServiceProvider extends Entity
 {
     private String name;
@@ -17,6 +17,8 @@ public class Payload extends Entity {
     // isActive indicates the status of the payload, e.g. false for retired astronauts
     private boolean isActive;
 
+    public Payload() {}
+
     public Payload(String name, String destination, int massKG, String type, boolean isActive) {
         this.name = name;
         this.destination = destination;
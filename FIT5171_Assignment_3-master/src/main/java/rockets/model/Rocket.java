@@ -18,7 +18,7 @@ import static org.neo4j.ogm.annotation.Relationship.INCOMING;
 import static org.neo4j.ogm.annotation.Relationship.OUTGOING;
 
 @NodeEntity
-@CompositeIndex(properties = {"name", "country", "manufacturer"}, unique = true)
+@CompositeIndex(properties = {"name", "country"})
 public class Rocket extends Entity {
     @Property(name="name")
     private String name;
@@ -1,5 +1,6 @@
 package rockets.model;
 
+import org.neo4j.ogm.annotation.Index;
 import org.neo4j.ogm.annotation.NodeEntity;
 
 import java.util.Objects;
@@ -13,6 +14,7 @@ public class User extends Entity {
 
     private String lastName;
 
+    @Index(unique = true)
     private String email;
 
     private String password;
@@ -0,0 +1,95 @@
+package rockets.tools;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.dataaccess.snapshot.Snapshot;
+import rockets.mining.ColumnarRocketMiner;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Exports a Neo4j store to a snapshot file, and times warm starts from either, so that
+ * the two can be compared:
+ * <pre>
+ * export &lt;neo4j-dir&gt; &lt;snapshot-file&gt;   writes a snapshot of the store
+ * load &lt;snapshot-file&gt;                 restores a snapshot into memory and runs a first query
+ * load-store &lt;neo4j-dir&gt;               opens the store and runs the same first query
+ * </pre>
+ * The first query ranks the most launched rocket, which reads every launch.
+ */
+public class SnapshotTool {
+    private static final int USAGE = 2;
+
+    public static void main(String[] args) throws IOException {
+        int status = run(args, System.out);
+        if (0 != status) {
+            System.exit(status);
+        }
+    }
+
+    static int run(String[] args, PrintStream out) throws IOException {
+        if (args.length == 3 && "export".equals(args[0])) {
+            export(args[1], Paths.get(args[2]), out);
+        } else if (args.length == 2 && "load".equals(args[0])) {
+            load(Paths.get(args[1]), out);
+        } else if (args.length == 2 && "load-store".equals(args[0])) {
+            loadStore(args[1], out);
+        } else {
+            out.println("usage: SnapshotTool export <neo4j-dir> <snapshot-file>");
+            out.println("       SnapshotTool load <snapshot-file>");
+            out.println("       SnapshotTool load-store <neo4j-dir>");
+            return USAGE;
+        }
+        return 0;
+    }
+
+    private static void export(String dbAddress, Path file, PrintStream out) throws IOException {
+        long start = System.nanoTime();
+        Neo4jDAO dao = new Neo4jDAO(dbAddress);
+        try {
+            long written = Snapshot.write(dao, file);
+            out.printf("wrote %d entities, %d bytes, in %d ms%n", written, Files.size(file), millisSince(start));
+        } finally {
+            dao.close();
+        }
+    }
+
+    private static void load(Path file, PrintStream out) throws IOException {
+        long start = System.nanoTime();
+        Snapshot snapshot = Snapshot.read(file);
+        out.printf("read %d entities in %d ms%n", snapshot.size(), millisSince(start));
+        InMemoryDAO dao = new InMemoryDAO();
+        try {
+            snapshot.restoreInto(dao);
+            out.printf("restored into memory in %d ms%n", millisSince(start));
+            firstQuery(dao, start, out);
+        } finally {
+            dao.close();
+        }
+    }
+
+    private static void loadStore(String dbAddress, PrintStream out) {
+        long start = System.nanoTime();
+        Neo4jDAO dao = new Neo4jDAO(dbAddress);
+        try {
+            out.printf("opened the store in %d ms%n", millisSince(start));
+            firstQuery(dao, start, out);
+        } finally {
+            dao.close();
+        }
+    }
+
+    private static void firstQuery(DAO dao, long start, PrintStream out) {
+        new ColumnarRocketMiner(dao).mostLaunchedRockets(1);
+        out.printf("answered the first query in %d ms%n", millisSince(start));
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
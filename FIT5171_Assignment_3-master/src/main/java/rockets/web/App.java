@@ -2,8 +2,13 @@ package rockets.web;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rockets.dataaccess.CachingDAO;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.Page;
+import rockets.dataaccess.PageRequest;
+import rockets.dataaccess.Projection;
 import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.dataaccess.neo4j.UnitOfWork;
 import rockets.model.Rocket;
 import rockets.model.User;
 import spark.ModelAndView;
@@ -16,12 +21,14 @@ import spark.template.freemarker.FreeMarkerEngine;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
-import java.util.Collection;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
 import static org.apache.logging.log4j.core.util.Closer.closeSilently;
+import static spark.Spark.afterAfter;
+import static spark.Spark.before;
 import static spark.Spark.get;
 import static spark.Spark.port;
 import static spark.Spark.post;
@@ -43,7 +50,11 @@ public class App {
 
         String dbAddress = properties.getProperty("neo4j.dir");
         if (null == dao) {
-            dao = new Neo4jDAO(dbAddress);
+            Neo4jDAO store = new Neo4jDAO(dbAddress);
+            handleUnitOfWork(store);
+            dao = new CachingDAO(store, CACHE_MAXIMUM_WEIGHT, CACHE_TIME_TO_LIVE);
+        } else if (dao instanceof Neo4jDAO) {
+            handleUnitOfWork((Neo4jDAO) dao);
         }
 
         // "/"
@@ -94,11 +105,50 @@ public class App {
         Spark.stop();
     }
 
+    private static final String UNIT_OF_WORK = "unitOfWork";
+
+    // the detail pages load entities by id through this cache
+    private static final long CACHE_MAXIMUM_WEIGHT = 10000;
+    private static final Duration CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    // every request runs on its own pooled session, given back once the response is written
+    private static void handleUnitOfWork(Neo4jDAO neo4jDAO) {
+        before((req, res) -> req.attribute(UNIT_OF_WORK, neo4jDAO.beginUnitOfWork()));
+        afterAfter((req, res) -> {
+            UnitOfWork unitOfWork = req.attribute(UNIT_OF_WORK);
+            if (null != unitOfWork) {
+                unitOfWork.close();
+            }
+        });
+    }
+
+    // the listing pages only read these properties
+    private static final Projection<Map<String, Object>> USER_LISTING = Projection.of("firstName", "lastName");
+
+    private static final int LISTING_PAGE_SIZE = 20;
+    private static final int MAX_LISTING_PAGE_SIZE = 100;
+
+    // the first page of a listing, or the page after the cursor given in the query string
+    private static PageRequest listingPage(Request req, String sort) {
+        String size = req.queryParams("size");
+        int pageSize = (null == size) ? LISTING_PAGE_SIZE : Math.min(Integer.parseInt(size), MAX_LISTING_PAGE_SIZE);
+        PageRequest page = PageRequest.first(pageSize).sortedBy(sort);
+        String afterId = req.queryParams("afterId");
+        return (null == afterId) ? page : page.after(req.queryParams("after"), Long.parseLong(afterId));
+    }
+
+    private static void putPage(Map<String, Object> attributes, String name, Page<?> page) {
+        attributes.put(name, page.getContent());
+        if (page.hasNext()) {
+            attributes.put("next", page.getNext());
+        }
+    }
+
     private static void handleGetUsers() {
         get("/users", (req, res) -> {
             Map<String, Object> attributes = new HashMap<String, Object>();
             try {
-                attributes.put("users", dao.loadAll(User.class));
+                putPage(attributes, "users", dao.projectPage(User.class, USER_LISTING, listingPage(req, "lastName")));
                 return new ModelAndView(attributes, "users.html.ftl");
             } catch (Exception e) {
                 return handleException(res, attributes, e, "users.html.ftl");
@@ -162,8 +212,6 @@ public class App {
                 user.setLastName(lastName);
                 dao.createOrUpdate(user);
 
-                Collection<User> a = dao.loadAll(User.class);
-                int b = a.size();
                 res.status(301);
                 req.session(true);
                 req.session().attribute("user", user);
@@ -211,8 +259,6 @@ public class App {
             User user = null;
             try {
                 user = dao.getUserByEmail(user_name);
-                Collection<User> a = dao.loadAll(User.class);
-                int b = a.size();
             } catch (Exception e) {
                 handleException(res, attributes, e, "login.html.ftl");
             }
@@ -233,15 +279,9 @@ public class App {
     private static void handleGetLogout() {
         get("/logout", (req, res) -> {
 
-            Collection<User> a = dao.loadAll(User.class);
-            int b = a.size();
-
             User user = getLoggedInUser(req);
             spark.Session session = req.session();
 
-            Collection<User> c = dao.loadAll(User.class);
-            int d = a.size();
-
             if (null != session && null != user) {
                 session.invalidate();
             }
@@ -310,7 +350,7 @@ public class App {
         get("/rockets", (req, res) -> {
             Map<String, Object> attributes = new HashMap<>();
             try {
-                attributes.put("missions", dao.loadAll(Rocket.class));
+                putPage(attributes, "rockets", dao.projectPage(Rocket.class, Projection.NAME_AND_ID, listingPage(req, "name")));
                 return new ModelAndView(attributes, "rockets.html.ftl");
             } catch (Exception e) {
                 return handleException(res, attributes, e, "rockets.html.ftl");
@@ -1,5 +1,6 @@
 <#-- @ftlvariable name="errorMsg" type="java.lang.String" -->
-<#-- @ftlvariable name="rockets" type="java.util.Collection<rockets.model.Rocket>" -->
+<#-- @ftlvariable name="next" type="rockets.dataaccess.PageRequest" -->
+<#-- @ftlvariable name="rockets" type="java.util.List<java.util.Map<String, Object>>" -->
 
 <!doctype html public "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
 <html>
@@ -26,6 +27,9 @@
         </#list>
 
     </ul>
+    <#if next??>
+        <a href="/rockets?<#if next.afterValue??>after=${next.afterValue?url}&</#if>afterId=${next.afterId?c}&size=${next.size?c}">Next</a>
+    </#if>
 <#else>
     <p>No rocket yet in the system. <a href="/rocket/create">Create one</a> now!</p>
 </#if>
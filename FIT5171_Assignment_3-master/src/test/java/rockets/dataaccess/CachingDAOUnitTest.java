@@ -0,0 +1,110 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingDAOUnitTest {
+    private DAO delegate;
+    private CachingDAO dao;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(DAO.class);
+        dao = new CachingDAO(delegate, 100, null, Runnable::run);
+
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        spacex.setId(1L);
+        rocket = new Rocket("F9", "USA", spacex);
+        rocket.setId(2L);
+        spacex.setRockets(Collections.singleton(rocket));
+        when(delegate.load(LaunchServiceProvider.class, 1L)).thenReturn(spacex);
+        when(delegate.load(Rocket.class, 2L)).thenReturn(rocket);
+        when(delegate.createOrUpdate(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void shouldLoadFromTheStoreOnlyOnAMiss() {
+        assertSame(rocket, dao.load(Rocket.class, 2L));
+        assertSame(rocket, dao.load(Rocket.class, 2L));
+        assertSame(rocket, dao.load(Rocket.class, 2L, FetchPlan.ENTITY));
+        verify(delegate, times(1)).load(Rocket.class, 2L);
+        assertEquals(1, dao.getStats().missCount());
+        assertEquals(2, dao.getStats().hitCount());
+
+        dao.load(Rocket.class, 2L, FetchPlan.SHALLOW);
+        verify(delegate).load(Rocket.class, 2L, FetchPlan.SHALLOW);
+    }
+
+    @Test
+    public void shouldInvalidateSavedEntitiesAndTheirRelatedEntities() {
+        dao.load(Rocket.class, 2L);
+        dao.load(LaunchServiceProvider.class, 1L);
+
+        dao.createOrUpdate(spacex);
+        dao.load(Rocket.class, 2L);
+        dao.load(LaunchServiceProvider.class, 1L);
+        verify(delegate, times(2)).load(Rocket.class, 2L);
+        verify(delegate, times(2)).load(LaunchServiceProvider.class, 1L);
+
+        dao.delete(rocket);
+        dao.load(LaunchServiceProvider.class, 1L);
+        verify(delegate, times(3)).load(LaunchServiceProvider.class, 1L);
+    }
+
+    @Test
+    public void shouldInvalidateTheEntitiesTheDelegatePublishesChangesOf() {
+        ArgumentCaptor<EntityListener> listener = ArgumentCaptor.forClass(EntityListener.class);
+        verify(delegate).addListener(listener.capture());
+        dao.load(Rocket.class, 2L);
+        dao.load(LaunchServiceProvider.class, 1L);
+
+        listener.getValue().onEvent(EntityEvent.updated(rocket));
+        dao.load(Rocket.class, 2L);
+        dao.load(LaunchServiceProvider.class, 1L);
+        verify(delegate, times(2)).load(Rocket.class, 2L);
+        verify(delegate, times(2)).load(LaunchServiceProvider.class, 1L);
+
+        listener.getValue().onEventsLost(1);
+        assertEquals(0, dao.getSize());
+        dao.close();
+        verify(delegate).removeListener(listener.getValue());
+    }
+
+    @Test
+    public void shouldEvictByWeight() {
+        dao = new CachingDAO(delegate, 3, null, Runnable::run);
+        for (long id = 10; id < 15; id++) {
+            when(delegate.load(User.class, id)).thenReturn(new User("Tony", "Stark", "tony" + id + "@stark.com"));
+            dao.load(User.class, id);
+        }
+        assertEquals(3, dao.getSize());
+        assertEquals(2, dao.getStats().evictionCount());
+    }
+
+    @Test
+    public void shouldExpireEntriesAfterTheirTimeToLive() throws InterruptedException {
+        dao = new CachingDAO(delegate, 100, Duration.ofMillis(20), Runnable::run);
+        dao.load(Rocket.class, 2L);
+        Thread.sleep(50);
+        dao.load(Rocket.class, 2L);
+        verify(delegate, times(2)).load(Rocket.class, 2L);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMaximumWeightIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingDAO(delegate, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CachingDAO(delegate, 10, Duration.ZERO));
+    }
+}
@@ -0,0 +1,214 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every {@link DAO} implementation shares, so that they can stand in for
+ * each other. Each implementation runs it through a subclass. Entities are compared by
+ * id and properties, as stores hand back copies.
+ */
+public abstract class DAOContractTest {
+    protected DAO dao;
+    private LaunchServiceProvider spacex;
+
+    /**
+     * @return the DAO to test, over an empty store.
+     */
+    protected abstract DAO createDAO();
+
+    /**
+     * Empties the store after each test.
+     */
+    protected abstract void clear();
+
+    @BeforeEach
+    public void setUpDAO() {
+        dao = createDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+    }
+
+    @AfterEach
+    public void tearDownDAO() {
+        clear();
+    }
+
+    private Rocket rocketWithLaunches(String name, int launches) {
+        Rocket rocket = new Rocket(name, "USA", spacex);
+        Set<Launch> rocketLaunches = new HashSet<>();
+        for (int i = 0; i < launches; i++) {
+            Launch launch = new Launch(LocalDate.of(2010 + i, 1, 1), rocket, spacex, "LEO");
+            launch.setLaunchSite("KSC");
+            rocketLaunches.add(launch);
+        }
+        rocket.setLaunches(rocketLaunches);
+        return rocket;
+    }
+
+    @Test
+    public void shouldGiveIdsToTheSavedEntityAndEverythingReachable() {
+        Rocket rocket = rocketWithLaunches("F9", 2);
+        dao.createOrUpdate(rocket);
+        assertNotNull(rocket.getId());
+        assertNotNull(spacex.getId());
+        rocket.getLaunches().forEach(launch -> assertNotNull(launch.getId()));
+
+        Rocket loaded = dao.load(Rocket.class, rocket.getId());
+        assertEquals("F9", loaded.getName());
+        assertEquals(spacex.getId(), loaded.getManufacturer().getId());
+        assertEquals(2, dao.loadAll(Launch.class).size());
+    }
+
+    @Test
+    public void shouldReturnNullForAnUnknownId() {
+        dao.createOrUpdate(spacex);
+        assertNull(dao.load(Rocket.class, spacex.getId()));
+        assertNull(dao.load(LaunchServiceProvider.class, spacex.getId() + 1000));
+    }
+
+    @Test
+    public void shouldUpdateTheEntityStoredWithTheSameNaturalKey() {
+        Rocket rocket = rocketWithLaunches("F9", 1);
+        dao.createOrUpdate(rocket);
+
+        Rocket same = rocketWithLaunches("F9", 1);
+        same.setMassToLEO("22800");
+        dao.createOrUpdate(same);
+        assertEquals(rocket.getId(), same.getId());
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(1, dao.loadAll(Launch.class).size());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals("22800", dao.load(Rocket.class, rocket.getId()).getMassToLEO());
+    }
+
+    @Test
+    public void shouldSaveAProviderWithItsRocketsAndLaunches() {
+        Set<Rocket> rockets = new HashSet<>(Arrays.asList(rocketWithLaunches("F1", 1), rocketWithLaunches("F9", 3)));
+        spacex.setRockets(rockets);
+        dao.createOrUpdate(spacex);
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals(2, dao.loadAll(Rocket.class).size());
+        assertEquals(4, dao.loadAll(Launch.class).size());
+
+        dao.createOrUpdate(spacex);
+        assertEquals(2, dao.loadAll(Rocket.class).size());
+        assertEquals(4, dao.loadAll(Launch.class).size());
+    }
+
+    @Test
+    public void shouldSaveInBulkWithoutDuplicates() {
+        Rocket first = new Rocket("F9", "USA", spacex);
+        Rocket second = new Rocket("F9", "USA", spacex);
+        Collection<Rocket> saved = dao.createOrUpdateAll(Arrays.asList(first, second));
+        assertEquals(2, saved.size());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldDeleteARocketButNotItsManufacturer() {
+        Rocket rocket = new Rocket("F9", "USA", spacex);
+        dao.createOrUpdate(rocket);
+        dao.delete(rocket);
+        assertTrue(dao.loadAll(Rocket.class).isEmpty());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+
+        Rocket again = new Rocket("F9", "USA", spacex);
+        dao.createOrUpdate(again);
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+    }
+
+    @Test
+    public void shouldFindAUserByEmail() {
+        User user = new User("Tony", "Stark", "tony.stark@starkindustries.com");
+        dao.createOrUpdate(user);
+        assertEquals(user.getId(), dao.getUserByEmail("tony.stark@starkindustries.com").getId());
+        assertNull(dao.getUserByEmail("pepper.potts@starkindustries.com"));
+
+        user.setEmail("ironman@starkindustries.com");
+        dao.createOrUpdate(user);
+        assertNull(dao.getUserByEmail("tony.stark@starkindustries.com"));
+        assertEquals(user.getId(), dao.getUserByEmail("ironman@starkindustries.com").getId());
+    }
+
+    @Test
+    public void shouldPublishTheChangesOnceTheyAreSaved() throws InterruptedException {
+        BlockingQueue<EntityEvent> events = new LinkedBlockingQueue<>();
+        EntityListener listener = event -> {
+            if (Rocket.class.equals(event.getEntityClass())) {
+                events.add(event);
+            }
+        };
+        dao.addListener(listener);
+        try {
+            Rocket rocket = new Rocket("F9", "USA", spacex);
+            dao.createOrUpdate(rocket);
+            EntityEvent created = events.poll(5, TimeUnit.SECONDS);
+            assertEquals(EntityEvent.Type.CREATED, created.getType());
+            assertEquals(rocket.getId(), created.getId());
+            assertSame(rocket, created.getAfter());
+
+            rocket.setMassToLEO("22800");
+            dao.createOrUpdate(rocket);
+            EntityEvent updated = events.poll(5, TimeUnit.SECONDS);
+            assertEquals(EntityEvent.Type.UPDATED, updated.getType());
+            assertEquals(rocket.getId(), updated.getId());
+
+            Long id = rocket.getId();
+            dao.delete(rocket);
+            EntityEvent deleted = events.poll(5, TimeUnit.SECONDS);
+            assertEquals(EntityEvent.Type.DELETED, deleted.getType());
+            assertEquals(id, deleted.getId());
+            assertNull(deleted.getAfter());
+        } finally {
+            dao.removeListener(listener);
+        }
+    }
+
+    @Test
+    public void shouldPageAndProjectInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (String name : Arrays.asList("Alice", "Bob", "Carol", "Dave", "Erin")) {
+            User user = new User(name, "Smith", name.toLowerCase() + "@smith.com");
+            dao.createOrUpdate(user);
+            ids.add(user.getId());
+        }
+        ids.sort(null);
+
+        List<Long> paged = new ArrayList<>();
+        for (PageRequest next = PageRequest.first(2); null != next; ) {
+            Page<User> page = dao.loadPage(User.class, next);
+            page.getContent().forEach(user -> paged.add(user.getId()));
+            next = page.getNext();
+        }
+        assertEquals(ids, paged);
+
+        Page<User> second = dao.loadPage(User.class, PageRequest.page(1, 2).descending());
+        assertEquals(Arrays.asList(ids.get(2), ids.get(1)), second.getContent().stream().map(User::getId).collect(Collectors.toList()));
+
+        List<Map<String, Object>> rows = dao.project(User.class, Projection.of("email"));
+        assertEquals(ids, rows.stream().map(row -> ((Number) row.get(Projection.ID)).longValue()).collect(Collectors.toList()));
+        assertEquals("alice@smith.com", rows.get(0).get("email"));
+    }
+}
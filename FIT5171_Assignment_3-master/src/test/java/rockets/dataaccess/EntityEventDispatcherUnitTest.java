@@ -0,0 +1,108 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityEventDispatcherUnitTest {
+    private EntityEventDispatcher dispatcher;
+    private List<String> received;
+
+    @BeforeEach
+    public void setUp() {
+        received = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.close();
+    }
+
+    private static EntityEvent created(long id) {
+        User user = new User("Tony", "Stark", "tony" + id + "@stark.com");
+        user.setId(id);
+        return EntityEvent.created(user);
+    }
+
+    private EntityListener recorder() {
+        return new EntityListener() {
+            @Override
+            public void onEvent(EntityEvent event) {
+                received.add(event.getId().toString());
+            }
+
+            @Override
+            public void onEventsLost(long count) {
+                received.add("lost " + count);
+            }
+        };
+    }
+
+    @Test
+    public void shouldDeliverEventsInOrderToEveryListener() {
+        dispatcher = new EntityEventDispatcher(100);
+        dispatcher.addListener(recorder());
+        dispatcher.addListener(recorder());
+        dispatcher.publish(Arrays.asList(created(1), created(2)));
+        dispatcher.publish(Collections.singletonList(created(3)));
+        dispatcher.close();
+        assertEquals(Arrays.asList("1", "1", "2", "2", "3", "3"), received);
+    }
+
+    @Test
+    public void shouldDropEventsWhenTheBufferIsFullAndSaySoInOrder() throws InterruptedException {
+        dispatcher = new EntityEventDispatcher(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.addListener(event -> {
+            if (event.getId() == 1L) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        dispatcher.addListener(recorder());
+        dispatcher.publish(Collections.singletonList(created(1)));
+        assertTrue(blocked.await(1, TimeUnit.SECONDS));
+
+        // 2 and 3 fill the buffer, 4 and 5 are dropped, and 6 waits for the count to fit
+        dispatcher.publish(Arrays.asList(created(2), created(3), created(4), created(5)));
+        dispatcher.publish(Collections.singletonList(created(6)));
+        assertEquals(3, dispatcher.getLostCount());
+        release.countDown();
+        dispatcher.close();
+        assertEquals(Arrays.asList("1", "2", "3", "lost 3"), received);
+    }
+
+    @Test
+    public void shouldKeepDeliveringWhenAListenerFails() {
+        dispatcher = new EntityEventDispatcher(10);
+        dispatcher.addListener(event -> {
+            throw new IllegalStateException("listener is broken");
+        });
+        dispatcher.addListener(recorder());
+        dispatcher.publish(Arrays.asList(created(1), created(2)));
+        dispatcher.close();
+        assertEquals(Arrays.asList("1", "2"), received);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenCapacityIsNotPositive() {
+        dispatcher = new EntityEventDispatcher(1);
+        assertThrows(IllegalArgumentException.class, () -> new EntityEventDispatcher(0));
+        assertThrows(NullPointerException.class, () -> dispatcher.addListener(null));
+    }
+}
@@ -0,0 +1,97 @@
+package rockets.dataaccess;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NaturalKeyIndexUnitTest {
+    private NaturalKeyIndex index;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        index = new NaturalKeyIndex();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+    }
+
+    @Test
+    public void shouldHoldKeyValuesAsTheyAreStored() {
+        assertEquals(Arrays.asList("SpaceX", 2002L, "USA"), NaturalKeyIndex.keyOf(spacex));
+        assertEquals(Arrays.asList("F9", "USA"), NaturalKeyIndex.keyOf(rocket));
+
+        Launch launch = new Launch(LocalDate.of(2017, 8, 20), rocket, spacex, "LEO");
+        launch.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        assertNull(NaturalKeyIndex.keyOf(launch));
+        rocket.setId(3L);
+        assertEquals(Arrays.asList("2017-08-20", null, "SUCCESSFUL", 3L), NaturalKeyIndex.keyOf(launch));
+    }
+
+    @Test
+    public void shouldFindSavedEntitiesAndTheirReferences() {
+        spacex.setId(1L);
+        rocket.setId(2L);
+        index.saved(rocket);
+        assertEquals(Long.valueOf(2L), index.lookup(new Rocket("F9", "USA", spacex)));
+        assertEquals(Long.valueOf(1L), index.lookup(new LaunchServiceProvider("SpaceX", 2002, "USA")));
+        assertNull(index.lookup(new Rocket("F9", "Australia", spacex)));
+        assertNull(index.lookup(new User("Tony", "Stark", "tony.stark@starkindustries.com")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void shouldReplaceTheKeyOfAnUpdatedEntity() {
+        rocket.setId(2L);
+        index.saved(rocket);
+        rocket.setName("F9 v1.1");
+        index.saved(rocket);
+        assertNull(index.lookup(new Rocket("F9", "USA", spacex)));
+        assertEquals(Long.valueOf(2L), index.lookup(new Rocket("F9 v1.1", "USA", spacex)));
+    }
+
+    @Test
+    public void shouldForgetDeletedEntities() {
+        rocket.setId(2L);
+        index.saved(rocket);
+        index.deleted(rocket);
+        assertNull(index.lookup(new Rocket("F9", "USA", spacex)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void shouldKeepAnsweringFromTheCurrentKeysWhileWarmingUp() {
+        rocket.setId(2L);
+        index.saved(rocket);
+        Rocket saved = new Rocket("Electron", "New Zealand", spacex);
+        saved.setId(7L);
+        Function<Class<? extends Entity>, Iterable<Map<String, Object>>> rows = clazz -> {
+            if (Rocket.class != clazz) {
+                return Collections.emptyList();
+            }
+            // a save and a delete while the store is being read, which the rows do not show
+            assertEquals(Long.valueOf(2L), index.lookup(new Rocket("F9", "USA", spacex)));
+            index.saved(saved);
+            index.deleted(rocket);
+            return Collections.singletonList(ImmutableMap.of("id", 2L, "k0", "F9", "k1", "USA"));
+        };
+
+        index.warmUp(rows);
+        assertNull(index.lookup(new Rocket("F9", "USA", spacex)));
+        assertEquals(Long.valueOf(7L), index.lookup(new Rocket("Electron", "New Zealand", spacex)));
+        assertEquals(1, index.size());
+    }
+}
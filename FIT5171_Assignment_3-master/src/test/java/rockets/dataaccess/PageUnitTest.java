@@ -0,0 +1,76 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageUnitTest {
+    private List<Rocket> rockets;
+
+    @BeforeEach
+    public void setUp() {
+        rockets = new ArrayList<>();
+        LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        String[] masses = {"100", "50", "100", null, "20", "50"};
+        for (int i = 0; i < masses.length; i++) {
+            Rocket rocket = new Rocket("F" + i, "USA", spacex);
+            rocket.setId((long) (10 - i));
+            if (null != masses[i]) {
+                rocket.setMassToLEO(masses[i]);
+            }
+            rockets.add(rocket);
+        }
+    }
+
+    private static List<Long> ids(List<Rocket> rockets) {
+        return rockets.stream().map(Rocket::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> allPages(PageRequest request) {
+        List<Long> ids = new ArrayList<>();
+        for (PageRequest next = request; null != next; ) {
+            Page<Rocket> page = Page.slice(rockets, next);
+            assertTrue(page.getContent().size() <= request.getSize());
+            ids.addAll(ids(page.getContent()));
+            next = page.getNext();
+        }
+        return ids;
+    }
+
+    @Test
+    public void shouldSortByIdWhenNoPropertyIsGiven() {
+        Page<Rocket> page = Page.slice(rockets, PageRequest.page(0, 4));
+        assertEquals(Arrays.asList(5L, 6L, 7L, 8L), ids(page.getContent()));
+        assertEquals(PageRequest.page(1, 4), page.getNext());
+        assertFalse(Page.slice(rockets, page.getNext()).hasNext());
+    }
+
+    @Test
+    public void shouldBreakTiesByIdAndSortNullsLast() {
+        List<Long> expected = Arrays.asList(8L, 10L, 6L, 5L, 9L, 7L);
+        assertEquals(expected, allPages(PageRequest.first(4).sortedBy("massToLEO")));
+        assertEquals(expected, allPages(PageRequest.page(0, 4).sortedBy("massToLEO")));
+    }
+
+    @Test
+    public void shouldFollowTheCursorInDescendingOrder() {
+        List<Long> expected = Arrays.asList(7L, 9L, 5L, 6L, 10L, 8L);
+        assertEquals(expected, allPages(PageRequest.first(2).sortedBy("massToLEO").descending()));
+        assertEquals(expected, allPages(PageRequest.first(1).sortedBy("massToLEO").descending()));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRequestIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.first(0));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.page(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> Page.slice(rockets, PageRequest.first(2).sortedBy("nickname")));
+    }
+}
@@ -0,0 +1,209 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import rockets.model.User;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindDAOUnitTest {
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private DAO delegate;
+    private WriteBehindDAO dao;
+    private User tony;
+    private User pepper;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(DAO.class);
+        when(delegate.createOrUpdateAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        tony = new User("Tony", "Stark", "tony.stark@starkindustries.com");
+        pepper = new User("Pepper", "Potts", "pepper.potts@starkindustries.com");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (null != dao) {
+            dao.close();
+        }
+    }
+
+    @Test
+    public void shouldCoalesceWritesOfTheSameEntity() {
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        dao.createOrUpdate(pepper);
+        dao.createOrUpdate(tony);
+        assertEquals(2, dao.getPendingCount());
+
+        dao.flush();
+        verify(delegate).createOrUpdateAll(Arrays.asList(tony, pepper));
+        assertEquals(0, dao.getPendingCount());
+    }
+
+    @Test
+    public void shouldCoalesceWritesOfCopiesOfTheSameStoredEntity() {
+        tony.setId(1L);
+        User copy = new User("Tony", "Stark", "tony@stark.com");
+        copy.setId(1L);
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        dao.createOrUpdate(pepper);
+        dao.createOrUpdate(copy);
+        assertEquals(2, dao.getPendingCount());
+
+        dao.flush();
+        verify(delegate).createOrUpdateAll(Arrays.asList(copy, pepper));
+    }
+
+    @Test
+    public void shouldWriteABatchOnceItIsFull() {
+        dao = new WriteBehindDAO(delegate, 10, 2, NEVER);
+        dao.createOrUpdate(tony);
+        dao.createOrUpdate(pepper);
+        verify(delegate, timeout(1000)).createOrUpdateAll(Arrays.asList(tony, pepper));
+    }
+
+    @Test
+    public void shouldWriteAfterTheFlushInterval() {
+        dao = new WriteBehindDAO(delegate, 10, 10, Duration.ofMillis(20));
+        dao.createOrUpdate(tony);
+        verify(delegate, timeout(1000)).createOrUpdateAll(Collections.singletonList(tony));
+    }
+
+    @Test
+    public void shouldReadItsOwnBufferedWrites() {
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        tony.setId(5L);
+        dao.createOrUpdate(tony);
+        dao.createOrUpdate(pepper);
+        assertSame(tony, dao.load(User.class, 5L));
+        assertSame(pepper, dao.getUserByEmail("pepper.potts@starkindustries.com"));
+        verify(delegate, never()).load(any(), any());
+        verify(delegate, never()).getUserByEmail(any());
+
+        dao.delete(tony);
+        assertNull(dao.load(User.class, 5L));
+        dao.loadAll(User.class);
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).createOrUpdateAll(Collections.singletonList(pepper));
+        inOrder.verify(delegate).delete(tony);
+        inOrder.verify(delegate).loadAll(User.class);
+    }
+
+    @Test
+    public void shouldBlockWritersWhileTheBufferIsFull() throws InterruptedException {
+        dao = new WriteBehindDAO(delegate, 1, 10, NEVER);
+        dao.createOrUpdate(tony);
+
+        AtomicBoolean written = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            started.countDown();
+            dao.createOrUpdate(pepper);
+            written.set(true);
+        });
+        writer.start();
+        started.await();
+        Thread.sleep(100);
+        assertFalse(written.get());
+
+        dao.flush();
+        writer.join(1000);
+        assertTrue(written.get());
+    }
+
+    @Test
+    public void shouldFlushBeforeClosing() {
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        dao.close();
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).createOrUpdateAll(Collections.singletonList(tony));
+        inOrder.verify(delegate).close();
+        assertThrows(IllegalStateException.class, () -> dao.createOrUpdate(pepper));
+    }
+
+    @Test
+    public void shouldReportAFailedBatchOnFlush() {
+        when(delegate.createOrUpdateAll(any())).thenThrow(new IllegalArgumentException("store is down"));
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> dao.flush());
+        assertEquals("store is down", exception.getCause().getMessage());
+        dao.flush();
+    }
+
+    @Test
+    public void shouldReportAFailedBatchOnClose() {
+        when(delegate.createOrUpdateAll(any())).thenThrow(new IllegalArgumentException("store is down"));
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> dao.close());
+        assertEquals("store is down", exception.getCause().getMessage());
+        verify(delegate).close();
+        dao = null;
+    }
+
+    @Test
+    public void shouldNotWaitForTheWritesBufferedAfterTheFlushBegan() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch releaseLater = new CountDownLatch(1);
+        when(delegate.createOrUpdateAll(Collections.singletonList(tony))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        when(delegate.createOrUpdateAll(Collections.singletonList(pepper))).thenAnswer(invocation -> {
+            releaseLater.await();
+            return invocation.getArgument(0);
+        });
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        try {
+            dao.createOrUpdate(tony);
+            Thread flush = new Thread(dao::flush);
+            flush.start();
+            assertTrue(writing.await(1, TimeUnit.SECONDS));
+
+            // buffered while the flush waits, and still being written when the flush returns
+            dao.createOrUpdate(pepper);
+            release.countDown();
+            flush.join(1000);
+            assertFalse(flush.isAlive());
+        } finally {
+            releaseLater.countDown();
+        }
+    }
+
+    @Test
+    public void shouldFailInsteadOfWaitingOnceTheFlusherDied() {
+        when(delegate.createOrUpdateAll(any())).thenThrow(new AssertionError("out of memory"));
+        dao = new WriteBehindDAO(delegate, 10, 10, NEVER);
+        dao.createOrUpdate(tony);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> dao.flush());
+        assertEquals("write-behind flusher died", exception.getMessage());
+        assertThrows(IllegalStateException.class, () -> dao.createOrUpdate(pepper));
+        assertThrows(IllegalStateException.class, () -> dao.close());
+        dao = null;
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSizesOrIntervalAreNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new WriteBehindDAO(delegate, 0, 1, NEVER));
+        assertThrows(IllegalArgumentException.class, () -> new WriteBehindDAO(delegate, 1, 0, NEVER));
+        assertThrows(IllegalArgumentException.class, () -> new WriteBehindDAO(delegate, 1, 1, Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> new WriteBehindDAO(delegate, 1, 1, null));
+    }
+}
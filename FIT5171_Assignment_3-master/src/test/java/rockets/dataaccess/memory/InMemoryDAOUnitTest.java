@@ -0,0 +1,55 @@
+package rockets.dataaccess.memory;
+
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.DAOContractTest;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryDAOUnitTest extends DAOContractTest {
+    @Override
+    protected DAO createDAO() {
+        return new InMemoryDAO();
+    }
+
+    @Override
+    protected void clear() {
+        dao.close();
+    }
+
+    @Test
+    public void shouldNotCreateTheSameRocketTwiceFromConcurrentSaves() throws Exception {
+        LaunchServiceProvider provider = new LaunchServiceProvider("Arianespace", 1980, "France");
+        dao.createOrUpdate(provider);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Rocket>> saves = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                saves.add(executor.submit(() -> dao.createOrUpdate(new Rocket("Ariane 5", "France", provider))));
+            }
+            for (Future<Rocket> save : saves) {
+                assertEquals(saves.get(0).get().getId(), save.get().getId());
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(2, ((InMemoryDAO) dao).size());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSavingNull() {
+        assertThrows(NullPointerException.class, () -> dao.createOrUpdate(null));
+        assertThrows(NullPointerException.class, () -> dao.delete(null));
+    }
+}
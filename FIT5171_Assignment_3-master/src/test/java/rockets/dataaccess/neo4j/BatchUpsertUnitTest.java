@@ -0,0 +1,65 @@
+package rockets.dataaccess.neo4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import rockets.dataaccess.NaturalKeyIndex;
+import rockets.model.Entity;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BatchUpsertUnitTest {
+    private Session session;
+    private NaturalKeyIndex index;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        session = mock(Session.class);
+        when(session.beginTransaction()).thenAnswer(invocation -> mock(Transaction.class));
+        AtomicLong ids = new AtomicLong();
+        // the nodes take ids as they are written; the relationships fail
+        doAnswer(invocation -> {
+            Collection<Entity> batch = invocation.getArgument(0);
+            batch.forEach(entity -> entity.setId(ids.incrementAndGet()));
+            return null;
+        }).when(session).save(anyCollection(), eq(0));
+        doThrow(new IllegalStateException("database is down")).when(session).save(anyCollection(), eq(1));
+        index = new NaturalKeyIndex();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+    }
+
+    @Test
+    public void shouldIndexTheBatchesCommittedBeforeAFailure() {
+        DirtyTracker tracker = new DirtyTracker();
+        BatchUpsert upsert = new BatchUpsert(session, index, tracker, 1);
+        assertThrows(IllegalStateException.class, () -> upsert.run(Collections.singletonList(rocket)));
+        assertEquals(spacex.getId(), index.lookup(new LaunchServiceProvider("SpaceX", 2002, "USA")));
+        assertEquals(rocket.getId(), index.lookup(new Rocket("F9", "USA", spacex)));
+        // the nodes were written, their relationships not
+        assertTrue(tracker.isDirty(rocket));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void shouldNeitherIndexNorReportTheWritesOfATransactionTheCallerBegan() {
+        when(session.getTransaction()).thenReturn(mock(Transaction.class));
+        doNothing().when(session).save(anyCollection(), eq(1));
+        BatchUpsert upsert = new BatchUpsert(session, index, new DirtyTracker(), 1);
+        upsert.run(Collections.singletonList(rocket));
+        assertEquals(0, index.size());
+        assertTrue(upsert.events().isEmpty());
+        verify(session, never()).beginTransaction();
+    }
+}
@@ -0,0 +1,101 @@
+package rockets.dataaccess.neo4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirtyTrackerUnitTest {
+    private DirtyTracker tracker;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+    private Launch launch;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new DirtyTracker();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        spacex.setId(1L);
+        rocket = new Rocket("F9", "USA", spacex);
+        rocket.setId(2L);
+        launch = new Launch(LocalDate.of(2017, 8, 20), rocket, spacex, "LEO");
+        launch.setId(3L);
+        rocket.setLaunches(new HashSet<>(Collections.singletonList(launch)));
+    }
+
+    @Test
+    public void shouldFindTheCascadeAndItsNeighboursOnce() {
+        assertEquals(Arrays.asList(launch, rocket, spacex), DirtyTracker.cascade(Collections.singletonList(launch)));
+        spacex.getRockets().add(rocket);
+        assertEquals(Arrays.asList(spacex, rocket, launch), DirtyTracker.cascade(Collections.singletonList(spacex)));
+    }
+
+    @Test
+    public void shouldNotWalkBeyondTheNeighboursOfTheCascade() {
+        Launch other = new Launch(LocalDate.of(2018, 2, 6), rocket, spacex, "GTO");
+        rocket.getLaunches().add(other);
+        assertEquals(Arrays.asList(launch, rocket, spacex), DirtyTracker.cascade(Collections.singletonList(launch)));
+    }
+
+    @Test
+    public void shouldBeDirtyUntilSavedAndAfterAPropertyChanges() {
+        assertTrue(tracker.isDirty(rocket));
+        tracker.saved(rocket);
+        assertFalse(tracker.isDirty(rocket));
+
+        rocket.setMassToLEO("22800");
+        assertTrue(tracker.isDirty(rocket));
+        tracker.saved(rocket);
+        assertFalse(tracker.isDirty(rocket));
+
+        Rocket copy = new Rocket("F9", "USA", spacex);
+        copy.setId(2L);
+        copy.setMassToLEO("22800");
+        copy.setLaunches(new HashSet<>(Collections.singletonList(launch)));
+        assertFalse(tracker.isDirty(copy));
+    }
+
+    @Test
+    public void shouldBeDirtyWhenARelationshipChanges() {
+        tracker.saved(rocket);
+        Launch next = new Launch(LocalDate.of(2018, 2, 6), rocket, spacex, "GTO");
+        rocket.getLaunches().add(next);
+        assertTrue(tracker.isDirty(rocket));
+
+        next.setId(4L);
+        tracker.saved(rocket);
+        assertFalse(tracker.isDirty(rocket));
+        rocket.getLaunches().remove(next);
+        assertTrue(tracker.isDirty(rocket));
+    }
+
+    @Test
+    public void shouldRememberLoadedEntitiesOnlyAsDeepAsLoaded() {
+        tracker.loaded(Collections.singletonList(launch), 0);
+        assertFalse(tracker.isDirty(launch));
+        assertTrue(tracker.isDirty(rocket));
+        tracker.loaded(Collections.singletonList(launch), 1);
+        assertFalse(tracker.isDirty(rocket));
+        assertFalse(tracker.isDirty(spacex));
+
+        // a reload hands back the same instance, unsaved changes and all
+        launch.setOrbit("GTO");
+        tracker.loaded(Collections.singletonList(launch), 1);
+        assertTrue(tracker.isDirty(launch));
+
+        tracker.saved(launch);
+        tracker.forget(launch);
+        assertTrue(tracker.isDirty(launch));
+        assertEquals(2, tracker.size());
+        tracker.clear();
+        assertEquals(0, tracker.size());
+    }
+}
@@ -0,0 +1,46 @@
+package rockets.dataaccess.neo4j;
+
+import org.junit.jupiter.api.AfterAll;
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
+import org.neo4j.ogm.session.SessionFactory;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.DAOContractTest;
+import rockets.model.User;
+
+import java.io.File;
+
+public class Neo4jDAOContractUnitTest extends DAOContractTest {
+    private static final String TEST_DB = "target/test-data/contract-db";
+
+    private static SessionFactory sessionFactory;
+    private static Neo4jDAO neo4jDAO;
+
+    @Override
+    protected DAO createDAO() {
+        if (null == neo4jDAO) {
+            Configuration configuration = new Configuration.Builder()
+                    .uri(new File(TEST_DB).toURI().toString())
+                    .build();
+            EmbeddedDriver driver = new EmbeddedDriver();
+            driver.configure(configuration);
+            sessionFactory = new SessionFactory(driver, User.class.getPackage().getName());
+            neo4jDAO = new Neo4jDAO(sessionFactory);
+        }
+        return neo4jDAO;
+    }
+
+    @Override
+    protected void clear() {
+        sessionFactory.openSession().purgeDatabase();
+        neo4jDAO.reindex();
+    }
+
+    @AfterAll
+    public static void closeNeo4j() {
+        if (null != sessionFactory) {
+            sessionFactory.close();
+        }
+        neo4jDAO = null;
+    }
+}
@@ -8,15 +8,28 @@ import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.FetchPlan;
+import rockets.dataaccess.Page;
+import rockets.dataaccess.PageRequest;
+import rockets.dataaccess.Projection;
 import rockets.model.*;
 import org.neo4j.harness.ServerControls;
 import org.neo4j.harness.TestServerBuilders;
 
 import java.io.File;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +46,8 @@ public class Neo4jDAOUnitTest {
     private Rocket rocket;
     private User user;
     private Launch launch;
+    // each test is one unit of work, as a request of the web app is
+    private UnitOfWork unit;
 
     @BeforeAll
     public void initializeNeo4j() {
@@ -47,6 +62,7 @@ public class Neo4jDAOUnitTest {
 
     @BeforeEach
     public void setup() {
+        unit = ((Neo4jDAO) dao).beginUnitOfWork();
         esa = new LaunchServiceProvider("ESA", 1970, "Europe");
         spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
         rocket = new Rocket("F9", "USA", spacex);
@@ -295,6 +311,16 @@ public class Neo4jDAOUnitTest {
 
     }
 
+    @Test
+    public void shouldLoadOnlyTheLaunchesOfAYear() {
+        Launch newYear = new Launch(LocalDate.parse("1975-01-01"), rocket, spacex, "Earth");
+        Launch newYearsEve = new Launch(LocalDate.parse("1975-12-31"), rocket, spacex, "Earth");
+        dao.createOrUpdateAll(Arrays.asList(newYear, newYearsEve, new Launch(LocalDate.parse("1976-01-01"), rocket, spacex, "Earth")));
+        assertEquals(Sets.newHashSet(newYear.getId(), newYearsEve.getId()), dao.getLaunchesInYear(1975).stream()
+                .map(Launch::getId).collect(Collectors.toSet()));
+        assertTrue(dao.getLaunchesInYear(2018).isEmpty());
+    }
+
     // Added by Zeeshan
     @Test
     public void shouldLoadAllLaunchServiceProviders()
@@ -339,6 +365,233 @@ public class Neo4jDAOUnitTest {
     }
 
 
+    @Test
+    public void shouldStreamAllUsersPageByPage() {
+        Set<User> users = Sets.newHashSet(new User("Zeeshan", "Arif", "adsfer@eywtr.com"),
+                new User("Brad", "Pitt", "uryetrw@yuetr.com"), new User("Peter", "Parker", "peter.parker@monash.edu"));
+        for (User u : users) {
+            dao.createOrUpdate(u);
+        }
+
+        ((Neo4jDAO) dao).setPageSize(2);
+        try (Stream<User> stream = dao.stream(User.class)) {
+            List<User> streamed = stream.collect(Collectors.toList());
+            assertEquals(users, new HashSet<>(streamed));
+            List<Long> ids = streamed.stream().map(User::getId).collect(Collectors.toList());
+            assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ((Neo4jDAO) dao).setPageSize(0));
+    }
+
+    @Test
+    public void shouldProjectOnlyTheListedProperties() {
+        rocket.setLatestYearFlight(2019);
+        dao.createOrUpdate(rocket);
+
+        List<Map<String, Object>> rows = dao.project(Rocket.class, Projection.NAME_AND_ID);
+        assertEquals(1, rows.size());
+        assertEquals(Sets.newHashSet(Projection.ID, "name"), rows.get(0).keySet());
+        assertEquals(rocket.getId(), rows.get(0).get(Projection.ID));
+        assertEquals("F9", rows.get(0).get("name"));
+
+        // stored as lastYearFlight
+        List<Map<String, Object>> years = dao.project(Rocket.class, Projection.of("latestYearFlight"));
+        assertEquals(2019L, ((Number) years.get(0).get("latestYearFlight")).longValue());
+        assertThrows(IllegalArgumentException.class, () -> dao.project(Rocket.class, Projection.of("launchSite")));
+    }
+
+    @Test
+    public void shouldProjectRowsIntoDTOs() {
+        dao.createOrUpdate(user);
+        Projection<String> fullNames = Projection.of("firstName", "lastName")
+                .as(row -> row.get("firstName") + " " + row.get("lastName"));
+        assertEquals(Collections.singletonList("Tony Stark"), dao.project(User.class, fullNames));
+    }
+
+    @Test
+    public void shouldCreateTheDeclaredIndexesAtStartup() {
+        Map<String, String> states = new HashMap<>();
+        for (Map<String, Object> row : session.query("CALL db.indexes() YIELD label, properties, state " +
+                "RETURN label, properties, state", Collections.emptyMap()).queryResults()) {
+            states.put(row.get("label") + Arrays.asList((String[]) row.get("properties")).toString(), (String) row.get("state"));
+        }
+        assertEquals("ONLINE", states.get("User[email]"));
+        assertEquals("ONLINE", states.get("Rocket[name, country]"));
+        assertEquals("ONLINE", states.get("LaunchServiceProvider[name, yearFounded, country]"));
+        assertEquals("ONLINE", states.get("Launch[launchDate, launchSite]"));
+
+        dao.createOrUpdate(user);
+        User sameEmail = new User("Pepper", "Potts", user.getEmail());
+        assertThrows(RuntimeException.class, () -> session.save(sameEmail));
+    }
+
+    @Test
+    public void shouldFetchRelatedEntitiesOnlyAsDeepAsPlanned() {
+        dao.createOrUpdate(rocket);
+
+        // a DAO of its own, so that nothing is already mapped in its session
+        Rocket shallow = new Neo4jDAO(sessionFactory).load(Rocket.class, rocket.getId(), FetchPlan.SHALLOW);
+        assertEquals("F9", shallow.getName());
+        assertNull(shallow.getManufacturer());
+
+        Rocket entity = new Neo4jDAO(sessionFactory).load(Rocket.class, rocket.getId(), FetchPlan.ENTITY);
+        assertEquals(spacex.getId(), entity.getManufacturer().getId());
+
+        Collection<Rocket> rockets = new Neo4jDAO(sessionFactory).loadAll(Rocket.class, FetchPlan.SHALLOW);
+        assertNull(rockets.iterator().next().getManufacturer());
+        assertThrows(IllegalArgumentException.class, () -> FetchPlan.depth(-1));
+    }
+
+    private List<Rocket> rocketsWithMasses() {
+        List<Rocket> rockets = new ArrayList<>();
+        String[] masses = {"100", "50", "100", null, "20", "50", "100"};
+        for (int i = 0; i < masses.length; i++) {
+            Rocket r = new Rocket("F" + i, "USA", spacex);
+            if (null != masses[i]) {
+                r.setMassToLEO(masses[i]);
+            }
+            rockets.add(dao.createOrUpdate(r));
+        }
+        return rockets;
+    }
+
+    private static List<Long> pagedIds(Function<PageRequest, Page<Long>> pages, PageRequest request) {
+        List<Long> ids = new ArrayList<>();
+        for (PageRequest next = request; null != next; ) {
+            Page<Long> page = pages.apply(next);
+            assertTrue(page.getContent().size() <= request.getSize());
+            ids.addAll(page.getContent());
+            next = page.getNext();
+        }
+        return ids;
+    }
+
+    @Test
+    public void shouldPageInTheSameOrderAsInMemory() {
+        List<Rocket> rockets = rocketsWithMasses();
+        Projection<Long> idOnly = Projection.of().as(row -> (Long) row.get(Projection.ID));
+        List<PageRequest> requests = Arrays.asList(PageRequest.page(0, 3), PageRequest.first(3),
+                PageRequest.page(0, 2).sortedBy("massToLEO"), PageRequest.first(2).sortedBy("massToLEO"),
+                PageRequest.first(3).sortedBy("massToLEO").descending(), PageRequest.first(1).sortedBy("name").descending());
+        for (PageRequest request : requests) {
+            List<Long> expected = pagedIds(r -> Page.slice(rockets, r).map(Rocket::getId), request);
+            assertEquals(rockets.size(), expected.size());
+            assertEquals(expected, pagedIds(r -> dao.loadPage(Rocket.class, r).map(Rocket::getId), request), request.toString());
+            assertEquals(expected, pagedIds(r -> dao.projectPage(Rocket.class, idOnly, r), request), request.toString());
+        }
+    }
+
+    @Test
+    public void shouldProjectAPageOfRowsByCursor() {
+        rocketsWithMasses();
+        Page<Map<String, Object>> first = dao.projectPage(Rocket.class, Projection.NAME_AND_ID, PageRequest.first(4).sortedBy("name"));
+        assertEquals(Arrays.asList("F0", "F1", "F2", "F3"), first.getContent().stream().map(row -> row.get("name")).collect(Collectors.toList()));
+        assertEquals("F3", first.getNext().getAfterValue());
+
+        Page<Map<String, Object>> second = dao.projectPage(Rocket.class, Projection.NAME_AND_ID, first.getNext());
+        assertEquals(Arrays.asList("F4", "F5", "F6"), second.getContent().stream().map(row -> row.get("name")).collect(Collectors.toList()));
+        assertFalse(second.hasNext());
+        assertThrows(IllegalArgumentException.class, () -> dao.loadPage(Rocket.class, PageRequest.first(2).sortedBy("launchSite")));
+    }
+
+    @Test
+    public void shouldSaveAProviderWithRocketsAndLaunchesInBulk() {
+        ((Neo4jDAO) dao).setBatchSize(2);
+        LaunchServiceProvider provider = bulkProvider();
+        dao.createOrUpdateAll(Collections.singletonList(provider));
+        assertNotNull(provider.getId());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals(3, dao.loadAll(Rocket.class).size());
+        assertEquals(6, dao.loadAll(Launch.class).size());
+
+        LaunchServiceProvider sameProvider = bulkProvider();
+        dao.createOrUpdateAll(Collections.singletonList(sameProvider));
+        assertEquals(provider.getId(), sameProvider.getId());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals(3, dao.loadAll(Rocket.class).size());
+        assertEquals(6, dao.loadAll(Launch.class).size());
+        ((Neo4jDAO) dao).setBatchSize(1000);
+    }
+
+    @Test
+    public void shouldNotSaveTwoSameRocketsInOneBulkSave() {
+        Rocket rocket1 = new Rocket("F9", "USA", spacex);
+        Rocket rocket2 = new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+        dao.createOrUpdateAll(Arrays.asList(rocket1, rocket2));
+        assertEquals(rocket1.getId(), rocket2.getId());
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertThrows(IllegalArgumentException.class, () -> ((Neo4jDAO) dao).setBatchSize(0));
+    }
+
+    @Test
+    public void shouldOnlyWriteTheEntitiesChangedSinceTheyWereSaved() {
+        LaunchServiceProvider provider = bulkProvider();
+        dao.createOrUpdate(provider);
+        assertEquals(3, dao.loadAll(Rocket.class).size());
+        assertEquals(6, dao.loadAll(Launch.class).size());
+
+        // changed behind the DAO's back, so that rewriting the unchanged rockets would undo it
+        session.query("MATCH (r:Rocket) SET r.massToLEO = '20000'", Collections.emptyMap());
+        Rocket rocket = provider.getRockets().iterator().next();
+        Launch launch = rocket.getLaunches().iterator().next();
+        launch.setOrbit("LEO");
+        dao.createOrUpdate(provider);
+
+        for (Map<String, Object> row : session.query("MATCH (r:Rocket) RETURN r.massToLEO AS mass", Collections.emptyMap())) {
+            assertEquals("20000", row.get("mass"));
+        }
+        Map<String, Object> orbit = session.query("MATCH (l:Launch) WHERE id(l) = $id RETURN l.orbit AS orbit",
+                Collections.singletonMap("id", launch.getId())).queryResults().iterator().next();
+        assertEquals("LEO", orbit.get("orbit"));
+        assertEquals(6, dao.loadAll(Launch.class).size());
+    }
+
+    @Test
+    public void shouldOnlyWriteTheEntitiesChangedSinceAnEarlierCall() {
+        unit.close();
+        LaunchServiceProvider provider = bulkProvider();
+        dao.createOrUpdate(provider);
+
+        // changed behind the DAO's back, so that rewriting the unchanged rockets would undo it
+        session.query("MATCH (r:Rocket) SET r.massToLEO = '20000'", Collections.emptyMap());
+        dao.createOrUpdate(provider);
+        for (Map<String, Object> row : session.query("MATCH (r:Rocket) RETURN r.massToLEO AS mass", Collections.emptyMap())) {
+            assertEquals("20000", row.get("mass"));
+        }
+
+        // the launch is written with the rocket it refers to, which the fresh session does not know
+        Rocket rocket = provider.getRockets().iterator().next();
+        Launch launch = rocket.getLaunches().iterator().next();
+        launch.setOrbit("LEO");
+        dao.createOrUpdate(provider);
+        for (Map<String, Object> row : session.query("MATCH (r:Rocket) WHERE id(r) <> $id RETURN r.massToLEO AS mass",
+                Collections.singletonMap("id", rocket.getId()))) {
+            assertEquals("20000", row.get("mass"));
+        }
+        Map<String, Object> orbit = session.query("MATCH (l:Launch) WHERE id(l) = $id RETURN l.orbit AS orbit",
+                Collections.singletonMap("id", launch.getId())).queryResults().iterator().next();
+        assertEquals("LEO", orbit.get("orbit"));
+    }
+
+    private static LaunchServiceProvider bulkProvider() {
+        LaunchServiceProvider provider = new LaunchServiceProvider("Arianespace", 1980, "France");
+        Set<Rocket> rockets = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            Rocket rocket = new Rocket("Ariane " + i, "France", provider);
+            Set<Launch> launches = new HashSet<>();
+            for (int j = 0; j < 2; j++) {
+                Launch launch = new Launch(LocalDate.of(2010 + j, 1 + i, 1), rocket, provider, "GTO");
+                launch.setLaunchSite("Kourou");
+                launches.add(launch);
+            }
+            rocket.setLaunches(launches);
+            rockets.add(rocket);
+        }
+        provider.setRockets(rockets);
+        return provider;
+    }
+
     // Added by Zeeshan
     @Test
     public void shouldUpdateUserSuccessfully()
@@ -437,10 +690,27 @@ public class Neo4jDAOUnitTest {
 
 
 
+    @Test
+    public void shouldNotKeepTheEntitiesLoadedOutsideAUnitOfWork() {
+        unit.close();
+        dao.createOrUpdate(esa);
+        LaunchServiceProvider loaded = dao.load(LaunchServiceProvider.class, esa.getId());
+        assertNotSame(loaded, dao.load(LaunchServiceProvider.class, esa.getId()));
+
+        session.query("MATCH (p:LaunchServiceProvider) SET p.headquarters = 'Paris'", Collections.emptyMap());
+        assertEquals("Paris", dao.load(LaunchServiceProvider.class, esa.getId()).getHeadquarters());
+
+        try (UnitOfWork inUnit = ((Neo4jDAO) dao).beginUnitOfWork()) {
+            loaded = dao.load(LaunchServiceProvider.class, esa.getId());
+            assertSame(loaded, dao.load(LaunchServiceProvider.class, esa.getId()));
+        }
+    }
+
     @AfterEach
     public void tearDown() {
-
+        unit.close();
         session.purgeDatabase();
+        ((Neo4jDAO) dao).reindex();
     }
 
     @AfterAll
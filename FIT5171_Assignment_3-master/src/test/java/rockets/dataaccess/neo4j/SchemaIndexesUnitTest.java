@@ -0,0 +1,60 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SchemaIndexesUnitTest {
+    @Test
+    public void shouldReadTheIndexesDeclaredOnTheEntityClasses() {
+        List<SchemaIndexes.Definition> definitions = SchemaIndexes.declared(SchemaIndexes.ENTITY_CLASSES);
+        assertEquals(Arrays.asList(
+                new SchemaIndexes.Definition("User", Collections.singletonList("email"), true),
+                new SchemaIndexes.Definition("Rocket", Arrays.asList("name", "country"), false),
+                new SchemaIndexes.Definition("LaunchServiceProvider", Arrays.asList("name", "yearFounded", "country"), false),
+                new SchemaIndexes.Definition("Launch", Arrays.asList("launchDate", "launchSite"), false)
+        ), definitions);
+    }
+
+    @Test
+    public void shouldWriteSchemaStatements() {
+        assertEquals("CREATE CONSTRAINT ON (n:User) ASSERT n.`email` IS UNIQUE",
+                new SchemaIndexes.Definition("User", Collections.singletonList("email"), true).createStatement());
+        assertEquals("CREATE INDEX ON :Rocket(`name`, `country`)",
+                new SchemaIndexes.Definition("Rocket", Arrays.asList("name", "country"), false).createStatement());
+        assertThrows(IllegalStateException.class,
+                () -> new SchemaIndexes.Definition("Rocket", Arrays.asList("name", "country"), true).createStatement());
+    }
+
+    @Test
+    public void shouldRestoreTheIndexDroppedForAConstraintThatCannotBeCreated() {
+        Result indexes = mock(Result.class);
+        Iterable<Map<String, Object>> rows = Collections.singletonList(ImmutableMap.of("label", "User",
+                "properties", Collections.singletonList("email"), "state", "ONLINE", "type", "node_label_property"));
+        when(indexes.queryResults()).thenReturn(rows);
+        Session session = mock(Session.class);
+        when(session.query(startsWith("CALL db.indexes()"), anyMap())).thenReturn(indexes);
+        when(session.query(startsWith("CREATE CONSTRAINT"), anyMap())).thenThrow(new IllegalStateException("duplicate emails"));
+
+        new SchemaIndexes(Collections.singletonList(User.class), 1000).ensure(session);
+        InOrder order = inOrder(session);
+        order.verify(session).query(eq("DROP INDEX ON :User(`email`)"), anyMap());
+        order.verify(session).query(startsWith("CREATE CONSTRAINT"), anyMap());
+        order.verify(session).query(eq("CREATE INDEX ON :User(`email`)"), anyMap());
+    }
+}
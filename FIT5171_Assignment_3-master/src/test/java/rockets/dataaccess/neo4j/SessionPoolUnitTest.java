@@ -0,0 +1,72 @@
+package rockets.dataaccess.neo4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SessionPoolUnitTest {
+    private SessionFactory sessionFactory;
+    private SessionPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.openSession()).thenAnswer(invocation -> mock(Session.class));
+        pool = new SessionPool(sessionFactory, 2, 10);
+    }
+
+    @Test
+    public void shouldClearAndReuseReleasedSessions() {
+        Session session = pool.acquire();
+        pool.release(session);
+        verify(session).clear();
+        assertSame(session, pool.acquire());
+        verify(sessionFactory, times(1)).openSession();
+    }
+
+    @Test
+    public void shouldNotLendMoreThanMaxSizeSessions() {
+        Session first = pool.acquire();
+        Session second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(0, pool.getAvailable());
+        assertThrows(IllegalStateException.class, () -> pool.acquire());
+        pool.release(first);
+        assertSame(first, pool.acquire());
+    }
+
+    @Test
+    public void shouldGiveThePermitBackWhenASessionCannotBeOpened() {
+        when(sessionFactory.openSession()).thenThrow(new IllegalStateException("database is down"));
+        assertThrows(IllegalStateException.class, () -> pool.acquire());
+        assertEquals(2, pool.getAvailable());
+    }
+
+    @Test
+    public void shouldShareOneSessionWithinAUnitOfWork() {
+        ThreadLocal<UnitOfWork> scope = new ThreadLocal<>();
+        DirtyTracker tracker = new DirtyTracker();
+        UnitOfWork unit = UnitOfWork.begin(pool, tracker, scope);
+        try (UnitOfWork joined = UnitOfWork.begin(pool, tracker, scope)) {
+            assertSame(unit, joined);
+            assertEquals(1, pool.getAvailable());
+        }
+        assertEquals(1, pool.getAvailable());
+        Session session = unit.session();
+        unit.close();
+        verify(session).clear();
+        assertEquals(2, pool.getAvailable());
+        assertNull(scope.get());
+        assertThrows(IllegalStateException.class, unit::session);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSizeIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionPool(sessionFactory, 0, 10));
+        assertThrows(NullPointerException.class, () -> new SessionPool(null, 1, 10));
+    }
+}
@@ -0,0 +1,183 @@
+package rockets.dataaccess.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotUnitTest {
+    private InMemoryDAO source;
+    private LaunchServiceProvider spacex;
+    private Rocket falcon9;
+    private Launch launch;
+    private User tony;
+
+    @BeforeEach
+    public void setUp() {
+        source = new InMemoryDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        spacex.setHeadquarters("Hawthorne");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        falcon9.setMassToLEO("22800");
+        falcon9.setFirstYearFlight(2010);
+        spacex.getRockets().add(falcon9);
+        Payload dragon = new Payload("Dragon", "ISS", 6000, "cargo", false);
+        launch = new Launch(LocalDate.of(2012, 5, 22), falcon9, spacex, "LEO");
+        launch.setPayload(new HashSet<>(Collections.singletonList(dragon)));
+        launch.setPrice(new BigDecimal("61.20"));
+        launch.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        launch.setLaunchSite("Cape Canaveral");
+        falcon9.getLaunches().add(launch);
+        for (int i = 0; i < 10; i++) {
+            falcon9.getLaunches().add(new Launch(LocalDate.of(2013 + i, 1, 1), falcon9, spacex, "GTO"));
+        }
+        tony = new User("Tony", "Stark", "tony.stark@starkindustries.com");
+        tony.setPassword("Jarvis123");
+        source.createOrUpdate(spacex);
+        source.createOrUpdate(tony);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        source.close();
+    }
+
+    private Snapshot roundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(source.size(), Snapshot.write(source, out));
+        return Snapshot.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void shouldReadBackTheEntitiesAndTheirRelationships() throws IOException {
+        Snapshot snapshot = roundTrip();
+        assertEquals(source.size(), snapshot.size());
+        assertEquals(1, snapshot.getProviders().size());
+        assertEquals(1, snapshot.getPayloads().size());
+        assertEquals(11, snapshot.getLaunches().size());
+
+        LaunchServiceProvider provider = snapshot.getProviders().get(0);
+        assertEquals(spacex.getId(), provider.getId());
+        assertEquals("Hawthorne", provider.getHeadquarters());
+        Rocket rocket = snapshot.getRockets().get(0);
+        // rockets and providers are compared by id and name, as equals recurses through their copies
+        assertEquals(falcon9.getId(), rocket.getId());
+        assertEquals("Falcon 9", rocket.getName());
+        assertEquals("22800", rocket.getMassToLEO());
+        assertEquals(2010, rocket.getFirstYearFlight());
+        assertSame(rocket, provider.getRockets().iterator().next());
+        assertEquals(11, rocket.getLaunches().size());
+
+        Launch read = snapshot.getLaunches().stream()
+                .filter(l -> l.getId().equals(launch.getId())).findFirst().get();
+        assertEquals(launch.getLaunchDate(), read.getLaunchDate());
+        assertEquals("LEO", read.getOrbit());
+        assertSame(rocket, read.getLaunchVehicle());
+        assertSame(provider, read.getLaunchServiceProvider());
+        assertSame(snapshot.getPayloads().get(0), read.getPayload().iterator().next());
+        assertEquals(new BigDecimal("61.20"), read.getPrice());
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, read.getLaunchOutcome());
+        assertEquals("Cape Canaveral", read.getLaunchSite());
+        assertTrue(rocket.getLaunches().contains(read));
+
+        User user = snapshot.getUsers().get(0);
+        assertEquals(tony.getId(), user.getId());
+        assertTrue(user.isPasswordMatch("Jarvis123"));
+    }
+
+    @Test
+    public void shouldWriteRepeatedStringsOnce() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Snapshot.write(source, out);
+        String written = new String(out.toByteArray(), "UTF-8");
+        assertEquals(written.indexOf("GTO"), written.lastIndexOf("GTO"));
+        assertEquals(written.indexOf("USA"), written.lastIndexOf("USA"));
+    }
+
+    @Test
+    public void shouldRestoreWithTheSameIdsAndHandOutNewOnes() throws IOException {
+        Snapshot snapshot = roundTrip();
+        InMemoryDAO restored = new InMemoryDAO();
+        try {
+            snapshot.restoreInto(restored);
+            assertEquals(source.size(), restored.size());
+            assertSame(snapshot.getRockets().get(0), restored.load(Rocket.class, falcon9.getId()));
+            assertEquals(tony, restored.getUserByEmail("tony.stark@starkindustries.com"));
+
+            User pepper = restored.createOrUpdate(new User("Pepper", "Potts", "pepper.potts@starkindustries.com"));
+            for (Launch saved : source.loadAll(Launch.class)) {
+                assertNotEquals(saved.getId(), pepper.getId());
+            }
+            assertTrue(pepper.getId() > tony.getId());
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    public void shouldReplaceTheFileOnlyOnceTheSnapshotIsWritten() throws IOException {
+        Path directory = Files.createDirectories(Paths.get("target", "test-data"));
+        Path file = directory.resolve("snapshot.bin");
+        Files.deleteIfExists(file);
+        Snapshot.write(source, file);
+        assertEquals(source.size(), Snapshot.read(file).size());
+        assertFalse(Files.exists(directory.resolve("snapshot.bin.partial")));
+        Files.delete(file);
+    }
+
+    @Test
+    public void shouldRejectAnythingButASnapshotOfThisVersion() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Snapshot.write(source, out);
+        byte[] bytes = out.toByteArray();
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[Snapshot.MAGIC.length] = Snapshot.VERSION + 1;
+        IOException exception = assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream(otherVersion)));
+        assertEquals("unsupported snapshot version " + (Snapshot.VERSION + 1), exception.getMessage());
+
+        assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream("not a snapshot".getBytes())));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void shouldRejectALengthPrefixBeyondTheEndOfTheSnapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotOutput output = new SnapshotOutput(out)) {
+            // a new string, then a rocket's launches, each claiming far more than follows
+            output.writeUnsigned(1);
+            output.writeUnsigned(Integer.MAX_VALUE);
+            output.writeUnsigned(Integer.MAX_VALUE + 1L);
+            output.writeUnsigned(42);
+        }
+        byte[] bytes = out.toByteArray();
+
+        SnapshotInput string = new SnapshotInput(new ByteArrayInputStream(bytes));
+        assertThrows(IOException.class, string::readString);
+
+        SnapshotInput references = new SnapshotInput(new ByteArrayInputStream(bytes));
+        references.readUnsigned();
+        references.readUnsigned();
+        assertThrows(IOException.class, references::readReferences);
+    }
+}
@@ -0,0 +1,233 @@
+package rockets.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LaunchCsvImporterUnitTest {
+    private static final Path DATASET = Paths.get("Rocket launches 2010- - 2018.csv");
+    private static final String HEADER = "Date and time (UTC),Rocket,,Launch site,,LSP,\n"
+            + ",Payload,Operator,Orbit,Function,Decay (UTC),Outcome\n"
+            + ",Remarks,,,,,\n";
+
+    private InMemoryDAO dao;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.close();
+    }
+
+    private LaunchCsvImporter importer(int threads) {
+        return new LaunchCsvImporter(dao, 2018, ProviderDirectory.load(), 7, threads);
+    }
+
+    @Test
+    public void shouldImportTheLaunchesOfTheDatasetThatHaveADay() throws IOException {
+        ImportReport report = importer(4).importFrom(DATASET);
+        assertEquals(173, report.getRecordsRead());
+        assertEquals(30, report.getSaved());
+        assertEquals(16, report.getSkipped());
+        assertEquals(30, dao.loadAll(Launch.class).size());
+        assertEquals(20, dao.loadAll(Rocket.class).size());
+        // ULA is also listed as United Launch Alliance
+        assertEquals(9, dao.loadAll(LaunchServiceProvider.class).size());
+
+        Launch zuma = dao.loadAll(Launch.class).stream()
+                .filter(launch -> LocalDate.of(2018, 1, 8).equals(launch.getLaunchDate()))
+                .findFirst().get();
+        assertEquals("Falcon 9 Full Thrust", zuma.getLaunchVehicle().getName());
+        assertEquals("USA", zuma.getLaunchVehicle().getCountry());
+        assertEquals("SpaceX", zuma.getLaunchServiceProvider().getName());
+        assertEquals("Cape Canaveral SLC-40", zuma.getLaunchSite());
+        assertEquals("Low Earth", zuma.getOrbit());
+        assertEquals("Classified", zuma.getFunction());
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, zuma.getLaunchOutcome());
+        assertEquals("Zuma (USA-280)", zuma.getPayload().iterator().next().getName());
+    }
+
+    @Test
+    public void shouldUpdateTheLaunchesWhenImportedAgain() throws IOException {
+        importer(4).importFrom(DATASET);
+        Set<Long> ids = dao.loadAll(Launch.class).stream().map(Launch::getId).collect(Collectors.toSet());
+        int payloads = dao.loadAll(Payload.class).size();
+        importer(4).importFrom(DATASET);
+        assertEquals(ids, dao.loadAll(Launch.class).stream().map(Launch::getId).collect(Collectors.toSet()));
+        assertEquals(payloads, dao.loadAll(Payload.class).size());
+        assertEquals(20, dao.loadAll(Rocket.class).size());
+        assertEquals(9, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldUpdateTheLaunchWhoseOutcomeChangedWhenImportedAgain() throws IOException {
+        String scheduled = "\"9 February\",Electron,,Mahia LC-1A,,Rocket Lab,\n"
+                + ",Cubesat,Operator,Low Earth,Technology,,\n";
+        String flown = scheduled.replace("Technology,,", "Technology,In orbit,Operational");
+        importer(2).importFrom(new StringReader(HEADER + scheduled));
+        Long id = dao.loadAll(Launch.class).iterator().next().getId();
+
+        importer(2).importFrom(new StringReader(HEADER + flown));
+        assertEquals(1, dao.loadAll(Launch.class).size());
+        Launch launch = dao.loadAll(Launch.class).iterator().next();
+        assertEquals(id, launch.getId());
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, launch.getLaunchOutcome());
+        assertEquals(1, dao.loadAll(Payload.class).size());
+    }
+
+    @Test
+    public void shouldImportTheSameOnOneThreadAsOnMany() throws IOException {
+        importer(1).importFrom(DATASET);
+        Set<String> serial = summaries();
+        dao.close();
+        dao = new InMemoryDAO();
+        importer(3).importFrom(DATASET);
+        assertEquals(serial, summaries());
+    }
+
+    private Set<String> summaries() {
+        return dao.loadAll(Launch.class).stream()
+                .map(launch -> launch.getLaunchDate() + " " + launch.getLaunchVehicle().getName() + " "
+                        + launch.getLaunchOutcome() + " " + launch.getPayload().size())
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void shouldReadMultiLineCellsAndLaunchFailures() throws IOException {
+        String csv = HEADER
+                + "February,,,,,,\n"
+                + "\"3 February\n 05:03\",SS-520[1],,Uchinoura,,JAXA,\n"
+                + ",TRICOM-1R,University of Tokyo,Low Earth,\"Technology\n demonstration\",In orbit,Operational\n"
+                + ",\"A remark\nover two lines\",,,,,\n"
+                + "\"5 February\",Vega,,Kourou ZLV,,Arianespace,\n"
+                + ",Sat,Operator,Low Earth,Earth observation,5 February,Launch failure\n"
+                + "\"9 February\",Unknown,,Nowhere,,Acme Rockets,\n";
+        ImportReport report = importer(2).importFrom(new StringReader(csv));
+        assertEquals(2, report.getSaved());
+        assertEquals(1, report.getSkipped());
+
+        Launch tricom = dao.loadAll(Launch.class).stream()
+                .filter(launch -> "SS-520".equals(launch.getLaunchVehicle().getName()))
+                .findFirst().get();
+        assertEquals("Technology demonstration", tricom.getFunction());
+        assertEquals(1, tricom.getPayload().size());
+        Payload payload = tricom.getPayload().iterator().next();
+        assertTrue(payload.isActive());
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, tricom.getLaunchOutcome());
+
+        Launch vega = dao.loadAll(Launch.class).stream()
+                .filter(launch -> "Vega".equals(launch.getLaunchVehicle().getName()))
+                .findFirst().get();
+        assertEquals(Launch.LaunchOutcome.FAILED, vega.getLaunchOutcome());
+        assertEquals("France", vega.getLaunchVehicle().getCountry());
+    }
+
+    @Test
+    public void shouldSaveOnlyTheLaunchesThatChangedSinceTheLastImport() throws IOException {
+        Path fingerprints = Files.createDirectories(Paths.get("target", "test-data")).resolve("launches.fingerprints");
+        Files.deleteIfExists(fingerprints);
+        try {
+            ImportReport first = importer(4).importChangesFrom(DATASET, fingerprints, false);
+            assertEquals(30, first.getSaved());
+            assertEquals(0, first.getUnchanged());
+            assertEquals(30, RowFingerprints.read(fingerprints).size());
+
+            ImportReport second = importer(4).importChangesFrom(DATASET, fingerprints, false);
+            assertEquals(0, second.getSaved());
+            assertEquals(30, second.getUnchanged());
+            assertEquals(16, second.getSkipped());
+            assertEquals(0, second.getMissing());
+            assertEquals(30, dao.loadAll(Launch.class).size());
+        } finally {
+            Files.deleteIfExists(fingerprints);
+        }
+    }
+
+    @Test
+    public void shouldReportTheLaunchesThatAreGoneAndDeleteThemOnlyWhenAsked() throws IOException {
+        String vega = "\"5 February\",Vega,,Kourou ZLV,,Arianespace,\n"
+                + ",Sat,Operator,Low Earth,Earth observation,5 February,Launch failure\n";
+        String electron = "\"9 February\",Electron,,Mahia LC-1A,,Rocket Lab,\n"
+                + ",Cubesat,Operator,Low Earth,Technology,In orbit,Operational\n";
+        String changed = electron.replace("Technology", "Earth observation");
+        RowFingerprints fingerprints = new RowFingerprints();
+        importer(2).importChangesFrom(new StringReader(HEADER + vega + electron), fingerprints, false);
+        assertEquals(2, fingerprints.size());
+
+        ImportReport kept = importer(2).importChangesFrom(new StringReader(HEADER + changed), fingerprints, false);
+        assertEquals(1, kept.getSaved());
+        assertEquals(1, kept.getMissing());
+        assertEquals(0, kept.getDeleted());
+        assertEquals(2, dao.loadAll(Launch.class).size());
+        assertEquals("Earth observation", dao.loadAll(Launch.class).stream()
+                .filter(launch -> "Electron".equals(launch.getLaunchVehicle().getName()))
+                .findFirst().get().getFunction());
+
+        ImportReport deleted = importer(2).importChangesFrom(new StringReader(HEADER + changed), fingerprints, true);
+        assertEquals(0, deleted.getSaved());
+        assertEquals(1, deleted.getUnchanged());
+        assertEquals(1, deleted.getDeleted());
+        assertEquals(1, fingerprints.size());
+        assertEquals("Electron", dao.loadAll(Launch.class).iterator().next().getLaunchVehicle().getName());
+    }
+
+    @Test
+    public void shouldUpdateTheLaunchWhoseOutcomeChanged() throws IOException {
+        String scheduled = "\"9 February\",Electron,,Mahia LC-1A,,Rocket Lab,\n"
+                + ",Cubesat,Operator,Low Earth,Technology,,\n";
+        String flown = scheduled.replace("Technology,,", "Technology,In orbit,Operational");
+        RowFingerprints fingerprints = new RowFingerprints();
+        importer(2).importChangesFrom(new StringReader(HEADER + scheduled), fingerprints, false);
+        Long id = dao.loadAll(Launch.class).iterator().next().getId();
+
+        ImportReport report = importer(2).importChangesFrom(new StringReader(HEADER + flown), fingerprints, true);
+        assertEquals(1, report.getSaved());
+        assertEquals(0, report.getDeleted());
+        assertEquals(1, dao.loadAll(Launch.class).size());
+        Launch launch = dao.loadAll(Launch.class).iterator().next();
+        assertEquals(id, launch.getId());
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, launch.getLaunchOutcome());
+        assertEquals(1, dao.loadAll(Payload.class).size());
+    }
+
+    @Test
+    public void shouldFailOnceTheLaunchesThatCouldBeSavedWere() {
+        DAO failing = mock(DAO.class);
+        when(failing.createOrUpdateAll(any())).thenThrow(new IllegalStateException("database is down"));
+        LaunchCsvImporter importer = new LaunchCsvImporter(failing, 2018, ProviderDirectory.load(), 7, 2);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> importer.importFrom(DATASET));
+        assertEquals("30 launches failed to write", exception.getMessage());
+        assertEquals("database is down", exception.getCause().getMessage());
+        verify(failing, times(5)).createOrUpdateAll(any());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSizesAreNotPositive() {
+        ProviderDirectory directory = ProviderDirectory.load();
+        assertThrows(IllegalArgumentException.class, () -> new LaunchCsvImporter(dao, 2018, directory, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LaunchCsvImporter(dao, 2018, directory, 1, 0));
+        assertThrows(NullPointerException.class, () -> new LaunchCsvImporter(null, 2018));
+    }
+}
@@ -0,0 +1,169 @@
+package rockets.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadXlsxImporterUnitTest {
+    private static final Path DATASET = Paths.get("UCS_Satellite_Database_9-1-2017.xlsx");
+    private static final String HEADER = "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c></row>";
+
+    private InMemoryDAO dao;
+    private LaunchServiceProvider spacex;
+    private Launch zuma;
+    private Path folder;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        folder = Files.createDirectories(Paths.get("target", "test-data"));
+        dao = new InMemoryDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        zuma = launch(LocalDate.of(2018, 1, 8), new Rocket("Falcon 9 Full Thrust", "USA", spacex),
+                "Cape Canaveral SLC-40");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        dao.close();
+        Files.deleteIfExists(folder.resolve("satellites.xlsx"));
+        Files.deleteIfExists(folder.resolve("empty.xlsx"));
+    }
+
+    private Launch launch(LocalDate date, Rocket rocket, String site) {
+        Launch launch = new Launch(date, rocket, rocket.getManufacturer(), "LEO");
+        launch.setLaunchSite(site);
+        launch.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        return dao.createOrUpdate(launch);
+    }
+
+    // a satellite row: name, purpose, class of orbit, launch mass, date of launch and vehicle
+    private static String row(int number, String name, String purpose, String orbit, String mass,
+                              LocalDate date, String vehicle) {
+        return "<row r=\"" + number + "\">"
+                + text("A" + number, name) + text("F" + number, purpose) + text("H" + number, orbit)
+                + (null == mass ? "" : "<c r=\"P" + number + "\"><v>" + mass + "</v></c>")
+                + "<c r=\"S" + number + "\" s=\"22\"><v>" + (date.toEpochDay() + 25569) + "</v></c>"
+                + text("X" + number, vehicle) + "</row>";
+    }
+
+    private static String text(String reference, String value) {
+        return "<c r=\"" + reference + "\" t=\"inlineStr\"><is><t>" + value + "</t></is></c>";
+    }
+
+    private Path workbook(String... rows) throws IOException {
+        Path file = folder.resolve("satellites.xlsx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            entry(zip, "xl/workbook.xml", "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                    + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                    + "<sheets><sheet name=\"Sheet1\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+            entry(zip, "xl/_rels/workbook.xml.rels",
+                    "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                            + "<Relationship Id=\"rId1\" Target=\"worksheets/sheet1.xml\"/></Relationships>");
+            entry(zip, "xl/sharedStrings.xml", "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<si><r><t>Name of </t></r><r><t>Satellite</t></r><rPh><t>x</t></rPh></si></sst>");
+            entry(zip, "xl/worksheets/sheet1.xml", "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<sheetData>" + HEADER + String.join("", rows) + "</sheetData></worksheet>");
+        }
+        return file;
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private Launch reload(Launch launch) {
+        return dao.load(Launch.class, launch.getId());
+    }
+
+    @Test
+    public void shouldAddTheSatellitesToTheLaunchesOnTheirDateAndVehicle() throws IOException {
+        Path file = workbook(
+                row(2, "Zuma (USA-280)", "Classified", "LEO", "5,000+", LocalDate.of(2018, 1, 8), "Falcon 9"),
+                row(3, "Elsewhere", "Communications", "GEO", "3669", LocalDate.of(2018, 1, 9), "Falcon 9"),
+                row(4, "Nameless", "Communications", "GEO", "3669", LocalDate.of(2018, 1, 8), "Atlas V"));
+        ImportReport report = new PayloadXlsxImporter(dao, 7).importFrom(file);
+        assertEquals(4, report.getRecordsRead());
+        assertEquals(1, report.getSaved());
+        assertEquals(2, report.getSkipped());
+
+        Set<Payload> payloads = reload(zuma).getPayload();
+        assertEquals(1, payloads.size());
+        Payload payload = payloads.iterator().next();
+        assertEquals("Zuma (USA-280)", payload.getName());
+        assertEquals("Classified", payload.getType());
+        assertEquals("LEO", payload.getDestination());
+        assertEquals(5000, payload.getMassKG());
+        assertTrue(payload.isActive());
+    }
+
+    @Test
+    public void shouldUpdateThePayloadsOfTheSameNameWhenImportedAgain() throws IOException {
+        Path file = workbook(
+                row(2, "Zuma (USA-280)", "Classified", "LEO", "4.5", LocalDate.of(2018, 1, 8), "Falcon 9 Full Thrust"),
+                row(3, "Zuma Rideshare", "Classified", "LEO", null, LocalDate.of(2018, 1, 8), "Falcon 9"));
+        new PayloadXlsxImporter(dao, 1).importFrom(file);
+        Set<Long> ids = reload(zuma).getPayload().stream().map(Payload::getId).collect(Collectors.toSet());
+        assertEquals(2, ids.size());
+
+        new PayloadXlsxImporter(dao, 1).importFrom(file);
+        assertEquals(ids, reload(zuma).getPayload().stream().map(Payload::getId).collect(Collectors.toSet()));
+        assertEquals(2, dao.loadAll(Payload.class).size());
+        assertEquals(5, reload(zuma).getPayload().stream()
+                .filter(payload -> "Zuma (USA-280)".equals(payload.getName()))
+                .findFirst().get().getMassKG());
+    }
+
+    @Test
+    public void shouldStreamTheUCSDatabase() throws IOException {
+        LaunchServiceProvider isro = new LaunchServiceProvider("ISRO", 1969, "India");
+        Launch cartosat = launch(LocalDate.of(2017, 6, 23), new Rocket("PSLV", "India", isro), "Satish Dhawan FLP");
+
+        ImportReport report = new PayloadXlsxImporter(dao).importFrom(DATASET);
+        assertEquals(1739, report.getRecordsRead());
+        assertEquals(24, report.getSaved());
+        assertEquals(1738 - 24, report.getSkipped());
+
+        Payload aalto = reload(cartosat).getPayload().stream()
+                .filter(payload -> "Aalto-1".equals(payload.getName()))
+                .findFirst().get();
+        assertEquals("Technology Development", aalto.getType());
+        assertEquals("LEO", aalto.getDestination());
+        assertEquals(5, aalto.getMassKG());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTheFileIsNotAWorkbook() throws IOException {
+        Path file = folder.resolve("empty.xlsx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            entry(zip, "content.xml", "<content/>");
+        }
+        IOException exception = assertThrows(IOException.class, () -> new PayloadXlsxImporter(dao).importFrom(file));
+        assertTrue(exception.getMessage().startsWith("invalid workbook"));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenBatchSizeIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PayloadXlsxImporter(dao, 0));
+        assertThrows(NullPointerException.class, () -> new PayloadXlsxImporter(null));
+    }
+}
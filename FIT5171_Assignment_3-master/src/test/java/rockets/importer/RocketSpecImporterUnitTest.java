@@ -0,0 +1,111 @@
+package rockets.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RocketSpecImporterUnitTest {
+    private static final Path DATASET = Paths.get("Rocket launches 2010- - comparison.csv");
+    private static final String HEADER = "Vehicle,Origin,Manufacturer,Mass to … (kg),,,Launches,Date of flight,\n"
+            + ",,,LEO,GTO,Other,,First[a],Latest\n";
+
+    private InMemoryDAO dao;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.close();
+    }
+
+    private RocketSpecImporter importer() {
+        return new RocketSpecImporter(dao, ProviderDirectory.load(), 7);
+    }
+
+    private Rocket rocket(String name) {
+        return dao.loadAll(Rocket.class).stream()
+                .filter(rocket -> name.equals(rocket.getName()))
+                .findFirst().get();
+    }
+
+    @Test
+    public void shouldUpdateTheRocketsTheLaunchesWereImportedWith() throws IOException {
+        new LaunchCsvImporter(dao, 2018).importFrom(Paths.get("Rocket launches 2010- - 2018.csv"));
+        Long id = rocket("Falcon 9 Full Thrust").getId();
+
+        ImportReport report = importer().importFrom(DATASET);
+        assertEquals(99, report.getRecordsRead());
+
+        Rocket falcon = rocket("Falcon 9 Full Thrust");
+        assertEquals(id, falcon.getId());
+        assertEquals("USA", falcon.getCountry());
+        assertEquals("22800", falcon.getMassToLEO());
+        assertEquals("8300", falcon.getMassToGTO());
+        assertEquals("4020", falcon.getMassToOther());
+        assertEquals(2015, falcon.getFirstYearFlight());
+        assertEquals(2018, falcon.getLatestYearFlight());
+    }
+
+    @Test
+    public void shouldCreateTheRocketsOfKnownManufacturers() throws IOException {
+        ImportReport report = importer().importFrom(DATASET);
+        assertEquals(report.getSaved(), dao.loadAll(Rocket.class).size());
+        assertEquals(97, report.getSaved() + report.getSkipped());
+
+        Rocket angara = rocket("Angara A5");
+        assertEquals("Russia", angara.getCountry());
+        assertEquals("Khrunichev", angara.getManufacturer().getName());
+        assertEquals("24000", angara.getMassToLEO());
+        assertEquals("7500", angara.getMassToGTO());
+    }
+
+    @Test
+    public void shouldSaveEachRocketOnceWhenImportedAgain() throws IOException {
+        importer().importFrom(DATASET);
+        Set<Long> ids = dao.loadAll(Rocket.class).stream().map(Rocket::getId).collect(Collectors.toSet());
+        int providers = dao.loadAll(LaunchServiceProvider.class).size();
+        importer().importFrom(DATASET);
+        assertEquals(ids, dao.loadAll(Rocket.class).stream().map(Rocket::getId).collect(Collectors.toSet()));
+        assertEquals(providers, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldKeepTheSpecificationsOfEmptyCells() throws IOException {
+        String csv = HEADER
+                + "Vega,Europe,Arianespace,\"1,500[1]\",,,12,2012,2018\n"
+                + "Vega,Europe,Arianespace,,,\"1,430 to SSO\",12,,Q4 2019\n"
+                + "Acme One,Nowhere,Acme Rockets,100,,,1,2018,2018\n";
+        ImportReport report = importer().importFrom(new StringReader(csv));
+        assertEquals(1, report.getSaved());
+        assertEquals(1, report.getSkipped());
+
+        Rocket vega = rocket("Vega");
+        assertEquals("Europe", vega.getCountry());
+        assertEquals("1500", vega.getMassToLEO());
+        assertEquals("1430", vega.getMassToOther());
+        assertEquals(2012, vega.getFirstYearFlight());
+        assertEquals(2019, vega.getLatestYearFlight());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenBatchSizeIsNotPositive() {
+        ProviderDirectory directory = ProviderDirectory.load();
+        assertThrows(IllegalArgumentException.class, () -> new RocketSpecImporter(dao, directory, 0));
+        assertThrows(NullPointerException.class, () -> new RocketSpecImporter(null));
+    }
+}
@@ -0,0 +1,161 @@
+package rockets.ingest;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.LaunchServiceProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestPipelineUnitTest {
+    private InMemoryDAO dao;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.close();
+    }
+
+    private IngestPipeline<String> providers(int queueCapacity, IngestPipeline.BatchWriter<LaunchServiceProvider> writer) {
+        return IngestPipeline.<String>builder()
+                .queueCapacity(queueCapacity)
+                .parse(line -> line.split(",", -1), 2)
+                .validate(values -> new LaunchServiceProvider(values[0], Integer.parseInt(values[1]), values[2]), 3)
+                .resolve(provider -> provider.getName().startsWith("#") ? null : provider, 1)
+                .write(writer, 4, 2);
+    }
+
+    private static Iterable<String> lines(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "Provider " + i + ",2000,USA").collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldSaveTheRecordsThatPassEveryStage() {
+        List<String> lines = new ArrayList<>();
+        lines.addAll(Arrays.asList("SpaceX,2002,USA", "ISRO,1969,India", "#Comment,2000,USA"));
+        lines.addAll(Arrays.asList(",2000,USA", "Acme,999,USA", "Acme,two thousand,USA", "Acme,2000"));
+
+        List<StageStats> stats = providers(2, IngestPipeline.saveTo(dao)).run(lines);
+        Set<String> names = dao.loadAll(LaunchServiceProvider.class).stream()
+                .map(LaunchServiceProvider::getName).collect(Collectors.toSet());
+        assertEquals(Sets.newHashSet("SpaceX", "ISRO"), names);
+
+        assertEquals(Arrays.asList("parse", "validate", "resolve", "write"),
+                stats.stream().map(StageStats::getName).collect(Collectors.toList()));
+        assertEquals(7, stats.get(0).getProcessed());
+        assertEquals(3, stats.get(1).getProcessed());
+        assertEquals(4, stats.get(1).getErrors());
+        assertEquals(1, stats.get(2).getDropped());
+        assertEquals(2, stats.get(3).getProcessed());
+        assertEquals(3, stats.get(1).getThreads());
+        for (StageStats stage : stats) {
+            assertEquals(0, stage.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void shouldHoldTheSourceBackWhileTheWriteStageIsBehind() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IngestPipeline<String> pipeline = providers(2, batch -> {
+            writing.countDown();
+            release.await();
+            dao.createOrUpdateAll(batch);
+        });
+        AtomicInteger read = new AtomicInteger();
+        Iterable<String> source = () -> new Iterator<String>() {
+            private final Iterator<String> lines = lines(1000).iterator();
+
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public String next() {
+                read.incrementAndGet();
+                return lines.next();
+            }
+        };
+        AtomicReference<List<StageStats>> result = new AtomicReference<>();
+        Thread ingest = new Thread(() -> result.set(pipeline.run(source)));
+        ingest.start();
+
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        // four queues of 2, an item in hand per parse, validate and resolve worker, and
+        // both writers' batches, one being written, beyond the one the source holds
+        int bound = 4 * 2 + 6 + 2 * 4 + 1;
+        assertTrue(read.get() <= bound, "read " + read.get() + " records");
+        for (StageStats stage : pipeline.stats()) {
+            assertTrue(stage.getQueueDepth() <= 2, stage.toString());
+        }
+
+        release.countDown();
+        ingest.join(10000);
+        assertEquals(1000, read.get());
+        assertEquals(1000, result.get().get(3).getProcessed());
+        assertEquals(1000, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldFailWhenAStageThreadFails() {
+        IngestPipeline<String> pipeline = IngestPipeline.<String>builder()
+                .queueCapacity(1)
+                .parse(line -> line, 1)
+                .validate(line -> {
+                    throw new AssertionError("broken");
+                }, 1)
+                .resolve(line -> line, 1)
+                .write(batch -> {
+                }, 1, 1);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> pipeline.run(lines(100)));
+        assertEquals("validate stage failed", exception.getMessage());
+    }
+
+    @Test
+    public void shouldCountTheItemsOfAFailedBatchAsErrors() {
+        List<StageStats> stats = providers(8, batch -> {
+            throw new IllegalStateException("database is down");
+        }).run(lines(10));
+        assertEquals(0, stats.get(3).getProcessed());
+        assertEquals(10, stats.get(3).getErrors());
+    }
+
+    @Test
+    public void shouldRunOnlyOnce() {
+        IngestPipeline<String> pipeline = providers(8, IngestPipeline.saveTo(dao));
+        pipeline.run(lines(3));
+        assertThrows(IllegalStateException.class, () -> pipeline.run(lines(3)));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenStagesAreOutOfOrder() {
+        IngestPipeline.Builder<String, String> builder = IngestPipeline.builder();
+        assertThrows(IllegalStateException.class, () -> builder.validate(line -> line, 1));
+        assertThrows(IllegalStateException.class, () -> builder.write(batch -> {
+        }, 1, 1));
+        assertThrows(IllegalStateException.class, () -> builder.parse(line -> line, 1).parse(line -> line, 1));
+        assertThrows(IllegalArgumentException.class, () -> builder.parse(line -> line, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.queueCapacity(0));
+        assertThrows(NullPointerException.class, () -> builder.parse(null, 1));
+    }
+}
@@ -1,14 +1,21 @@
 package rockets.mining;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityEvent;
+import rockets.dataaccess.EntityListener;
+import rockets.dataaccess.FetchPlan;
+import rockets.dataaccess.memory.InMemoryDAO;
 import rockets.dataaccess.neo4j.Neo4jDAO;
 import rockets.mining.RocketMiner;
 import rockets.model.Launch;
@@ -19,6 +26,7 @@ import rockets.model.Rocket;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.Map.Entry;
@@ -39,7 +47,10 @@ public class RocketMinerUnitTest {
     @BeforeEach
     public void setUp() {
         dao = mock(Neo4jDAO.class);
-        miner = new RocketMiner(dao);
+        when(dao.stream(Launch.class)).thenAnswer(invocation -> dao.loadAll(Launch.class).stream());
+        when(dao.loadAll(eq(Launch.class), any(FetchPlan.class))).thenAnswer(invocation -> dao.loadAll(Launch.class));
+        // the mock publishes no changes, so the miner scans for every query
+        miner = new RocketMiner(dao, MinerConfig.serial());
         rockets = Lists.newArrayList();
 
         lsps = Arrays.asList( // lsps means Launch Service Providers
@@ -315,4 +326,328 @@ public class RocketMinerUnitTest {
         Rocket topRocketWithPayload = miner.rocketWithMostActivePayloads(country);
         assertEquals(topRocketWithPayload, null);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldScanLaunchesForEveryQuery() {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(rockets.get(0), miner.mostLaunchedRockets(1).get(0));
+        when(dao.loadAll(Launch.class)).thenReturn(launches.subList(7, 10));
+        assertEquals(rockets.get(2), miner.mostLaunchedRockets(1).get(0));
+        verify(dao, times(2)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldScanLaunchesOnceForAllQueriesWhenCached() {
+        miner = new RocketMiner(dao, MinerConfig.serial().cached());
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        miner.mostLaunchedRockets(3);
+        miner.mostReliableLaunchServiceProviders(2);
+        miner.dominantCountry("LEO");
+        miner.highestRevenueLaunchServiceProviders(2, 2017);
+        miner.rocketWithMostActivePayloads("USA");
+        verify(dao, times(1)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldShareOneScanUntilTheDAOPublishesAWriteByDefault() {
+        miner = new RocketMiner(dao);
+        ArgumentCaptor<EntityListener> listener = ArgumentCaptor.forClass(EntityListener.class);
+        verify(dao).addListener(listener.capture());
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        miner.mostLaunchedRockets(3);
+        miner.mostReliableLaunchServiceProviders(2);
+        miner.dominantCountry("LEO");
+        miner.highestRevenueLaunchServiceProviders(2, 2017);
+        miner.rocketWithMostActivePayloads("USA");
+        verify(dao, times(1)).loadAll(Launch.class);
+
+        when(dao.loadAll(Launch.class)).thenReturn(launches.subList(7, 10));
+        listener.getValue().onEvent(EntityEvent.created(launches.get(7)));
+        assertEquals(rockets.get(2), miner.mostLaunchedRockets(1).get(0));
+        verify(dao, times(2)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldRescanLaunchesAfterRefresh() {
+        miner = new RocketMiner(dao, MinerConfig.serial().cached());
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(rockets.get(0), miner.mostLaunchedRockets(1).get(0));
+        when(dao.loadAll(Launch.class)).thenReturn(launches.subList(7, 10));
+        miner.refresh();
+        assertEquals(rockets.get(2), miner.mostLaunchedRockets(1).get(0));
+        verify(dao, times(2)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldDropTheCachedScanOnceTheDAOPublishesAWrite() throws InterruptedException {
+        InMemoryDAO store = new InMemoryDAO();
+        try {
+            store.createOrUpdateAll(launches.subList(7, 10));
+            RocketMiner cached = new RocketMiner(store, MinerConfig.serial().cached());
+            assertEquals(rockets.get(2).getName(), cached.mostLaunchedRockets(1).get(0).getName());
+
+            store.createOrUpdateAll(launches.subList(0, 7));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!rockets.get(0).getName().equals(cached.mostLaunchedRockets(1).get(0).getName())
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(rockets.get(0).getName(), cached.mostLaunchedRockets(1).get(0).getName());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepTheCachedScanUntilRefreshedWhenTheDAOPublishesNothing() {
+        doThrow(new UnsupportedOperationException("no events")).when(dao).addListener(any());
+        miner = new RocketMiner(dao, MinerConfig.serial().cached());
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(rockets.get(0), miner.mostLaunchedRockets(1).get(0));
+        assertEquals(rockets.get(0), miner.mostLaunchedRockets(1).get(0));
+        verify(dao, times(1)).loadAll(Launch.class);
+
+        for (int i = 0; i < launches.size(); i++) {
+            launches.get(i).setId((long) i);
+        }
+        MaterializedLaunchStatistics statistics = new MaterializedLaunchStatistics();
+        statistics.follow(dao);
+        assertEquals(10, statistics.size());
+        when(dao.loadAll(Launch.class)).thenReturn(launches.subList(7, 10));
+        statistics.refresh();
+        assertEquals(3, statistics.size());
+    }
+
+    private LaunchStatisticsDAO statisticsDao;
+
+    private RocketMiner maintainedMiner() {
+        when(dao.loadAll(Launch.class)).thenReturn(Collections.emptyList());
+        when(dao.createOrUpdate(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        statisticsDao = new LaunchStatisticsDAO(dao, new MaterializedLaunchStatistics());
+        for (int i = 0; i < launches.size(); i++) {
+            launches.get(i).setId((long) i);
+            statisticsDao.createOrUpdate(launches.get(i));
+        }
+        return new RocketMiner(statisticsDao, statisticsDao.getStatistics());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 5})
+    public void shouldAnswerFromMaintainedStatisticsWithoutRescanning(int k) {
+        RocketMiner maintained = maintainedMiner();
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(miner.mostLaunchedRockets(k), maintained.mostLaunchedRockets(k));
+        assertEquals(miner.mostReliableLaunchServiceProviders(k), maintained.mostReliableLaunchServiceProviders(k));
+        assertEquals(miner.highestRevenueLaunchServiceProviders(k, 2017), maintained.highestRevenueLaunchServiceProviders(k, 2017));
+        assertEquals(miner.dominantCountry("GTO"), maintained.dominantCountry("GTO"));
+        assertEquals(miner.rocketWithMostActivePayloads("USA"), maintained.rocketWithMostActivePayloads("USA"));
+        // once to warm the maintained statistics up, once per query of the scanning miner
+        verify(dao, times(1 + 5)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldMaintainStatisticsOnUpdateAndDelete() {
+        RocketMiner maintained = maintainedMiner();
+        LaunchStatisticsDAO writer = statisticsDao;
+        assertEquals(lsps.get(1), maintained.mostReliableLaunchServiceProviders(1).get(0));
+
+        launches.get(9).setLaunchOutcome(Launch.LaunchOutcome.FAILED);
+        writer.createOrUpdate(launches.get(9));
+        assertEquals(lsps.get(0), maintained.mostReliableLaunchServiceProviders(1).get(0));
+
+        for (int i = 0; i < 4; i++) {
+            writer.delete(launches.get(i));
+        }
+        assertEquals(rockets.get(1), maintained.mostLaunchedRockets(1).get(0));
+        assertEquals(6, writer.getStatistics().size());
+    }
+
+    @Test
+    public void shouldRetractALaunchFromTheManufacturerItWasCountedUnder() {
+        maintainedMiner();
+        rockets.get(3).setManufacturer(lsps.get(2));
+        statisticsDao.createOrUpdate(launches.get(9));
+        Set<LaunchServiceProvider> manufacturers = statisticsDao.getStatistics()
+                .query(statistics -> new HashSet<>(statistics.getRevenue().getRevenue(2017).keySet()));
+        assertEquals(Sets.newHashSet(lsps.get(0), lsps.get(2)), manufacturers);
+    }
+
+    @Test
+    public void shouldMaintainStatisticsOnBulkSave() {
+        RocketMiner maintained = maintainedMiner();
+        when(dao.createOrUpdateAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        for (int i = 0; i < 4; i++) {
+            launches.get(i).setLaunchOutcome(Launch.LaunchOutcome.FAILED);
+        }
+        statisticsDao.createOrUpdateAll(launches.subList(0, 4));
+        assertEquals(new BigDecimal("0.30"), maintained.successfulLaunchRateInYear(2017));
+        assertEquals(10, statisticsDao.getStatistics().size());
+    }
+
+    @Test
+    public void shouldMaintainStatisticsFromTheChangesADAOPublishes() throws InterruptedException {
+        InMemoryDAO store = new InMemoryDAO();
+        try {
+            store.createOrUpdateAll(launches.subList(0, 5));
+            MaterializedLaunchStatistics statistics = new MaterializedLaunchStatistics();
+            statistics.follow(store);
+            assertEquals(5, statistics.size());
+
+            store.createOrUpdateAll(launches.subList(5, 10));
+            store.delete(launches.get(0));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (statistics.size() != 9 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(9, statistics.size());
+            RocketMiner following = new RocketMiner(store, statistics);
+            when(dao.loadAll(Launch.class)).thenReturn(launches.subList(1, 10));
+            assertEquals(miner.mostLaunchedRockets(2), following.mostLaunchedRockets(2));
+        } finally {
+            store.close();
+        }
+    }
+
+    // many launches with ties in every ranking, prices with 2 decimals
+    private List<Launch> randomLaunches(int n) {
+        Random random = new Random(5171);
+        String[] orbits = new String[] {"LEO", "GTO", "MLE"};
+        return IntStream.range(0, n).mapToObj(i -> {
+            Launch launch = new Launch(LocalDate.of(2010 + random.nextInt(8), 1 + random.nextInt(12), 1),
+                    rockets.get(random.nextInt(rockets.size())), lsps.get(random.nextInt(lsps.size())), orbits[random.nextInt(3)]);
+            launch.setLaunchOutcome(random.nextBoolean() ? Launch.LaunchOutcome.SUCCESSFUL : Launch.LaunchOutcome.FAILED);
+            launch.setPrice(BigDecimal.valueOf(random.nextInt(100000), 2));
+            launch.setPayload(Collections.singleton(new Payload("payload_" + i, "LEO", random.nextInt(500), "satellite", random.nextBoolean())));
+            return launch;
+        }).collect(Collectors.toList());
+    }
+
+    private void assertSameResults(RocketMiner expected, RocketMiner actual, int k) {
+        assertEquals(expected.mostLaunchedRockets(k), actual.mostLaunchedRockets(k));
+        assertEquals(expected.mostReliableLaunchServiceProviders(k), actual.mostReliableLaunchServiceProviders(k));
+        for (int year = 2010; year < 2018; year++) {
+            assertEquals(expected.highestRevenueLaunchServiceProviders(k, year), actual.highestRevenueLaunchServiceProviders(k, year));
+        }
+        for (String orbit : new String[] {"LEO", "GTO", "MLE", "Pluto"}) {
+            assertEquals(expected.dominantCountry(orbit), actual.dominantCountry(orbit));
+        }
+        for (String country : new String[] {"USA", "Australia", "India"}) {
+            assertEquals(expected.rocketWithMostActivePayloads(country), actual.rocketWithMostActivePayloads(country));
+        }
+        for (int year = 2009; year < 2019; year++) {
+            assertEquals(expected.successfulLaunchRateInYear(year), actual.successfulLaunchRateInYear(year));
+        }
+        assertEquals(expected.successfulLaunchRateInYears(2010, 2017), actual.successfulLaunchRateInYears(2010, 2017));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 5})
+    public void shouldReturnSameResultsInParallelMode(int k) {
+        when(dao.loadAll(Launch.class)).thenReturn(randomLaunches(5000));
+        try (MinerConfig config = MinerConfig.parallel(4, 0)) {
+            RocketMiner parallelMiner = new RocketMiner(dao, config);
+            assertSameResults(miner, parallelMiner, k);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 5, 11})
+    public void shouldReturnSameResultsFromLaunchTable(int k) {
+        RocketMiner columnarMiner = new ColumnarRocketMiner(dao);
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertSameResults(miner, columnarMiner, k);
+        assertEquals(miner.mostRecentLaunches(k), columnarMiner.mostRecentLaunches(k));
+
+        when(dao.loadAll(Launch.class)).thenReturn(randomLaunches(5000));
+        miner.refresh();
+        columnarMiner.refresh();
+        assertSameResults(miner, columnarMiner, k);
+        assertEquals(miner.mostRecentLaunches(k), columnarMiner.mostRecentLaunches(k));
+        assertEquals(miner.mostExpensiveLaunches(k), columnarMiner.mostExpensiveLaunches(k));
+    }
+
+    @Test
+    public void shouldRebuildTheLaunchTableOnceTheDAOPublishesAWrite() {
+        RocketMiner columnarMiner = new ColumnarRocketMiner(dao);
+        ArgumentCaptor<EntityListener> listener = ArgumentCaptor.forClass(EntityListener.class);
+        verify(dao).addListener(listener.capture());
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(rockets.get(0), columnarMiner.mostLaunchedRockets(1).get(0));
+        assertEquals(rockets.get(0), columnarMiner.mostLaunchedRockets(1).get(0));
+        // the revenue needs the manufacturers of the launch vehicles
+        verify(dao, times(1)).loadAll(Launch.class, FetchPlan.depth(2));
+
+        when(dao.loadAll(Launch.class)).thenReturn(launches.subList(7, 10));
+        listener.getValue().onEvent(EntityEvent.created(launches.get(7)));
+        assertEquals(rockets.get(2), columnarMiner.mostLaunchedRockets(1).get(0));
+        assertThrows(IllegalArgumentException.class, () -> columnarMiner.mostExpensiveLaunches(-1));
+    }
+
+    @Test
+    public void shouldStaySerialBelowThreshold() {
+        try (MinerConfig config = MinerConfig.parallel(2, 100)) {
+            assertFalse(config.isParallel(launches.size()));
+            assertTrue(config.isParallel(100));
+        }
+        assertFalse(MinerConfig.serial().isParallel(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void shouldShutDownOnlyThePoolAConfigMade() {
+        MinerConfig owning = MinerConfig.parallel(2, 100);
+        owning.close();
+        assertTrue(owning.getPool().isShutdown());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MinerConfig.parallel(pool, 100).cached().close();
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2017, 0.70", "2016, 0.00", "2018, 0.00"})
+    public void shouldReturnSuccessfulLaunchRateInYear(int year, String rate) {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(new BigDecimal(rate), miner.successfulLaunchRateInYear(year));
+    }
+
+    @Test
+    public void shouldReturnSuccessfulLaunchRateInYearRange() {
+        launches.get(0).setLaunchDate(LocalDate.of(2015, 3, 1));
+        launches.get(4).setLaunchDate(LocalDate.of(2016, 12, 31));
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(new BigDecimal("0.00"), miner.successfulLaunchRateInYears(2016, 2016));
+        assertEquals(new BigDecimal("0.50"), miner.successfulLaunchRateInYears(2015, 2016));
+        assertEquals(new BigDecimal("0.70"), miner.successfulLaunchRateInYears(2000, 2020));
+        assertThrows(IllegalArgumentException.class, () -> miner.successfulLaunchRateInYears(2018, 2017));
+    }
+
+    @Test
+    public void shouldAnswerLaunchRatesFromTheCalendarOfOneScanByDefault() {
+        miner = new RocketMiner(dao);
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        for (int year = 2000; year <= 2020; year++) {
+            miner.successfulLaunchRateInYears(year, 2020);
+        }
+        assertEquals(new BigDecimal("0.70"), miner.successfulLaunchRateInYear(2017));
+        verify(dao, times(1)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldMaintainSuccessfulLaunchRateOnWrites() {
+        RocketMiner maintained = maintainedMiner();
+        assertEquals(new BigDecimal("0.70"), maintained.successfulLaunchRateInYear(2017));
+        launches.get(4).setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        statisticsDao.createOrUpdate(launches.get(4));
+        launches.get(6).setLaunchDate(LocalDate.of(2018, 6, 1));
+        statisticsDao.createOrUpdate(launches.get(6));
+        assertEquals(new BigDecimal("0.89"), maintained.successfulLaunchRateInYear(2017));
+        assertEquals(new BigDecimal("0.00"), maintained.successfulLaunchRateInYear(2018));
+        assertEquals(new BigDecimal("0.80"), maintained.successfulLaunchRateInYears(2017, 2018));
+        statisticsDao.delete(launches.get(6));
+        assertEquals(new BigDecimal("0.00"), maintained.successfulLaunchRateInYear(2018));
+    }
+}
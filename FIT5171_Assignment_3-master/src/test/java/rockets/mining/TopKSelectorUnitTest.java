@@ -0,0 +1,37 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKSelectorUnitTest {
+    private final List<Integer> numbers = Arrays.asList(5, 3, 9, 1, 9, 7, 3, 8);
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new TopKSelector<Integer>(-1, Comparator.naturalOrder()));
+        assertEquals("k cannot be negative", exception.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 8, 9}) // min, min+, nom, max, max+
+    public void shouldSelectSameItemsAsFullSort(int k) {
+        List<Integer> expected = numbers.stream().sorted(Comparator.reverseOrder()).limit(k).collect(Collectors.toList());
+        assertEquals(expected, TopKSelector.select(numbers, k, Comparator.<Integer>reverseOrder()));
+    }
+
+    @Test
+    public void shouldBreakTiesByOfferOrder() {
+        List<String> words = Arrays.asList("bb", "aa", "cc", "d", "ee");
+        List<String> longest = TopKSelector.select(words, 3, Comparator.comparingInt(String::length).reversed());
+        assertEquals(Arrays.asList("bb", "aa", "cc"), longest);
+    }
+}
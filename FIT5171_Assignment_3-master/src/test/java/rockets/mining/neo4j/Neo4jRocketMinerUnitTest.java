@@ -0,0 +1,118 @@
+package rockets.mining.neo4j;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.mining.RocketMiner;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Payload;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class Neo4jRocketMinerUnitTest {
+    private static final String TEST_DB = "target/test-data/miner-db";
+
+    private Neo4jDAO dao;
+    private RocketMiner miner;
+    private Neo4jRocketMiner neo4jMiner;
+
+    @BeforeAll
+    public void initializeNeo4j() {
+        dao = new Neo4jDAO(TEST_DB);
+        dao.setPageSize(7);
+        dao.query("MATCH (n) DETACH DELETE n", Collections.emptyMap());
+        dao.reindex();
+
+        List<LaunchServiceProvider> lsps = Arrays.asList(
+                new LaunchServiceProvider("ULA", 1990, "USA"),
+                new LaunchServiceProvider("SpaceX", 2002, "USA"),
+                new LaunchServiceProvider("ESA", 1975, "Europe"));
+        String[] countries = new String[] {"USA", "Australia", "India"};
+        List<Rocket> rockets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rockets.add(new Rocket("rocket_" + i, countries[i % 3], lsps.get(i % 3)));
+        }
+
+        Random random = new Random(5171);
+        String[] orbits = new String[] {"LEO", "GTO", "MLE"};
+        for (int i = 0; i < 60; i++) {
+            Rocket rocket = rockets.get(random.nextInt(rockets.size()));
+            Launch launch = new Launch(LocalDate.of(2010 + random.nextInt(8), 1 + random.nextInt(12), 1 + i % 28),
+                    rocket, lsps.get(random.nextInt(lsps.size())), orbits[random.nextInt(3)]);
+            launch.setLaunchSite("site_" + i);
+            launch.setLaunchOutcome(random.nextBoolean() ? Launch.LaunchOutcome.SUCCESSFUL : Launch.LaunchOutcome.FAILED);
+            launch.setPrice(BigDecimal.valueOf(random.nextInt(100000), 2));
+            Set<Payload> payloads = new HashSet<>();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                payloads.add(new Payload("payload_" + i + "_" + j, "LEO", random.nextInt(500), "satellite", random.nextBoolean()));
+            }
+            if (!payloads.isEmpty()) {
+                launch.setPayload(payloads);
+            }
+            dao.createOrUpdate(launch);
+        }
+
+        miner = new RocketMiner(dao);
+        neo4jMiner = new Neo4jRocketMiner(dao);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        dao.query("MATCH (n) DETACH DELETE n", Collections.emptyMap());
+        dao.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 5, 100})
+    public void shouldReturnSameRankingsAsMiner(int k) {
+        assertEquals(Math.min(k, 5), neo4jMiner.mostLaunchedRockets(k).size());
+        assertEquals(Math.min(k, 60), neo4jMiner.mostRecentLaunches(k).size());
+        assertEquals(ids(miner.mostLaunchedRockets(k)), ids(neo4jMiner.mostLaunchedRockets(k)));
+        assertEquals(ids(miner.mostReliableLaunchServiceProviders(k)), ids(neo4jMiner.mostReliableLaunchServiceProviders(k)));
+        assertEquals(ids(miner.mostRecentLaunches(k)), ids(neo4jMiner.mostRecentLaunches(k)));
+        assertEquals(ids(miner.mostExpensiveLaunches(k)), ids(neo4jMiner.mostExpensiveLaunches(k)));
+        for (int year = 2009; year < 2019; year++) {
+            assertEquals(ids(miner.highestRevenueLaunchServiceProviders(k, year)), ids(neo4jMiner.highestRevenueLaunchServiceProviders(k, year)));
+        }
+    }
+
+    @Test
+    public void shouldReturnSameAggregatesAsMiner() {
+        for (String orbit : new String[] {"LEO", "GTO", "MLE", "Pluto"}) {
+            assertEquals(miner.dominantCountry(orbit), neo4jMiner.dominantCountry(orbit));
+        }
+        for (String country : new String[] {"USA", "Australia", "India", "Europe"}) {
+            assertEquals(ids(Collections.singletonList(miner.rocketWithMostActivePayloads(country))),
+                    ids(Collections.singletonList(neo4jMiner.rocketWithMostActivePayloads(country))));
+        }
+        for (int year = 2009; year < 2019; year++) {
+            assertEquals(miner.successfulLaunchRateInYear(year), neo4jMiner.successfulLaunchRateInYear(year));
+        }
+        assertEquals(miner.successfulLaunchRateInYears(2010, 2017), neo4jMiner.successfulLaunchRateInYears(2010, 2017));
+    }
+
+    // entities loaded through different sessions hold different parts of the graph, so compare them by id
+    private static List<Long> ids(List<? extends Entity> entities) {
+        return entities.stream().map(entity -> null == entity ? null : entity.getId()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> neo4jMiner.mostLaunchedRockets(-1));
+        assertThrows(IllegalArgumentException.class, () -> neo4jMiner.highestRevenueLaunchServiceProviders(-1, 2017));
+        assertThrows(IllegalArgumentException.class, () -> neo4jMiner.successfulLaunchRateInYears(2018, 2017));
+    }
+}